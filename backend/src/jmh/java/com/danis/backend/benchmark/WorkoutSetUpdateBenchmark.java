@@ -0,0 +1,118 @@
+package com.danis.backend.benchmark;
+
+import com.danis.backend.BackendApplication;
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.service.workflow.WorkoutWorkflowService;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging one set of a workout in progress, as the conditional update of
+ * {@link WorkoutWorkflowService#updateWorkoutSet} and as the previous graph update: load the
+ * workout, find the set, cascade a save. Each invocation commits its own transaction.
+ *
+ * <p>Needs the database of {@code DB_URL}, {@code DB_USERNAME} and {@code DB_PASSWORD};
+ * run with {@code ./mvnw -Pbenchmark verify -Djmh.args="WorkoutSetUpdateBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkoutSetUpdateBenchmark {
+
+    private static final int SETS_PER_EXERCISE = 3;
+
+    @Param({"2", "8"})
+    private int exercises;
+
+    private ConfigurableApplicationContext context;
+    private WorkoutWorkflowService workoutWorkflowService;
+    private WorkoutRepository workoutRepository;
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+    private Long workoutId;
+    private Long exerciseId;
+    private Long setId;
+    private int reps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--spring.main.banner-mode=off",
+                        // Every update is written to the database on the calling thread
+                        "--workouts.sessions.enabled=false", "--workouts.group-commit.enabled=false");
+        workoutWorkflowService = context.getBean(WorkoutWorkflowService.class);
+        workoutRepository = context.getBean(WorkoutRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ExerciseRepository exerciseRepository = context.getBean(ExerciseRepository.class);
+
+        Workout workout = transactionTemplate.execute(status -> {
+            User user = userRepository.save(WorkoutHistoryFixture.user());
+            List<Exercise> performed = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(exercises));
+            return workoutRepository.save(
+                    WorkoutHistoryFixture.inProgressWorkout(user, null, performed, SETS_PER_EXERCISE));
+        });
+
+        // The last set of the last exercise, the worst case for a scan of the graph
+        WorkoutExercise last = workout.getExercises().get(workout.getExercises().size() - 1);
+        userId = workout.getUser().getId();
+        workoutId = workout.getId();
+        exerciseId = last.getId();
+        setId = last.getSets().get(SETS_PER_EXERCISE - 1).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // A bodyweight set, so no personal record is written
+    @Benchmark
+    public WorkoutSetResponse targetedUpdate() {
+        UpdateWorkoutSetRequest request = new UpdateWorkoutSetRequest();
+        request.setActualReps(nextReps());
+        request.setCompleted(true);
+        return workoutWorkflowService.updateWorkoutSet(workoutId, exerciseId, setId, userId, request);
+    }
+
+    @Benchmark
+    public Workout graphUpdate() {
+        int actualReps = nextReps();
+        return transactionTemplate.execute(status -> {
+            Workout loaded = workoutRepository.findById(workoutId).orElseThrow();
+            WorkoutSet set = loaded.getExercises().stream()
+                    .filter(exercise -> exercise.getId().equals(exerciseId))
+                    .flatMap(exercise -> exercise.getSets().stream())
+                    .filter(candidate -> candidate.getId().equals(setId))
+                    .findFirst()
+                    .orElseThrow();
+            set.setActualReps(actualReps);
+            set.setCompleted(true);
+            return workoutRepository.saveAndFlush(loaded);
+        });
+    }
+
+    // Alternates the logged reps, so every invocation changes the row
+    private int nextReps() {
+        reps = reps == 12 ? 11 : 12;
+        return reps;
+    }
+}
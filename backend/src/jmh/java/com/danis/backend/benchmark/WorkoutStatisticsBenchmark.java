@@ -0,0 +1,126 @@
+package com.danis.backend.benchmark;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.dto.*;
+import com.danis.backend.service.statistics.HistorySnapshot;
+import com.danis.backend.service.statistics.SetHistoryIndex;
+import com.danis.backend.service.statistics.StatsAccumulator;
+import com.danis.backend.service.statistics.WorkoutHistoryStatistics;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The statistics of a synthetic completed history, computed by the list based reference
+ * {@link WorkoutHistoryStatistics}, by {@link StatsAccumulator} and by {@link SetHistoryIndex} scans.
+ * Run with {@code ./mvnw -Pbenchmark verify}; allocation rates come from the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WorkoutStatisticsBenchmark {
+
+    private static final int CATALOG_SIZE = 40;
+
+    @Param({"10", "1000", "50000"})
+    private int workouts;
+
+    @Param({"4", "8"})
+    private int exercisesPerWorkout;
+
+    @Param({"3", "5"})
+    private int setsPerExercise;
+
+    private final WorkoutHistoryStatistics reference = new WorkoutHistoryStatistics();
+
+    private List<Workout> history;
+    private SetHistoryIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Exercise> exercises = WorkoutHistoryFixture.exercises(CATALOG_SIZE);
+        for (int i = 0; i < exercises.size(); i++) {
+            exercises.get(i).setId((long) i + 1);
+        }
+        history = WorkoutHistoryFixture.history(
+                WorkoutHistoryFixture.user(), exercises, workouts, exercisesPerWorkout, setsPerExercise, 42L);
+
+        index = HistorySnapshot.of(history, true).replay(new SetHistoryIndex());
+        index.publish();
+    }
+
+    // ==================== WorkoutHistoryStatistics ====================
+
+    @Benchmark
+    public UserWorkoutStatsDTO userWorkoutStats() {
+        return reference.computeUserWorkoutStats(history);
+    }
+
+    @Benchmark
+    public PeriodStatsDTO periodStats() {
+        return reference.computePeriodStats(history, 30);
+    }
+
+    @Benchmark
+    public ExerciseProgressDTO exerciseProgress() {
+        return reference.computeExerciseProgress(history, 1L);
+    }
+
+    @Benchmark
+    public List<PersonalRecordDTO> personalRecords() {
+        return reference.getPersonalRecords(history);
+    }
+
+    @Benchmark
+    public Map<String, MuscleGroupStatsDTO> muscleGroupDistribution() {
+        return reference.getMuscleGroupDistribution(history);
+    }
+
+    @Benchmark
+    public Map<String, Integer> workoutsByDayOfWeek() {
+        return reference.getWorkoutsByDayOfWeek(history);
+    }
+
+    @Benchmark
+    public List<ExerciseFrequencyDTO> mostFrequentExercises() {
+        return reference.getMostFrequentExercises(history, 5);
+    }
+
+    @Benchmark
+    public int currentStreak() {
+        return reference.calculateCurrentStreak(history);
+    }
+
+    @Benchmark
+    public int longestStreak() {
+        return reference.calculateLongestStreak(history);
+    }
+
+    @Benchmark
+    public List<WeeklyVolumeDTO> volumeByWeek() {
+        return reference.getVolumeByWeek(history);
+    }
+
+    // ==================== Engines behind getUserWorkoutStats ====================
+
+    @Benchmark
+    public UserWorkoutStatsDTO accumulatorOverview() {
+        return history.stream()
+                .collect(StatsAccumulator.collector(LocalDateTime.now().minusDays(30)))
+                .toUserWorkoutStats(LocalDate.now(), 5);
+    }
+
+    @Benchmark
+    public Object indexSections() {
+        return List.of(index.mostFrequentExercises(5), index.muscleGroupDistribution(), index.workoutsByDayOfWeek());
+    }
+}
@@ -0,0 +1,90 @@
+package com.danis.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The REST API as one user sees it. Every call is timed into the histogram of its endpoint,
+ * named by method and path template, e.g. {@code PUT /api/workouts/{id}/exercises/{id}/sets/{id}}.
+ */
+final class ApiClient {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Map<String, LatencyHistogram> endpoints;
+    private String token;
+
+    ApiClient(HttpClient http, String baseUrl, Map<String, LatencyHistogram> endpoints) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.endpoints = endpoints;
+    }
+
+    boolean isLoggedIn() {
+        return token != null;
+    }
+
+    void login(String email, String password) throws IOException, InterruptedException {
+        JsonNode response = call("POST", "/api/users/login", "/api/users/login",
+                Map.of("email", email, "password", password));
+        token = response.path("token").asText();
+    }
+
+    JsonNode get(String endpoint, String path) throws IOException, InterruptedException {
+        return call("GET", endpoint, path, null);
+    }
+
+    JsonNode post(String endpoint, String path, Object body) throws IOException, InterruptedException {
+        return call("POST", endpoint, path, body);
+    }
+
+    JsonNode put(String endpoint, String path, Object body) throws IOException, InterruptedException {
+        return call("PUT", endpoint, path, body);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private JsonNode call(String method, String endpoint, String path, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        LatencyHistogram histogram = endpoints.computeIfAbsent(method + " " + endpoint, e -> new LatencyHistogram());
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            // Connection failures and timeouts count as errors too
+            histogram.record((System.nanoTime() - started) / 1000, true);
+            throw e;
+        }
+
+        boolean error = response.statusCode() >= 400;
+        histogram.record((System.nanoTime() - started) / 1000, error);
+        if (error) {
+            throw new IOException(method + " " + path + " returned " + response.statusCode());
+        }
+        return response.body().length > 0 ? JSON.readTree(response.body()) : JSON.nullNode();
+    }
+}
@@ -0,0 +1,114 @@
+package com.danis.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one endpoint in log-linear buckets: each power of two of microseconds is split into
+ * {@value #SUB_BUCKETS} buckets, so percentiles are within about 6% of the recorded values.
+ * Recording is lock free.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAGNITUDES = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private volatile long maxMicros;
+
+    void record(long micros, boolean error) {
+        counts.incrementAndGet(bucket(Math.max(1, micros)));
+        count.increment();
+        totalMicros.add(micros);
+        if (error) {
+            errors.increment();
+        }
+        if (micros > maxMicros) {
+            synchronized (this) {
+                maxMicros = Math.max(maxMicros, micros);
+            }
+        }
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, in microseconds
+     */
+    long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    Map<String, Object> toReport(double seconds) {
+        long total = count.sum();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", total);
+        report.put("errors", errors.sum());
+        report.put("errorRate", total > 0 ? (double) errors.sum() / total : 0.0);
+        report.put("throughputPerSecond", total / seconds);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", total > 0 ? totalMicros.sum() / 1000.0 / total : 0.0);
+        latency.put("p50", percentile(50) / 1000.0);
+        latency.put("p90", percentile(90) / 1000.0);
+        latency.put("p99", percentile(99) / 1000.0);
+        latency.put("p999", percentile(99.9) / 1000.0);
+        latency.put("max", maxMicros / 1000.0);
+        report.put("latencyMs", latency);
+
+        // Only the buckets that were hit
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) > 0) {
+                buckets.add(Map.of("upToMs", upperBound(i) / 1000.0, "count", counts.get(i)));
+            }
+        }
+        report.put("histogram", buckets);
+        return report;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static int bucket(long micros) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude < 4) {
+            return (int) micros;
+        }
+        int sub = (int) ((micros >>> (magnitude - 4)) & (SUB_BUCKETS - 1));
+        return Math.min(magnitude * SUB_BUCKETS + sub, MAGNITUDES * SUB_BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        if (magnitude < 4) {
+            return bucket;
+        }
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (magnitude - 4)) - 1;
+    }
+}
@@ -0,0 +1,181 @@
+package com.danis.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open model load test of the REST API against a running application.
+ *
+ * <p>Sessions of {@link WorkoutSession} start at a fixed arrival rate, each for a user that is not
+ * in a session already; when every user is busy or the concurrency limit is reached, the arrival is
+ * counted as dropped rather than delayed, so a slow server shows up as drops and latency instead of
+ * a lower request rate. Users are the ones of the {@code datagen} profile, found by seed and number.
+ *
+ * <p>Run with {@code ./mvnw -Ploadtest verify -Dloadtest.args="--rate 10 --duration 120"}. Latency
+ * histograms and error rates per endpoint are printed and written as JSON to {@code --report}.
+ */
+public final class LoadTest {
+
+    private final Map<String, String> options;
+    private final Map<String, LatencyHistogram> endpoints = new ConcurrentHashMap<>();
+    private final LatencyHistogram sessions = new LatencyHistogram();
+    private final LongAdder dropped = new LongAdder();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest(parse(args));
+        double errorRate = test.run();
+        if (errorRate > Double.parseDouble(test.option("max-error-rate", "1.0"))) {
+            System.exit(1);
+        }
+    }
+
+    private double run() throws Exception {
+        String baseUrl = option("base-url", "http://localhost:8080");
+        int users = Integer.parseInt(option("users", "100"));
+        long seed = Long.parseLong(option("seed", "42"));
+        String password = option("password", "password");
+        double rate = Double.parseDouble(option("rate", "5"));
+        int durationSeconds = Integer.parseInt(option("duration", "60"));
+        int maxConcurrency = Integer.parseInt(option("max-concurrency", "200"));
+        int maxSets = Integer.parseInt(option("sets", "25"));
+        long thinkMillis = Long.parseLong(option("think-ms", "200"));
+        Path reportFile = Path.of(option("report", "target/loadtest-report.json"));
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ExecutorService workers = Executors.newCachedThreadPool();
+        ExecutorService fanOut = Executors.newCachedThreadPool();
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+        Semaphore concurrency = new Semaphore(maxConcurrency);
+
+        Queue<Integer> idle = new ConcurrentLinkedQueue<>();
+        Map<Integer, ApiClient> clients = new ConcurrentHashMap<>();
+        for (int u = 0; u < users; u++) {
+            idle.add(u);
+        }
+        Random seeds = new Random(seed);
+
+        System.out.printf("Load test of %s: %.1f sessions/s for %d s over %d users%n",
+                baseUrl, rate, durationSeconds, users);
+        Instant started = Instant.now();
+
+        arrivals.scheduleAtFixedRate(() -> {
+            Integer user = idle.poll();
+            if (user == null || !concurrency.tryAcquire()) {
+                if (user != null) {
+                    idle.add(user);
+                }
+                dropped.increment();
+                return;
+            }
+
+            long sessionSeed = seeds.nextLong();
+            workers.execute(() -> {
+                long sessionStarted = System.nanoTime();
+                boolean failed = false;
+                try {
+                    ApiClient api = clients.computeIfAbsent(user, u -> new ApiClient(http, baseUrl, endpoints));
+                    if (!api.isLoggedIn()) {
+                        api.login(String.format("datagen-%d-%d@k-track.local", seed, user), password);
+                    }
+                    new WorkoutSession(api, new Random(sessionSeed), maxSets, thinkMillis, fanOut).run();
+                } catch (Exception e) {
+                    failed = true;
+                    if (failures.size() < 20) {
+                        failures.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+                    }
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                } finally {
+                    sessions.record((System.nanoTime() - sessionStarted) / 1000, failed);
+                    concurrency.release();
+                    idle.add(user);
+                }
+            });
+        }, 0, Math.max(1, (long) (1_000_000 / rate)), TimeUnit.MICROSECONDS);
+
+        Thread.sleep(durationSeconds * 1000L);
+        arrivals.shutdownNow();
+        arrivals.awaitTermination(5, TimeUnit.SECONDS);
+        workers.shutdown();
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.out.println("Sessions still running after two minutes are not reported");
+        }
+        fanOut.shutdown();
+
+        double seconds = Duration.between(started, Instant.now()).toMillis() / 1000.0;
+        return report(reportFile, seconds, rate);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private double report(Path reportFile, double seconds, double rate) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("arrivalRatePerSecond", rate);
+        report.put("durationSeconds", seconds);
+        report.put("droppedArrivals", dropped.sum());
+        report.put("sessions", sessions.toReport(seconds));
+
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> byEndpoint = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> endpoint : endpoints.entrySet()) {
+            byEndpoint.put(endpoint.getKey(), endpoint.getValue().toReport(seconds));
+            requests += endpoint.getValue().getCount();
+            errors += endpoint.getValue().getErrors();
+        }
+        report.put("endpoints", byEndpoint);
+        report.put("failures", failures);
+
+        Path parent = reportFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+
+        System.out.printf("%-55s %8s %7s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "p50 ms", "p90 ms",
+                "p99 ms", "max ms");
+        new TreeMap<>(endpoints).forEach((name, histogram) -> System.out.printf(
+                "%-55s %8d %7d %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getCount(), histogram.getErrors(),
+                histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                histogram.percentile(99) / 1000.0, histogram.percentile(100) / 1000.0));
+        System.out.printf("%d sessions, %d dropped arrivals, %d requests, %d errors; report in %s%n",
+                sessions.getCount(), dropped.sum(), requests, errors, reportFile);
+
+        return requests > 0 ? (double) errors / requests : 0.0;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    // --name value pairs
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + String.join(" ", args));
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
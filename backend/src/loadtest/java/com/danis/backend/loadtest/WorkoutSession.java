@@ -0,0 +1,105 @@
+package com.danis.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * One scripted gym session of a user: pick a template, start a workout, log its sets with a pause
+ * half way through, finish it and open the statistics screens the way the app does, in parallel.
+ */
+final class WorkoutSession {
+
+    private final ApiClient api;
+    private final Random random;
+    private final int maxSets;
+    private final long thinkMillis;
+    private final Executor fanOut;
+
+    WorkoutSession(ApiClient api, Random random, int maxSets, long thinkMillis, Executor fanOut) {
+        this.api = api;
+        this.random = random;
+        this.maxSets = maxSets;
+        this.thinkMillis = thinkMillis;
+        this.fanOut = fanOut;
+    }
+
+    void run() throws IOException, InterruptedException {
+        JsonNode templates = api.get("/api/workout-templates", "/api/workout-templates");
+        if (!templates.isArray() || templates.isEmpty()) {
+            throw new IllegalStateException("User has no templates; generate data with the datagen profile");
+        }
+
+        // A session of an earlier, interrupted run
+        JsonNode active = api.get("/api/workouts/active", "/api/workouts/active");
+        if (active.hasNonNull("id")) {
+            String id = active.get("id").asText();
+            if ("PAUSED".equals(active.path("status").asText())) {
+                api.post("/api/workouts/{id}/resume", "/api/workouts/" + id + "/resume", null);
+            }
+            api.post("/api/workouts/{id}/finish", "/api/workouts/" + id + "/finish", null);
+        }
+
+        long templateId = templates.get(random.nextInt(templates.size())).get("id").asLong();
+        String workoutId = api.post("/api/workouts/start", "/api/workouts/start", Map.of("templateId", templateId))
+                .get("id").asText();
+        JsonNode workout = api.get("/api/workouts/{id}", "/api/workouts/" + workoutId);
+
+        List<String> setPaths = new ArrayList<>();
+        for (JsonNode exercise : workout.path("exercises")) {
+            for (JsonNode set : exercise.path("sets")) {
+                setPaths.add("/api/workouts/" + workoutId + "/exercises/" + exercise.get("id").asText()
+                        + "/sets/" + set.get("id").asText());
+            }
+        }
+
+        int sets = Math.min(maxSets, setPaths.size());
+        for (int i = 0; i < sets; i++) {
+            think();
+            if (i == sets / 2) {
+                api.post("/api/workouts/{id}/pause", "/api/workouts/" + workoutId + "/pause", null);
+                think();
+                api.post("/api/workouts/{id}/resume", "/api/workouts/" + workoutId + "/resume", null);
+            }
+
+            Map<String, Object> change = new HashMap<>();
+            change.put("actualReps", 5 + random.nextInt(8));
+            change.put("actualWeight", 20 + 2.5 * random.nextInt(40));
+            change.put("completed", random.nextInt(10) != 0);
+            api.put("/api/workouts/{id}/exercises/{id}/sets/{id}", setPaths.get(i), change);
+        }
+
+        api.post("/api/workouts/{id}/finish", "/api/workouts/" + workoutId + "/finish", null);
+
+        CompletableFuture.allOf(
+                statistics("/api/statistics/overview"),
+                statistics("/api/statistics/personal-records"),
+                statistics("/api/statistics/muscle-groups")
+        ).join();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private CompletableFuture<Void> statistics(String path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                api.get(path, path);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, fanOut);
+    }
+
+    private void think() throws InterruptedException {
+        if (thinkMillis > 0) {
+            Thread.sleep(thinkMillis / 2 + random.nextLong(thinkMillis));
+        }
+    }
+}
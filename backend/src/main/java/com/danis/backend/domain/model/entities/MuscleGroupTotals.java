@@ -0,0 +1,20 @@
+package com.danis.backend.domain.model.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MuscleGroupTotals {
+    private int workoutCount;
+    private int totalSets;
+    private double totalVolume;
+
+    public MuscleGroupTotals add(int sets, double volume) {
+        return new MuscleGroupTotals(workoutCount + 1, totalSets + sets, totalVolume + volume);
+    }
+}
@@ -0,0 +1,43 @@
+package com.danis.backend.domain.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "personal_records",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "exercise_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PersonalRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "exercise_id", nullable = false)
+    private Exercise exercise;
+
+    // Workout the record was set in
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "workout_id")
+    private Workout workout;
+
+    private double weight;
+    private int reps;
+    private double estimatedOneRepMax; // Using Epley formula
+    private LocalDateTime achievedAt;
+}
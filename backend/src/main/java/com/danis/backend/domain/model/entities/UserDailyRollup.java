@@ -0,0 +1,42 @@
+package com.danis.backend.domain.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totals of a user's completed workouts per day they were finished,
+ * summed into longer buckets by the analytics queries.
+ */
+@Entity
+@Table(
+        name = "user_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "day"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    private int workouts;
+    private int sets;
+    private int reps;
+    private double volume;
+    private long duration; // Minutes
+}
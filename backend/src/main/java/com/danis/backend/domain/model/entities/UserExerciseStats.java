@@ -0,0 +1,35 @@
+package com.danis.backend.domain.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(
+        name = "user_exercise_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "exercise_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserExerciseStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "exercise_id", nullable = false)
+    private Exercise exercise;
+
+    private int sessionCount; // Number of completed workouts containing the exercise
+    private int totalSets;
+    private double totalVolume;
+}
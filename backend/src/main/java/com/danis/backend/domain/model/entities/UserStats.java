@@ -0,0 +1,70 @@
+package com.danis.backend.domain.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals over a user's completed workouts, updated when a workout is finished
+ * so the summary does not need to walk the whole history.
+ */
+@Entity
+@Table(name = "user_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+
+    private int totalWorkouts;
+    private int totalSets;
+    private int totalReps;
+    private double totalVolume; // kg
+    private long totalDuration; // minutes
+
+    // Workouts with both start and finish time, used for the average duration
+    private int timedWorkouts;
+
+    // Days with a finished workout, one bit per day from activityStart (see ActivityBitmap)
+    private LocalDate activityStart;
+    private byte[] activityDays;
+
+    @ElementCollection
+    @CollectionTable(name = "user_stats_day_of_week", joinColumns = @JoinColumn(name = "user_stats_id"))
+    @MapKeyColumn(name = "day_of_week")
+    @Column(name = "workout_count")
+    @Builder.Default
+    private Map<String, Integer> workoutsByDayOfWeek = new HashMap<>();
+
+    @ElementCollection
+    @CollectionTable(name = "user_stats_muscle_groups", joinColumns = @JoinColumn(name = "user_stats_id"))
+    @MapKeyColumn(name = "muscle")
+    @Builder.Default
+    private Map<String, MuscleGroupTotals> muscleGroups = new HashMap<>();
+
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
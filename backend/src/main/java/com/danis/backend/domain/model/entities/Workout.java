@@ -12,7 +12,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "workouts")
+@Table(
+        name = "workouts",
+        // A user's completed workouts by finish time
+        indexes = @Index(name = "idx_workouts_user_status_finished", columnList = "user_id, status, finished_at")
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
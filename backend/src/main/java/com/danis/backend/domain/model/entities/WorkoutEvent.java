@@ -0,0 +1,53 @@
+package com.danis.backend.domain.model.entities;
+
+import com.danis.backend.domain.model.enums.WorkoutEventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client event of a workout's journal that has been applied, kept so a replayed journal
+ * applies each event once
+ */
+@Entity
+@Table(
+        name = "workout_events",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"workout_id", "event_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WorkoutEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "workout_id", nullable = false)
+    private Workout workout;
+
+    // Generated by the client
+    @Column(name = "event_id", nullable = false, length = 64)
+    private String eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WorkoutEventType type;
+
+    // When the event happened on the client
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    private LocalDateTime appliedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        appliedAt = LocalDateTime.now();
+    }
+}
@@ -10,7 +10,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "workout_exercises")
+@Table(
+        name = "workout_exercises",
+        // Sessions of one exercise, joined to their workout
+        indexes = @Index(name = "idx_workout_exercises_exercise_workout", columnList = "exercise_id, workout_id")
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
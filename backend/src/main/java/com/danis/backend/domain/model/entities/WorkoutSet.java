@@ -7,7 +7,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "workout_sets")
+@Table(
+        name = "workout_sets",
+        indexes = @Index(name = "idx_workout_sets_workout_exercise", columnList = "workout_exercise_id")
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
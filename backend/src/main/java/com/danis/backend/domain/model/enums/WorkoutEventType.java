@@ -0,0 +1,9 @@
+package com.danis.backend.domain.model.enums;
+
+public enum WorkoutEventType {
+    SET_EDITED,
+    SET_COMPLETED,
+    PAUSED,
+    RESUMED,
+    FINISHED
+}
@@ -3,6 +3,8 @@ package com.danis.backend.domain.repository;
 import com.danis.backend.domain.model.entities.Exercise;
 import com.danis.backend.domain.model.enums.ExerciseType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +16,10 @@ public interface ExerciseRepository extends JpaRepository<Exercise, Long> {
     boolean existsByExerciseId(String exerciseId);
 
     Exercise findByExerciseId(String exerciseId);
+
+    @Query("SELECT e.id FROM Exercise e WHERE e.type = :type ORDER BY e.id")
+    List<Long> findIdsByType(@Param("type") ExerciseType type);
+
+    @Query("SELECT DISTINCT e.id FROM Exercise e JOIN e.bodyParts b WHERE LOWER(b) = LOWER(:bodyPart)")
+    List<Long> findIdsByBodyPart(@Param("bodyPart") String bodyPart);
 }
@@ -0,0 +1,27 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.PersonalRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PersonalRecordRepository extends JpaRepository<PersonalRecord, Long> {
+
+    Optional<PersonalRecord> findByUserIdAndExerciseId(Long userId, Long exerciseId);
+
+    List<PersonalRecord> findByUserIdAndExerciseIdIn(Long userId, Collection<Long> exerciseIds);
+
+    @Query("SELECT pr FROM PersonalRecord pr JOIN FETCH pr.exercise " +
+            "WHERE pr.user.id = :userId " +
+            "ORDER BY pr.estimatedOneRepMax DESC")
+    List<PersonalRecord> findAllForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM PersonalRecord pr WHERE pr.user.id = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+}
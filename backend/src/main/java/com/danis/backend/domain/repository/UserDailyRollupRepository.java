@@ -0,0 +1,38 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.UserDailyRollup;
+import com.danis.backend.domain.repository.projection.AnalyticsBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserDailyRollupRepository extends JpaRepository<UserDailyRollup, Long> {
+
+    Optional<UserDailyRollup> findByUserIdAndDay(Long userId, LocalDate day);
+
+    boolean existsByUserId(Long userId);
+
+    // Daily rows of [fromDay, toDay] summed per day, week, month or year; weeks start on Monday
+    @Query(value = "SELECT CAST(date_trunc(:granularity, CAST(r.day AS timestamp)) AS date) AS \"bucketStart\", " +
+            "SUM(r.workouts) AS \"workouts\", SUM(r.sets) AS \"sets\", SUM(r.reps) AS \"reps\", " +
+            "SUM(r.volume) AS \"volume\", SUM(r.duration) AS \"duration\" " +
+            "FROM user_daily_rollup r " +
+            "WHERE r.user_id = :userId AND r.day BETWEEN :fromDay AND :toDay " +
+            "GROUP BY 1 ORDER BY 1",
+            nativeQuery = true)
+    List<AnalyticsBucket> sumByBucket(
+            @Param("userId") Long userId,
+            @Param("fromDay") LocalDate fromDay,
+            @Param("toDay") LocalDate toDay,
+            @Param("granularity") String granularity
+    );
+
+    @Modifying
+    @Query("DELETE FROM UserDailyRollup r WHERE r.user.id = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+}
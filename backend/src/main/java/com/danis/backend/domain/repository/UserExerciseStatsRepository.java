@@ -0,0 +1,28 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.UserExerciseStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserExerciseStatsRepository extends JpaRepository<UserExerciseStats, Long> {
+
+    List<UserExerciseStats> findByUserIdAndExerciseIdIn(Long userId, Collection<Long> exerciseIds);
+
+    long countByUserId(Long userId);
+
+    // Most performed exercises, with the exercise loaded for name and image
+    @Query("SELECT s FROM UserExerciseStats s JOIN FETCH s.exercise " +
+            "WHERE s.user.id = :userId " +
+            "ORDER BY s.sessionCount DESC")
+    List<UserExerciseStats> findMostFrequent(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM UserExerciseStats s WHERE s.user.id = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+}
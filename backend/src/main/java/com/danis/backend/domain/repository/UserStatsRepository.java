@@ -0,0 +1,10 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+    Optional<UserStats> findByUserId(Long userId);
+}
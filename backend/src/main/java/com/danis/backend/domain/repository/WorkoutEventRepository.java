@@ -0,0 +1,23 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.WorkoutEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface WorkoutEventRepository extends JpaRepository<WorkoutEvent, Long> {
+
+    @Query("SELECT e.eventId FROM WorkoutEvent e WHERE e.workout.id = :workoutId AND e.eventId IN :eventIds")
+    List<String> findAppliedEventIds(
+            @Param("workoutId") Long workoutId,
+            @Param("eventIds") Collection<String> eventIds
+    );
+
+    @Query("SELECT MAX(e.occurredAt) FROM WorkoutEvent e WHERE e.workout.id = :workoutId")
+    Optional<LocalDateTime> findLatestOccurredAt(@Param("workoutId") Long workoutId);
+}
@@ -1,14 +1,24 @@
 package com.danis.backend.domain.repository;
 
+import com.danis.backend.domain.model.entities.Exercise;
 import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.entities.WorkoutExercise;
 import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.projection.ExerciseMuscle;
+import com.danis.backend.domain.repository.projection.HistoryRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WorkoutRepository extends JpaRepository<Workout, Long> {
     // NEW METHOD - use this one
@@ -41,21 +51,104 @@ public interface WorkoutRepository extends JpaRepository<Workout, Long> {
             @Param("endDate") LocalDateTime endDate
     );
 
-    // Find workouts with exercises eagerly loaded (for statistics)
+    // Detail fetch plan: a workout with its template and exercises, then their sets
     @Query("SELECT DISTINCT w FROM Workout w " +
+            "LEFT JOIN FETCH w.template " +
             "LEFT JOIN FETCH w.exercises we " +
-            "LEFT JOIN FETCH we.exercise e " +
+            "LEFT JOIN FETCH we.exercise " +
+            "WHERE w.id = :id")
+    Optional<Workout> findByIdWithExercises(@Param("id") Long id);
+
+    // Serializes writers of one workout until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Workout w WHERE w.id = :id")
+    Optional<Workout> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT we FROM WorkoutExercise we " +
             "LEFT JOIN FETCH we.sets " +
-            "WHERE w.user.id = :userId AND w.status = :status " +
-            "ORDER BY w.finishedAt DESC")
+            "WHERE we.workout.id = :workoutId")
+    List<WorkoutExercise> fetchSetsByWorkoutId(@Param("workoutId") Long workoutId);
+
+    // Statistics fetch plan: a user's whole history in three queries, independent of its length.
+    // Collections are fetched by separate queries since Hibernate cannot join fetch several bags at once.
+    @Query("SELECT DISTINCT w FROM Workout w " +
+            "LEFT JOIN FETCH w.exercises we " +
+            "LEFT JOIN FETCH we.exercise " +
+            "WHERE w.user.id = :userId AND w.status = :status")
     List<Workout> findByUserIdAndStatusWithExercises(
             @Param("userId") Long userId,
             @Param("status") WorkoutStatus status
     );
 
+    @Query("SELECT DISTINCT we FROM WorkoutExercise we " +
+            "LEFT JOIN FETCH we.sets " +
+            "WHERE we.workout.user.id = :userId AND we.workout.status = :status")
+    List<WorkoutExercise> fetchSetsByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status
+    );
+
+    @Query("SELECT DISTINCT e FROM Exercise e " +
+            "LEFT JOIN FETCH e.targetMuscles " +
+            "WHERE e.id IN (SELECT we.exercise.id FROM WorkoutExercise we " +
+            "WHERE we.workout.user.id = :userId AND we.workout.status = :status)")
+    List<Exercise> fetchTargetMusclesByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status
+    );
+
+    // Streaming variant of the fetch plan: one scalar row per set in workout order, read through
+    // a database cursor so memory does not grow with the history
+    @Query("SELECT new com.danis.backend.domain.repository.projection.HistoryRow(" +
+            "w.id, w.startedAt, w.finishedAt, we.id, e.id, e.name, e.imageUrl, " +
+            "s.completed, s.actualWeight, s.actualReps) " +
+            "FROM Workout w " +
+            "LEFT JOIN w.exercises we " +
+            "LEFT JOIN we.exercise e " +
+            "LEFT JOIN we.sets s " +
+            "WHERE w.user.id = :userId AND w.status = :status " +
+            "ORDER BY w.id, we.id, s.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<HistoryRow> streamHistoryByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status
+    );
+
+    @Query("SELECT e.id AS exerciseId, m AS muscle FROM Exercise e JOIN e.targetMuscles m " +
+            "WHERE e.id IN (SELECT we.exercise.id FROM WorkoutExercise we " +
+            "WHERE we.workout.user.id = :userId AND we.workout.status = :status)")
+    List<ExerciseMuscle> findTargetMusclesByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status
+    );
+
+    // Finish times only, for streaks and weekday counts
+    @Query("SELECT w.finishedAt FROM Workout w WHERE w.user.id = :userId AND w.status = :status")
+    List<LocalDateTime> findFinishedAtByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status
+    );
+
     // Count workouts by user
     long countByUserIdAndStatus(Long userId, WorkoutStatus status);
 
+    long countByUserIdAndStatusAndFinishedAtAfter(Long userId, WorkoutStatus status, LocalDateTime afterDate);
+
+    // Volume (weight x reps of completed sets) of workouts finished after a date
+    @Query("SELECT COALESCE(SUM(s.actualWeight * s.actualReps), 0) FROM WorkoutSet s " +
+            "WHERE s.workoutExercise.workout.user.id = :userId " +
+            "AND s.workoutExercise.workout.status = :status " +
+            "AND s.workoutExercise.workout.finishedAt > :afterDate " +
+            "AND s.completed = true")
+    Double sumCompletedVolumeFinishedAfter(
+            @Param("userId") Long userId,
+            @Param("status") WorkoutStatus status,
+            @Param("afterDate") LocalDateTime afterDate
+    );
+
     // Find recent workouts
     List<Workout> findTop10ByUserIdAndStatusOrderByFinishedAtDesc(
             Long userId,
@@ -63,4 +156,10 @@ public interface WorkoutRepository extends JpaRepository<Workout, Long> {
     );
 
     List<Workout> findByUserIdAndStatus(Long userId, WorkoutStatus status);
+
+    // Users with workouts of the status but no complete statistics aggregate, e.g. from before it was kept
+    @Query("SELECT DISTINCT w.user.id FROM Workout w WHERE w.status = :status " +
+            "AND (NOT EXISTS (SELECT 1 FROM UserStats s WHERE s.user = w.user AND s.activityDays IS NOT NULL) " +
+            "OR NOT EXISTS (SELECT 1 FROM UserDailyRollup r WHERE r.user = w.user))")
+    List<Long> findUserIdsWithoutAggregate(@Param("status") WorkoutStatus status);
 }
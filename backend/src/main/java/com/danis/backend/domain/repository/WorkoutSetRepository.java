@@ -0,0 +1,54 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.WorkoutSet;
+import com.danis.backend.domain.repository.projection.UpdatedSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface WorkoutSetRepository extends JpaRepository<WorkoutSet, Long> {
+
+    // Columns of an UpdatedSet, for a set s and its workout exercise we
+    String UPDATED_SET_COLUMNS = "s.id AS \"id\", we.id AS \"workoutExerciseId\", we.exercise_id AS \"exerciseId\", " +
+            "CAST((SELECT COUNT(*) FROM workout_sets o " +
+            "WHERE o.workout_exercise_id = s.workout_exercise_id AND o.id <= s.id) AS integer) AS \"setNumber\", " +
+            "s.planned_reps AS \"plannedReps\", s.planned_weight AS \"plannedWeight\", " +
+            "s.actual_reps AS \"actualReps\", s.actual_weight AS \"actualWeight\", s.completed AS \"completed\"";
+
+    // Set logging in one statement: the row is only written if the set belongs to the exercise
+    // and the workout, and the workout is the user's and in progress. Empty if nothing was written.
+    @Query(value = "UPDATE workout_sets s " +
+            "SET actual_reps = :actualReps, actual_weight = :actualWeight, completed = :completed " +
+            "FROM workout_exercises we JOIN workouts w ON w.id = we.workout_id " +
+            "WHERE s.id = :setId AND s.workout_exercise_id = we.id " +
+            "AND we.id = :workoutExerciseId AND w.id = :workoutId AND w.user_id = :userId " +
+            "AND w.status IN ('STARTED', 'PAUSED') " +
+            "RETURNING " + UPDATED_SET_COLUMNS,
+            nativeQuery = true)
+    Optional<UpdatedSet> updateInProgress(
+            @Param("workoutId") Long workoutId,
+            @Param("workoutExerciseId") Long workoutExerciseId,
+            @Param("setId") Long setId,
+            @Param("userId") Long userId,
+            @Param("actualReps") Integer actualReps,
+            @Param("actualWeight") Double actualWeight,
+            @Param("completed") boolean completed
+    );
+
+    @Query(value = "SELECT " + UPDATED_SET_COLUMNS + " " +
+            "FROM workout_sets s JOIN workout_exercises we ON we.id = s.workout_exercise_id " +
+            "WHERE we.workout_id = :workoutId AND s.id IN (:setIds)",
+            nativeQuery = true)
+    List<UpdatedSet> findInWorkout(@Param("workoutId") Long workoutId, @Param("setIds") Collection<Long> setIds);
+
+    // Sets of any workouts, e.g. read back after a group commit
+    @Query(value = "SELECT " + UPDATED_SET_COLUMNS + " " +
+            "FROM workout_sets s JOIN workout_exercises we ON we.id = s.workout_exercise_id " +
+            "WHERE s.id IN (:setIds)",
+            nativeQuery = true)
+    List<UpdatedSet> findUpdated(@Param("setIds") Collection<Long> setIds);
+}
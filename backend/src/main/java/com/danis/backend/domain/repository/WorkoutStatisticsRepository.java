@@ -0,0 +1,161 @@
+package com.danis.backend.domain.repository;
+
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.repository.projection.BestSet;
+import com.danis.backend.domain.repository.projection.ExerciseSession;
+import com.danis.backend.domain.repository.projection.ExerciseSessionTotals;
+import com.danis.backend.domain.repository.projection.MuscleTotals;
+import com.danis.backend.domain.repository.projection.SetTotals;
+import com.danis.backend.domain.repository.projection.WeeklyVolume;
+import com.danis.backend.domain.repository.projection.WorkoutTotals;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Aggregate queries over completed workouts. The sums are computed by the database,
+ * so no workout, exercise or set entities are loaded.
+ */
+public interface WorkoutStatisticsRepository extends Repository<Workout, Long> {
+
+    // Sessions of one exercise finished in [fromDate, toDate), found through the exercise index
+    String EXERCISE_SESSIONS = "WITH sessions AS (" +
+            "SELECT we.id AS workout_exercise_id, w.finished_at, e.name AS exercise_name, " +
+            "COUNT(s.id) FILTER (WHERE s.completed) AS sets, " +
+            "COALESCE(SUM(COALESCE(s.actual_reps, 0)) FILTER (WHERE s.completed), 0) AS reps, " +
+            "COALESCE(MAX(COALESCE(s.actual_weight, 0)) FILTER (WHERE s.completed), 0) AS max_weight, " +
+            "COALESCE(AVG(s.actual_weight) FILTER (WHERE s.completed AND s.actual_weight > 0), 0) AS average_weight, " +
+            "COALESCE(SUM(COALESCE(s.actual_weight, 0) * COALESCE(s.actual_reps, 0)) " +
+            "FILTER (WHERE s.completed), 0) AS volume " +
+            "FROM workout_exercises we " +
+            "JOIN workouts w ON w.id = we.workout_id " +
+            "JOIN exercises e ON e.id = we.exercise_id " +
+            "LEFT JOIN workout_sets s ON s.workout_exercise_id = we.id " +
+            "WHERE we.exercise_id = :exerciseId AND w.user_id = :userId AND w.status = 'COMPLETED' " +
+            "AND w.finished_at >= :fromDate AND w.finished_at < :toDate " +
+            "GROUP BY we.id, w.finished_at, e.name) ";
+
+    @Query(value = "SELECT COUNT(*) AS \"workoutCount\", " +
+            "COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (w.finished_at - w.started_at)) / 60)), 0) AS \"totalDuration\", " +
+            "COUNT(w.started_at) AS \"timedWorkouts\" " +
+            "FROM workouts w " +
+            "WHERE w.user_id = :userId AND w.status = 'COMPLETED' " +
+            "AND w.finished_at > :afterDate",
+            nativeQuery = true)
+    WorkoutTotals findCompletedWorkoutTotals(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDateTime afterDate
+    );
+
+    @Query(value = "SELECT COUNT(s.id) AS \"totalSets\", " +
+            "COALESCE(SUM(CASE WHEN s.completed THEN COALESCE(s.actual_reps, 0) ELSE 0 END), 0) AS \"totalReps\", " +
+            "COALESCE(SUM(CASE WHEN s.completed " +
+            "THEN COALESCE(s.actual_weight, 0) * COALESCE(s.actual_reps, 0) ELSE 0 END), 0) AS \"totalVolume\" " +
+            "FROM workout_sets s " +
+            "JOIN workout_exercises we ON we.id = s.workout_exercise_id " +
+            "JOIN workouts w ON w.id = we.workout_id " +
+            "WHERE w.user_id = :userId AND w.status = 'COMPLETED' " +
+            "AND w.finished_at > :afterDate",
+            nativeQuery = true)
+    SetTotals findCompletedSetTotals(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDateTime afterDate
+    );
+
+    @Query(value = "SELECT CAST(date_trunc('week', w.finished_at) AS date) AS \"weekStart\", " +
+            "COUNT(DISTINCT w.id) AS \"workoutCount\", " +
+            "COUNT(s.id) AS \"totalSets\", " +
+            "COALESCE(SUM(CASE WHEN s.completed " +
+            "THEN COALESCE(s.actual_weight, 0) * COALESCE(s.actual_reps, 0) ELSE 0 END), 0) AS \"totalVolume\" " +
+            "FROM workouts w " +
+            "LEFT JOIN workout_exercises we ON we.workout_id = w.id " +
+            "LEFT JOIN workout_sets s ON s.workout_exercise_id = we.id " +
+            "WHERE w.user_id = :userId AND w.status = 'COMPLETED' " +
+            "AND w.finished_at > :afterDate " +
+            "GROUP BY 1 ORDER BY 1",
+            nativeQuery = true)
+    List<WeeklyVolume> findCompletedVolumeByWeek(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDateTime afterDate
+    );
+
+    // Best completed weighted set of one exercise outside the given workout, earliest first on ties
+    @Query(value = "SELECT we.exercise_id AS \"exerciseId\", e.name AS \"exerciseName\", " +
+            "w.id AS \"workoutId\", " +
+            "s.actual_weight AS \"weight\", COALESCE(s.actual_reps, 0) AS \"reps\", " +
+            "w.finished_at AS \"achievedAt\" " +
+            "FROM workout_sets s " +
+            "JOIN workout_exercises we ON we.id = s.workout_exercise_id " +
+            "JOIN workouts w ON w.id = we.workout_id " +
+            "JOIN exercises e ON e.id = we.exercise_id " +
+            "WHERE w.user_id = :userId AND w.status = 'COMPLETED' AND we.exercise_id = :exerciseId " +
+            "AND w.id <> :excludedWorkoutId " +
+            "AND s.completed AND s.actual_weight IS NOT NULL " +
+            "ORDER BY s.actual_weight * (1 + COALESCE(s.actual_reps, 0) / 30.0) DESC, w.finished_at, w.id, s.id " +
+            "LIMIT 1",
+            nativeQuery = true)
+    Optional<BestSet> findCompletedBestSet(
+            @Param("userId") Long userId,
+            @Param("exerciseId") Long exerciseId,
+            @Param("excludedWorkoutId") Long excludedWorkoutId
+    );
+
+    // Sets and volume per performed exercise, then summed per target muscle
+    @Query(value = "SELECT tm.target_muscles AS \"muscle\", " +
+            "COUNT(*) AS \"workoutCount\", " +
+            "COALESCE(SUM(x.set_count), 0) AS \"totalSets\", " +
+            "COALESCE(SUM(x.volume), 0) AS \"totalVolume\" " +
+            "FROM (" +
+            "SELECT we.id, we.exercise_id, COUNT(s.id) AS set_count, " +
+            "COALESCE(SUM(CASE WHEN s.completed " +
+            "THEN COALESCE(s.actual_weight, 0) * COALESCE(s.actual_reps, 0) ELSE 0 END), 0) AS volume " +
+            "FROM workout_exercises we " +
+            "JOIN workouts w ON w.id = we.workout_id " +
+            "LEFT JOIN workout_sets s ON s.workout_exercise_id = we.id " +
+            "WHERE w.user_id = :userId AND w.status = 'COMPLETED' " +
+            "GROUP BY we.id, we.exercise_id" +
+            ") x " +
+            "JOIN exercise_target_muscles tm ON tm.exercise_id = x.exercise_id " +
+            "GROUP BY tm.target_muscles",
+            nativeQuery = true)
+    List<MuscleTotals> findCompletedMuscleTotals(@Param("userId") Long userId);
+
+    // A page of sessions in chronological order, after the (finishedAt, id) keyset cursor
+    @Query(value = EXERCISE_SESSIONS +
+            "SELECT workout_exercise_id AS \"workoutExerciseId\", finished_at AS \"finishedAt\", " +
+            "exercise_name AS \"exerciseName\", sets AS \"sets\", reps AS \"reps\", " +
+            "max_weight AS \"maxWeight\", average_weight AS \"averageWeight\", volume AS \"volume\" " +
+            "FROM sessions " +
+            "WHERE (finished_at, workout_exercise_id) > (:afterDate, :afterId) " +
+            "ORDER BY finished_at, workout_exercise_id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<ExerciseSession> findCompletedExerciseSessions(
+            @Param("userId") Long userId,
+            @Param("exerciseId") Long exerciseId,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit
+    );
+
+    @Query(value = EXERCISE_SESSIONS +
+            "SELECT COUNT(*) AS \"totalSessions\", MAX(exercise_name) AS \"exerciseName\", " +
+            "COALESCE(SUM(sets), 0) AS \"totalSets\", COALESCE(SUM(reps), 0) AS \"totalReps\", " +
+            "COALESCE(SUM(volume), 0) AS \"totalVolume\", COALESCE(MAX(max_weight), 0) AS \"maxWeightEver\", " +
+            "COALESCE((SELECT max_weight FROM sessions " +
+            "ORDER BY finished_at DESC, workout_exercise_id DESC LIMIT 1), 0) AS \"currentMaxWeight\" " +
+            "FROM sessions",
+            nativeQuery = true)
+    ExerciseSessionTotals findCompletedExerciseSessionTotals(
+            @Param("userId") Long userId,
+            @Param("exerciseId") Long exerciseId,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate
+    );
+}
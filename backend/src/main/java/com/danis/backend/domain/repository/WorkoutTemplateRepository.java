@@ -2,11 +2,26 @@ package com.danis.backend.domain.repository;
 
 
 import com.danis.backend.domain.model.entities.WorkoutTemplate;
+import com.danis.backend.domain.model.entities.WorkoutTemplateExercise;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface WorkoutTemplateRepository extends JpaRepository<WorkoutTemplate, Long> {
 
     List<WorkoutTemplate> findAllByUserId(Long userId);
+
+    // A user's templates with their exercises, then the exercises' sets
+    @Query("SELECT DISTINCT t FROM WorkoutTemplate t " +
+            "LEFT JOIN FETCH t.exercises te " +
+            "LEFT JOIN FETCH te.exercise " +
+            "WHERE t.user.id = :userId")
+    List<WorkoutTemplate> findAllByUserIdWithExercises(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT te FROM WorkoutTemplateExercise te " +
+            "LEFT JOIN FETCH te.sets " +
+            "WHERE te.workoutTemplate.user.id = :userId")
+    List<WorkoutTemplateExercise> fetchSetsByUserId(@Param("userId") Long userId);
 }
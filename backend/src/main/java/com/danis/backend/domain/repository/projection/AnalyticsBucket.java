@@ -0,0 +1,17 @@
+package com.danis.backend.domain.repository.projection;
+
+import java.time.LocalDate;
+
+public interface AnalyticsBucket {
+    LocalDate getBucketStart();
+
+    long getWorkouts();
+
+    long getSets();
+
+    long getReps();
+
+    double getVolume();
+
+    long getDuration();
+}
@@ -0,0 +1,20 @@
+package com.danis.backend.domain.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The completed set with the highest estimated one rep max of an exercise
+ */
+public interface BestSet {
+    Long getExerciseId();
+
+    String getExerciseName();
+
+    Long getWorkoutId();
+
+    double getWeight();
+
+    int getReps();
+
+    LocalDateTime getAchievedAt();
+}
@@ -0,0 +1,7 @@
+package com.danis.backend.domain.repository.projection;
+
+public interface ExerciseMuscle {
+    Long getExerciseId();
+
+    String getMuscle();
+}
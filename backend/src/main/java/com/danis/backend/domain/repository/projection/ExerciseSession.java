@@ -0,0 +1,24 @@
+package com.danis.backend.domain.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * One performance of an exercise within a completed workout; figures cover completed sets
+ */
+public interface ExerciseSession {
+    Long getWorkoutExerciseId();
+
+    LocalDateTime getFinishedAt();
+
+    String getExerciseName();
+
+    long getSets();
+
+    long getReps();
+
+    double getMaxWeight();
+
+    double getAverageWeight(); // Of weighted sets only
+
+    double getVolume();
+}
@@ -0,0 +1,17 @@
+package com.danis.backend.domain.repository.projection;
+
+public interface ExerciseSessionTotals {
+    long getTotalSessions();
+
+    String getExerciseName();
+
+    long getTotalSets();
+
+    long getTotalReps();
+
+    double getTotalVolume();
+
+    double getMaxWeightEver();
+
+    double getCurrentMaxWeight(); // Of the latest session
+}
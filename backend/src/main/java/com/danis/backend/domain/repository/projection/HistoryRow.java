@@ -0,0 +1,21 @@
+package com.danis.backend.domain.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * One set of a workout history as scalars, so streaming a history attaches no entities.
+ * Exercise and set fields are null for workouts without exercises and exercises without sets.
+ */
+public record HistoryRow(
+        Long workoutId,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        Long workoutExerciseId,
+        Long exerciseId,
+        String exerciseName,
+        String imageUrl,
+        Boolean completed,
+        Double actualWeight,
+        Integer actualReps
+) {
+}
@@ -0,0 +1,11 @@
+package com.danis.backend.domain.repository.projection;
+
+public interface MuscleTotals {
+    String getMuscle();
+
+    long getWorkoutCount(); // exercises performed targeting the muscle
+
+    long getTotalSets();
+
+    double getTotalVolume();
+}
@@ -0,0 +1,13 @@
+package com.danis.backend.domain.repository.projection;
+
+/**
+ * Set level totals. Sets are counted whether completed or not,
+ * reps and volume only for completed sets.
+ */
+public interface SetTotals {
+    long getTotalSets();
+
+    long getTotalReps();
+
+    double getTotalVolume(); // kg
+}
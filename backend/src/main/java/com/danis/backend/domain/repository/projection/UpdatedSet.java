@@ -0,0 +1,24 @@
+package com.danis.backend.domain.repository.projection;
+
+/**
+ * A set as written by a targeted update, with its number within the exercise and the exercise it belongs to
+ */
+public interface UpdatedSet {
+    Long getId();
+
+    Long getWorkoutExerciseId();
+
+    Long getExerciseId();
+
+    Integer getSetNumber();
+
+    Integer getPlannedReps();
+
+    Double getPlannedWeight();
+
+    Integer getActualReps();
+
+    Double getActualWeight();
+
+    boolean isCompleted();
+}
@@ -0,0 +1,13 @@
+package com.danis.backend.domain.repository.projection;
+
+import java.time.LocalDate;
+
+public interface WeeklyVolume {
+    LocalDate getWeekStart(); // Monday
+
+    long getWorkoutCount();
+
+    long getTotalSets();
+
+    double getTotalVolume();
+}
@@ -0,0 +1,12 @@
+package com.danis.backend.domain.repository.projection;
+
+/**
+ * Workout level totals: how many workouts and how long they took
+ */
+public interface WorkoutTotals {
+    long getWorkoutCount();
+
+    long getTotalDuration(); // minutes
+
+    long getTimedWorkouts(); // workouts with both start and finish time
+}
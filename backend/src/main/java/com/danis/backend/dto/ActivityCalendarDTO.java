@@ -0,0 +1,24 @@
+package com.danis.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityCalendarDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> activeDays;
+    private int activeDayCount;
+    private Map<String, Integer> activeDaysByDayOfWeek; // Days with a workout, not workouts
+    private int currentStreak;
+    private int longestStreak;
+}
@@ -0,0 +1,21 @@
+package com.danis.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBucketDTO {
+    private LocalDate bucketStart; // First day of the day, week (Monday), month or year
+    private int workouts;
+    private int sets;
+    private int reps;
+    private double volume;
+    private long duration; // Minutes
+}
@@ -0,0 +1,20 @@
+package com.danis.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private List<AnalyticsBucketDTO> buckets; // Only buckets with workouts, oldest first
+}
@@ -22,4 +22,5 @@ public class ExerciseProgressDTO {
     private double maxWeightEver;
     private double currentMaxWeight;
     private List<ExerciseSessionDTO> sessions;
+    private String nextCursor; // Pass back as cursor for the next page; null on the last one
 }
\ No newline at end of file
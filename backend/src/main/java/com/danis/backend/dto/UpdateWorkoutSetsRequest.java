@@ -0,0 +1,10 @@
+package com.danis.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UpdateWorkoutSetsRequest {
+    private List<WorkoutSetChange> sets;
+}
@@ -41,4 +41,7 @@ public class UserWorkoutStatsDTO {
 
     // Personal Records
     private List<PersonalRecordDTO> personalRecords;
+
+    // Requested sections that were not computed in time; request them again later
+    private List<String> pendingSections;
 }
\ No newline at end of file
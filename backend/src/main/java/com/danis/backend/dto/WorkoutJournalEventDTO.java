@@ -0,0 +1,23 @@
+package com.danis.backend.dto;
+
+import com.danis.backend.domain.model.enums.WorkoutEventType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event of a client's workout journal. Set events address the set by workout exercise and set
+ * and carry its logged values, like a single set update. {@code occurredAt} is when the event
+ * happened on the client, not when it is uploaded.
+ */
+@Data
+public class WorkoutJournalEventDTO {
+    private String eventId;
+    private WorkoutEventType type;
+    private LocalDateTime occurredAt;
+    private Long exerciseId;
+    private Long setId;
+    private Integer actualReps;
+    private Double actualWeight;
+    private boolean completed;
+}
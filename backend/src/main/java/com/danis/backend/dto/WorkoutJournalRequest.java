@@ -0,0 +1,11 @@
+package com.danis.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WorkoutJournalRequest {
+    // In the order they happened on the client
+    private List<WorkoutJournalEventDTO> events;
+}
@@ -0,0 +1,14 @@
+package com.danis.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class WorkoutJournalResponse {
+    private List<String> appliedEventIds;
+    private List<String> duplicateEventIds; // Applied by an earlier upload
+    private WorkoutDetailResponse workout;
+}
@@ -0,0 +1,15 @@
+package com.danis.backend.dto;
+
+import lombok.Data;
+
+/**
+ * One set's logged values in a batch update, addressed by workout exercise and set
+ */
+@Data
+public class WorkoutSetChange {
+    private Long exerciseId;
+    private Long setId;
+    private Integer actualReps;
+    private Double actualWeight;
+    private boolean completed;
+}
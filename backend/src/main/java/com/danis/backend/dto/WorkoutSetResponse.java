@@ -1,5 +1,6 @@
 package com.danis.backend.dto;
 
+import com.danis.backend.domain.repository.projection.UpdatedSet;
 import lombok.Builder;
 import lombok.Data;
 
@@ -13,4 +14,18 @@ public class WorkoutSetResponse {
     private Integer actualReps;
     private Double actualWeight;
     private boolean completed;
+    private boolean newPersonalRecord; // Set by the update that made this set the exercise's best
+
+    public static WorkoutSetResponse from(UpdatedSet set, boolean newPersonalRecord) {
+        return WorkoutSetResponse.builder()
+                .id(set.getId())
+                .setNumber(set.getSetNumber())
+                .plannedReps(set.getPlannedReps())
+                .plannedWeight(set.getPlannedWeight())
+                .actualReps(set.getActualReps())
+                .actualWeight(set.getActualWeight())
+                .completed(set.isCompleted())
+                .newPersonalRecord(newPersonalRecord)
+                .build();
+    }
 }
\ No newline at end of file
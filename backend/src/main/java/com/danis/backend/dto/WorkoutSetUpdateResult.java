@@ -0,0 +1,17 @@
+package com.danis.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of one change of a batch update: the updated set, or why it was not applied
+ */
+@Data
+@Builder
+public class WorkoutSetUpdateResult {
+    private Long exerciseId;
+    private Long setId;
+    private boolean updated;
+    private String error;
+    private WorkoutSetResponse set;
+}
@@ -2,26 +2,74 @@ package com.danis.backend.restservices;
 
 
 import com.danis.backend.dto.*;
+import com.danis.backend.service.statistics.AnalyticsGranularity;
+import com.danis.backend.service.statistics.StatisticsSection;
+import com.danis.backend.service.workflow.UserStatsService;
 import com.danis.backend.service.workflow.WorkoutStatisticsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/statistics")
 @RequiredArgsConstructor
 public class StatisticsController {
 
     private final com.danis.backend.service.workflow.WorkoutStatisticsService statisticsService;
+    private final UserStatsService userStatsService;
 
     /**
-     * Get comprehensive workout statistics for the current user
-     * GET /api/statistics/overview
+     * Get comprehensive workout statistics for the current user,
+     * optionally only some sections of it
+     * GET /api/statistics/overview?sections=prs,muscles
      */
     @GetMapping("/overview")
-    public UserWorkoutStatsDTO getOverview() {
+    public UserWorkoutStatsDTO getOverview(@RequestParam(required = false) List<String> sections) {
+        Long userId = getCurrentUserId();
+        return statisticsService.getUserWorkoutStats(userId, StatisticsSection.parse(sections));
+    }
+
+    /**
+     * Get the statistics summary from the incrementally maintained aggregate
+     * GET /api/statistics/summary
+     */
+    @GetMapping("/summary")
+    public UserWorkoutStatsDTO getSummary() {
+        Long userId = getCurrentUserId();
+        return userStatsService.getSummary(userId);
+    }
+
+    /**
+     * Get the days with a workout in a month, or in a whole year without month
+     * GET /api/statistics/calendar?year=2024&month=5
+     */
+    @GetMapping("/calendar")
+    public ActivityCalendarDTO getCalendar(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month
+    ) {
+        Long userId = getCurrentUserId();
+        return userStatsService.getCalendar(userId, year != null ? year : LocalDate.now().getYear(), month);
+    }
+
+    /**
+     * Get totals bucketed by day, week, month or year; defaults to the last year by month
+     * GET /api/statistics/analytics?from=2022-01-01&to=2024-12-31&granularity=month
+     */
+    @GetMapping("/analytics")
+    public AnalyticsDTO getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "month") String granularity
+    ) {
         Long userId = getCurrentUserId();
-        return statisticsService.getUserWorkoutStats(userId);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1).plusDays(1);
+        return userStatsService.getAnalytics(userId, start, end, AnalyticsGranularity.parse(granularity));
     }
 
     /**
@@ -35,13 +83,21 @@ public class StatisticsController {
     }
 
     /**
-     * Get progress for a specific exercise
-     * GET /api/statistics/exercise/{exerciseId}
+     * Get progress for a specific exercise, optionally within a date range.
+     * With a limit, sessions are paged; pass the returned nextCursor to get the next page.
+     * Without one, all sessions are returned.
+     * GET /api/statistics/exercise/{exerciseId}?from=2024-01-01&to=2024-12-31&limit=100&cursor=...
      */
     @GetMapping("/exercise/{exerciseId}")
-    public ExerciseProgressDTO getExerciseProgress(@PathVariable Long exerciseId) {
+    public ExerciseProgressDTO getExerciseProgress(
+            @PathVariable Long exerciseId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
         Long userId = getCurrentUserId();
-        return statisticsService.getExerciseProgress(userId, exerciseId);
+        return statisticsService.getExerciseProgress(userId, exerciseId, from, to, cursor, limit);
     }
 
     /**
@@ -51,8 +107,7 @@ public class StatisticsController {
     @GetMapping("/personal-records")
     public java.util.List<PersonalRecordDTO> getPersonalRecords() {
         Long userId = getCurrentUserId();
-        UserWorkoutStatsDTO stats = statisticsService.getUserWorkoutStats(userId);
-        return stats.getPersonalRecords();
+        return statisticsService.getPersonalRecords(userId);
     }
 
     /**
@@ -62,8 +117,7 @@ public class StatisticsController {
     @GetMapping("/muscle-groups")
     public java.util.Map<String, MuscleGroupStatsDTO> getMuscleGroupStats() {
         Long userId = getCurrentUserId();
-        UserWorkoutStatsDTO stats = statisticsService.getUserWorkoutStats(userId);
-        return stats.getMuscleGroupDistribution();
+        return statisticsService.getMuscleGroupDistribution(userId);
     }
 
     private Long getCurrentUserId() {
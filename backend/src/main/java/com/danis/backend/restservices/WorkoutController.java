@@ -1,18 +1,28 @@
 package com.danis.backend.restservices;
 
 import com.danis.backend.dto.*;
+import com.danis.backend.service.workflow.WorkoutJournalService;
+import com.danis.backend.service.workflow.WorkoutSetGroupCommitter;
 import com.danis.backend.service.workflow.WorkoutWorkflowService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/workouts")
 @RequiredArgsConstructor
 public class WorkoutController {
 
     private final WorkoutWorkflowService workoutWorkflowService;
+    private final WorkoutJournalService workoutJournalService;
+
+    // Present with workouts.group-commit.enabled
+    private final Optional<WorkoutSetGroupCommitter> workoutSetGroupCommitter;
 
     @PostMapping("/start")
     public WorkoutResponse startWorkout(@RequestBody StartWorkoutRequest request) {
@@ -35,15 +45,38 @@ public class WorkoutController {
         return workoutWorkflowService.getWorkoutDetails(id, userId);
     }
 
+    // With group commit, answered by an async dispatch once the update has committed
     @PutMapping("/{workoutId}/exercises/{exerciseId}/sets/{setId}")
-    public WorkoutSetResponse updateSet(
+    public CompletableFuture<WorkoutSetResponse> updateSet(
             @PathVariable Long workoutId,
             @PathVariable Long exerciseId,
             @PathVariable Long setId,
             @RequestBody UpdateWorkoutSetRequest request
     ) {
         Long userId = getLoggedInUserId();
-        return workoutWorkflowService.updateWorkoutSet(workoutId, exerciseId, setId, userId, request);
+        if (workoutSetGroupCommitter.isPresent()) {
+            return workoutSetGroupCommitter.get().submit(workoutId, exerciseId, setId, userId, request);
+        }
+        return CompletableFuture.completedFuture(
+                workoutWorkflowService.updateWorkoutSet(workoutId, exerciseId, setId, userId, request));
+    }
+
+    @PutMapping("/{workoutId}/sets")
+    public List<WorkoutSetUpdateResult> updateSets(
+            @PathVariable Long workoutId,
+            @RequestBody UpdateWorkoutSetsRequest request
+    ) {
+        Long userId = getLoggedInUserId();
+        return workoutWorkflowService.updateWorkoutSets(workoutId, userId, request);
+    }
+
+    @PostMapping("/{workoutId}/journal")
+    public WorkoutJournalResponse replayJournal(
+            @PathVariable Long workoutId,
+            @RequestBody WorkoutJournalRequest request
+    ) {
+        Long userId = getLoggedInUserId();
+        return workoutJournalService.replay(workoutId, userId, request);
     }
 
     @GetMapping("/active")
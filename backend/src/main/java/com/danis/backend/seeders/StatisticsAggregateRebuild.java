@@ -0,0 +1,70 @@
+package com.danis.backend.seeders;
+
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.service.workflow.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds the statistics aggregate from the workout history, once the application is ready when
+ * the {@code statistics-rebuild} profile is active:
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.profiles=statistics-rebuild \
+ *     -Dspring-boot.run.arguments=--statistics.rebuild.users=12,34
+ * </pre>
+ *
+ * <p>Without {@code statistics.rebuild.users} it rebuilds the users whose finished workouts predate
+ * the aggregate, which the summary and analytics requests only read; run it once after deploying.
+ * Each user is rebuilt in its own transaction.
+ */
+@Slf4j
+@Component
+@Profile("statistics-rebuild")
+@RequiredArgsConstructor
+public class StatisticsAggregateRebuild {
+
+    private final WorkoutRepository workoutRepository;
+    private final UserStatsService userStatsService;
+    private final ConfigurableApplicationContext context;
+
+    // Users to rebuild; those without a complete aggregate if empty
+    @Value("${statistics.rebuild.users:}")
+    private List<Long> users;
+
+    @Value("${statistics.rebuild.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> userIds = users.isEmpty()
+                ? workoutRepository.findUserIdsWithoutAggregate(WorkoutStatus.COMPLETED)
+                : users;
+
+        log.info("Rebuilding the statistics aggregate of {} users", userIds.size());
+        int failed = 0;
+        for (Long userId : userIds) {
+            try {
+                userStatsService.rebuild(userId);
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Could not rebuild the statistics aggregate of user {}", userId, e);
+            }
+        }
+        log.info("Statistics aggregate rebuild done, {} failed", failed);
+
+        if (exitWhenDone) {
+            int exitCode = failed > 0 ? 1 : 0;
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.danis.backend.seeders;
+
+import com.danis.backend.domain.model.enums.*;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.service.workflow.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Generates users with templates and months of completed workout history for benchmarks and
+ * load tests. Runs once the application is ready when the {@code datagen} profile is active:
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.profiles=datagen -Dspring-boot.run.arguments=--datagen.users=1000
+ * </pre>
+ *
+ * <p>Workouts follow the user's templates with weights that progress over time, some skipped sets
+ * and cardio sets with a duration and distance. Rows are written with batched JDBC inserts, ids
+ * reserved from the tables' sequences in blocks, one transaction per user. Everything is drawn from
+ * random generators seeded by {@code datagen.seed} and the user's number, so the same seed and end
+ * date give the same histories. Users that already exist are skipped, so an interrupted run can be resumed.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class WorkoutHistoryGenerator {
+
+    private static final int TEMPLATES_PER_USER = 3;
+    private static final double SKIPPED_SET_RATE = 0.07;
+    private static final double CARDIO_RATE = 0.4;
+
+    private static final String INSERT_USER = "INSERT INTO users " +
+            "(id, full_name, email, password, age, gender, height, weight, goal, activity_level, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TEMPLATE =
+            "INSERT INTO workout_templates (id, name, description, user_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_TEMPLATE_EXERCISE = "INSERT INTO workout_template_exercises " +
+            "(id, order_index, workout_template_id, exercise_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_TEMPLATE_SET = "INSERT INTO workout_template_sets " +
+            "(id, reps, weight, duration_seconds, distance, template_exercise_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_WORKOUT = "INSERT INTO workouts " +
+            "(id, user_id, template_id, status, started_at, finished_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_WORKOUT_EXERCISE = "INSERT INTO workout_exercises " +
+            "(id, order_index, workout_id, exercise_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_WORKOUT_SET = "INSERT INTO workout_sets " +
+            "(id, planned_reps, planned_weight, actual_reps, actual_weight, duration_seconds, distance, completed, " +
+            "workout_exercise_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] USER_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.INTEGER, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR,
+            Types.TIMESTAMP, Types.TIMESTAMP};
+    private static final int[] TEMPLATE_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT};
+    private static final int[] TEMPLATE_EXERCISE_TYPES = {Types.BIGINT, Types.INTEGER, Types.BIGINT, Types.BIGINT};
+    private static final int[] TEMPLATE_SET_TYPES = {Types.BIGINT, Types.INTEGER, Types.DOUBLE, Types.INTEGER,
+            Types.DOUBLE, Types.BIGINT};
+    private static final int[] WORKOUT_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+            Types.TIMESTAMP, Types.TIMESTAMP};
+    private static final int[] WORKOUT_EXERCISE_TYPES = {Types.BIGINT, Types.INTEGER, Types.BIGINT, Types.BIGINT};
+    private static final int[] WORKOUT_SET_TYPES = {Types.BIGINT, Types.INTEGER, Types.DOUBLE, Types.INTEGER,
+            Types.DOUBLE, Types.INTEGER, Types.DOUBLE, Types.BOOLEAN, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExerciseRepository exerciseRepository;
+    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${datagen.users:100}")
+    private int users;
+
+    @Value("${datagen.months:6}")
+    private int months;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    // Last day of the generated histories; today if empty
+    @Value("${datagen.end-date:}")
+    private String endDate;
+
+    @Value("${datagen.password:password}")
+    private String password;
+
+    @Value("${datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${datagen.rebuild-aggregates:true}")
+    private boolean rebuildAggregates;
+
+    @Value("${datagen.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generate() {
+        List<Long> catalog = exerciseRepository.findIdsByType(ExerciseType.PRELOADED);
+        Set<Long> cardio = new HashSet<>(exerciseRepository.findIdsByBodyPart("cardio"));
+        List<Long> strength = catalog.stream().filter(id -> !cardio.contains(id)).toList();
+        List<Long> cardioIds = catalog.stream().filter(cardio::contains).toList();
+        if (strength.size() < 10) {
+            throw new IllegalStateException("The exercise catalog must be seeded before generating workouts");
+        }
+
+        LocalDate end = endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+        String encodedPassword = passwordEncoder.encode(password);
+        IdBlocks ids = new IdBlocks();
+
+        log.info("Generating {} users with {} months of history until {} (seed {})", users, months, end, seed);
+        long started = System.nanoTime();
+        long totalWorkouts = 0;
+        long totalSets = 0;
+
+        for (int u = 0; u < users; u++) {
+            String email = String.format("datagen-%d-%d@k-track.local", seed, u);
+            if (userRepository.existsByEmail(email)) {
+                continue;
+            }
+
+            Rows rows = new UserHistory(new Random(seed * 1_000_003L + u), ids, strength, cardioIds, end)
+                    .generate(u, email, encodedPassword);
+            transactionTemplate.executeWithoutResult(status -> rows.insert());
+            if (rebuildAggregates) {
+                userStatsService.rebuild(rows.userId);
+            }
+
+            totalWorkouts += rows.workouts.size();
+            totalSets += rows.workoutSets.size();
+            if ((u + 1) % 100 == 0) {
+                log.info("Generated {}/{} users, {} workouts, {} sets", u + 1, users, totalWorkouts, totalSets);
+            }
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} workouts and {} sets in {} s ({} sets/s)",
+                totalWorkouts, totalSets, String.format("%.1f", seconds),
+                String.format("%.0f", totalSets / Math.max(seconds, 1e-3)));
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void insert(String sql, List<Object[]> rows, int[] types) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())), types);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time);
+    }
+
+    // Weights go up in 2.5 kg steps
+    private static double plates(double weight) {
+        return Math.max(2.5, Math.round(weight / 2.5) * 2.5);
+    }
+
+    /**
+     * Ids taken from the tables' identity sequences a block at a time, so children can reference
+     * their parents before anything is inserted
+     */
+    private final class IdBlocks {
+        private final Map<String, Deque<Long>> blocks = new HashMap<>();
+
+        long next(String table) {
+            Deque<Long> block = blocks.computeIfAbsent(table, t -> new ArrayDeque<>());
+            if (block.isEmpty()) {
+                block.addAll(jdbcTemplate.queryForList(
+                        "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                        Long.class, table, batchSize));
+            }
+            return block.poll();
+        }
+    }
+
+    /**
+     * The rows of one generated user
+     */
+    private final class Rows {
+        Long userId;
+        final List<Object[]> user = new ArrayList<>();
+        final List<Object[]> templates = new ArrayList<>();
+        final List<Object[]> templateExercises = new ArrayList<>();
+        final List<Object[]> templateSets = new ArrayList<>();
+        final List<Object[]> workouts = new ArrayList<>();
+        final List<Object[]> workoutExercises = new ArrayList<>();
+        final List<Object[]> workoutSets = new ArrayList<>();
+
+        // Parents first
+        void insert() {
+            WorkoutHistoryGenerator.this.insert(INSERT_USER, user, USER_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_TEMPLATE, templates, TEMPLATE_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_TEMPLATE_EXERCISE, templateExercises, TEMPLATE_EXERCISE_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_TEMPLATE_SET, templateSets, TEMPLATE_SET_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_WORKOUT, workouts, WORKOUT_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_WORKOUT_EXERCISE, workoutExercises, WORKOUT_EXERCISE_TYPES);
+            WorkoutHistoryGenerator.this.insert(INSERT_WORKOUT_SET, workoutSets, WORKOUT_SET_TYPES);
+        }
+    }
+
+    private record TemplateExercise(long exerciseId, boolean cardio, int sets, int reps) {
+    }
+
+    private record Template(long id, List<TemplateExercise> exercises) {
+    }
+
+    /**
+     * One user's profile, templates and history, drawn from the user's own random generator
+     */
+    private final class UserHistory {
+        private final Random random;
+        private final IdBlocks ids;
+        private final List<Long> strength;
+        private final List<Long> cardio;
+        private final LocalDate end;
+
+        // Current working weight per exercise
+        private final Map<Long, Double> workingWeights = new HashMap<>();
+
+        UserHistory(Random random, IdBlocks ids, List<Long> strength, List<Long> cardio, LocalDate end) {
+            this.random = random;
+            this.ids = ids;
+            this.strength = strength;
+            this.cardio = cardio;
+            this.end = end;
+        }
+
+        Rows generate(int number, String email, String encodedPassword) {
+            Rows rows = new Rows();
+            LocalDate start = end.minusMonths(months);
+            LocalDateTime createdAt = start.minusDays(random.nextInt(30)).atTime(12, 0);
+
+            rows.userId = ids.next("users");
+            rows.user.add(new Object[]{rows.userId, "Generated User " + number, email, encodedPassword,
+                    18 + random.nextInt(45), pick(Gender.values()).name(), 155.0 + random.nextInt(45),
+                    50.0 + random.nextInt(60), pick(Goal.values()).name(), pick(ActivityLevel.values()).name(),
+                    timestamp(createdAt), timestamp(createdAt)});
+
+            List<Template> templates = new ArrayList<>();
+            for (int t = 0; t < TEMPLATES_PER_USER; t++) {
+                templates.add(template(rows, "Day " + (char) ('A' + t)));
+            }
+
+            // Two to five workouts a week, rotating through the templates
+            double perDay = (2 + random.nextInt(4)) / 7.0;
+            int next = 0;
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                if (random.nextDouble() < perDay) {
+                    workout(rows, templates.get(next++ % templates.size()), day);
+                }
+            }
+
+            return rows;
+        }
+
+        private Template template(Rows rows, String name) {
+            long templateId = ids.next("workout_templates");
+            rows.templates.add(new Object[]{templateId, name, "Generated template", rows.userId});
+
+            List<TemplateExercise> exercises = new ArrayList<>();
+            Set<Long> chosen = new HashSet<>();
+            int count = 4 + random.nextInt(4);
+            while (exercises.size() < count) {
+                long exerciseId = strength.get(random.nextInt(strength.size()));
+                if (chosen.add(exerciseId)) {
+                    exercises.add(new TemplateExercise(
+                            exerciseId, false, 3 + random.nextInt(3), 6 + 2 * random.nextInt(4)));
+                    workingWeights.put(exerciseId, plates(20 + random.nextInt(80)));
+                }
+            }
+            if (!cardio.isEmpty() && random.nextDouble() < CARDIO_RATE) {
+                exercises.add(new TemplateExercise(cardio.get(random.nextInt(cardio.size())), true, 1, 0));
+            }
+
+            for (int i = 0; i < exercises.size(); i++) {
+                TemplateExercise exercise = exercises.get(i);
+                long templateExerciseId = ids.next("workout_template_exercises");
+                rows.templateExercises.add(new Object[]{templateExerciseId, i, templateId, exercise.exerciseId()});
+
+                for (int s = 0; s < exercise.sets(); s++) {
+                    rows.templateSets.add(exercise.cardio()
+                            ? new Object[]{ids.next("workout_template_sets"), null, null, 1200, 3.0, templateExerciseId}
+                            : new Object[]{ids.next("workout_template_sets"), exercise.reps(),
+                                    workingWeights.get(exercise.exerciseId()), null, null, templateExerciseId});
+                }
+            }
+
+            return new Template(templateId, exercises);
+        }
+
+        private void workout(Rows rows, Template template, LocalDate day) {
+            long workoutId = ids.next("workouts");
+            LocalDateTime startedAt = day.atTime(6 + random.nextInt(15), random.nextInt(60));
+            LocalDateTime finishedAt = startedAt.plusMinutes(35 + random.nextInt(55));
+            rows.workouts.add(new Object[]{workoutId, rows.userId, template.id(), WorkoutStatus.COMPLETED.name(),
+                    timestamp(startedAt), timestamp(finishedAt)});
+
+            for (int i = 0; i < template.exercises().size(); i++) {
+                TemplateExercise exercise = template.exercises().get(i);
+                long workoutExerciseId = ids.next("workout_exercises");
+                rows.workoutExercises.add(new Object[]{workoutExerciseId, i, workoutId, exercise.exerciseId()});
+
+                if (exercise.cardio()) {
+                    cardioSet(rows, workoutExerciseId);
+                } else {
+                    strengthSets(rows, workoutExerciseId, exercise);
+                }
+            }
+        }
+
+        private void strengthSets(Rows rows, long workoutExerciseId, TemplateExercise exercise) {
+            double weight = progress(exercise.exerciseId());
+
+            for (int s = 0; s < exercise.sets(); s++) {
+                long setId = ids.next("workout_sets");
+                if (random.nextDouble() < SKIPPED_SET_RATE) {
+                    rows.workoutSets.add(new Object[]{setId, exercise.reps(), weight, null, null, null, null, false,
+                            workoutExerciseId});
+                    continue;
+                }
+
+                // Later sets lose a rep or two
+                int reps = Math.max(1, exercise.reps() + 1 - random.nextInt(2 + s));
+                rows.workoutSets.add(new Object[]{setId, exercise.reps(), weight, reps, weight, null, null, true,
+                        workoutExerciseId});
+            }
+        }
+
+        private void cardioSet(Rows rows, long workoutExerciseId) {
+            int seconds = 600 + 60 * random.nextInt(30);
+            double distance = Math.round(seconds / 360.0 * (0.8 + 0.4 * random.nextDouble()) * 100) / 100.0;
+            rows.workoutSets.add(new Object[]{ids.next("workout_sets"), null, null, null, null, seconds, distance,
+                    random.nextDouble() >= SKIPPED_SET_RATE, workoutExerciseId});
+        }
+
+        // Mostly steady, sometimes a step up, rarely a deload
+        private double progress(long exerciseId) {
+            double weight = workingWeights.get(exerciseId);
+            double roll = random.nextDouble();
+            if (roll < 0.25) {
+                weight = plates(weight + 2.5);
+            } else if (roll < 0.28) {
+                weight = plates(weight * 0.9);
+            }
+            workingWeights.put(exerciseId, weight);
+            return weight;
+        }
+
+        private <E> E pick(E[] values) {
+            return values[random.nextInt(values.length)];
+        }
+    }
+}
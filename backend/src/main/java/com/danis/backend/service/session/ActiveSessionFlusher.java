@@ -0,0 +1,72 @@
+package com.danis.backend.service.session;
+
+import com.danis.backend.service.workflow.WorkoutWorkflowService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the {@link ActiveSessionStore}'s set edits to the database every
+ * {@code workouts.sessions.flush-interval-ms}, and recovers the edits of its log at startup.
+ * The log is compacted once it has grown by {@code workouts.sessions.compact-threshold-bytes}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "workouts.sessions.enabled", havingValue = "true")
+public class ActiveSessionFlusher {
+
+    private final ActiveSessionStore activeSessionStore;
+    private final WorkoutWorkflowService workoutWorkflowService;
+
+    /**
+     * Hold the in-progress workouts of the users with unflushed edits in the log again, apply the
+     * edits to them and write them. Sessions are served from then on.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        activeSessionStore.markReady();
+
+        int dropped = 0;
+        for (Long userId : activeSessionStore.recoveredUsers()) {
+            try {
+                workoutWorkflowService.getActiveWorkout(userId);
+                dropped += activeSessionStore.reapply(userId);
+            } catch (RuntimeException e) {
+                log.warn("Could not recover the active session of user {}", userId, e);
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Dropped {} recovered set edits of workouts no longer in progress", dropped);
+        }
+
+        flush();
+    }
+
+    @Scheduled(
+            initialDelayString = "${workouts.sessions.flush-interval-ms}",
+            fixedDelayString = "${workouts.sessions.flush-interval-ms}"
+    )
+    public void flush() {
+        if (!activeSessionStore.isReady()) {
+            return;
+        }
+
+        for (Long userId : activeSessionStore.dirtyUsers()) {
+            try {
+                workoutWorkflowService.flushActiveSession(userId);
+            } catch (RuntimeException e) {
+                log.warn("Could not flush the active session of user {}", userId, e);
+            }
+        }
+
+        activeSessionStore.evictIdle();
+        if (activeSessionStore.shouldCompactLog()) {
+            activeSessionStore.compactLog();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.danis.backend.service.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of the set edits held by the {@link ActiveSessionStore}, replayed after a crash.
+ *
+ * <p>Records have a fixed size and end with a CRC32 of their content, so a torn or unwritten tail
+ * left by a crash is recognized and ignored:
+ * <pre>
+ * byte kind, long sequence, long user id, long workout id, long workout exercise id, long set id,
+ * byte flags, int reps, double weight, int crc
+ * </pre>
+ * A flushed record marks every edit of its user up to its sequence as written to the database.
+ *
+ * <p>Appends only write; {@link #sync} forces them to disk, and one force covers every record
+ * appended before it, so concurrent writers share an fsync. Compaction is done by one thread at a time.
+ */
+final class ActiveSessionLog {
+
+    static final byte EDIT = 1;
+    static final byte FLUSHED = 2;
+
+    private static final int RECORD_BYTES = 1 + 5 * Long.BYTES + 1 + Integer.BYTES + Double.BYTES + Integer.BYTES;
+
+    private static final int COMPLETED = 1;
+    private static final int HAS_REPS = 2;
+    private static final int HAS_WEIGHT = 4;
+
+    record Entry(
+            byte kind,
+            long sequence,
+            long userId,
+            long workoutId,
+            long workoutExerciseId,
+            long setId,
+            Integer reps,
+            Double weight,
+            boolean completed
+    ) {
+        static Entry flushed(long sequence, long userId) {
+            return new Entry(FLUSHED, sequence, userId, 0, 0, 0, null, null, false);
+        }
+    }
+
+    private final Path file;
+    private final boolean sync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+
+    // Records are written under the append lock and forced under the sync lock, taken first if both are
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long appended;
+    private long synced;
+
+    ActiveSessionLog(Path file, boolean sync) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.file = file;
+        this.sync = sync;
+        this.channel = open(file);
+    }
+
+    /**
+     * The complete records of the file, in the order they were appended. A torn tail is cut off,
+     * so records appended after it can be read again.
+     */
+    List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (readRecord(in, record) && isIntact(record)) {
+                entries.add(decode(record));
+            }
+        }
+
+        channel.truncate((long) entries.size() * RECORD_BYTES);
+        return entries;
+    }
+
+    /**
+     * Write a record, without waiting for it to be on disk
+     *
+     * @return the ticket to pass to {@link #sync}
+     */
+    long append(Entry entry) throws IOException {
+        synchronized (appendLock) {
+            encode(entry, buffer);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return ++appended;
+        }
+    }
+
+    /**
+     * Wait until the record of the ticket is on disk, if writes are synced. Writers arriving while a
+     * force is running append their records and are covered together by the next one.
+     */
+    void sync(long ticket) throws IOException {
+        if (!sync) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (synced >= ticket) {
+                return;
+            }
+            long upTo;
+            synchronized (appendLock) {
+                upTo = appended;
+            }
+            channel.force(false);
+            synced = upTo;
+        }
+    }
+
+    /**
+     * The end of the file, from which {@link #rewrite} keeps the records appended meanwhile
+     */
+    long mark() throws IOException {
+        synchronized (appendLock) {
+            return channel.size();
+        }
+    }
+
+    /**
+     * Replace the file with the given records followed by the records appended since the mark,
+     * moved into place so a crash leaves either file. Appends wait only while those are copied.
+     */
+    void rewrite(List<Entry> entries, long mark) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            for (Entry entry : entries) {
+                encode(entry, record);
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+
+            synchronized (syncLock) {
+                synchronized (appendLock) {
+                    copyFrom(mark, out);
+                    out.force(true);
+
+                    channel.close();
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    channel = open(file);
+                    synced = appended;
+                }
+            }
+        }
+    }
+
+    void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                channel.close();
+            }
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void copyFrom(long position, FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = in.size();
+            while (position < end) {
+                position += in.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    private static boolean readRecord(FileChannel in, ByteBuffer record) throws IOException {
+        record.clear();
+        while (record.hasRemaining()) {
+            if (in.read(record) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void encode(Entry entry, ByteBuffer record) {
+        int flags = (entry.completed() ? COMPLETED : 0)
+                | (entry.reps() != null ? HAS_REPS : 0)
+                | (entry.weight() != null ? HAS_WEIGHT : 0);
+
+        record.clear();
+        record.put(entry.kind())
+                .putLong(entry.sequence())
+                .putLong(entry.userId())
+                .putLong(entry.workoutId())
+                .putLong(entry.workoutExerciseId())
+                .putLong(entry.setId())
+                .put((byte) flags)
+                .putInt(entry.reps() != null ? entry.reps() : 0)
+                .putDouble(entry.weight() != null ? entry.weight() : 0.0);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        record.flip();
+    }
+
+    private static boolean isIntact(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, RECORD_BYTES - Integer.BYTES);
+        byte kind = record.get(0);
+        return (kind == EDIT || kind == FLUSHED)
+                && record.getInt(RECORD_BYTES - Integer.BYTES) == (int) crc.getValue();
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        record.flip();
+        byte kind = record.get();
+        long sequence = record.getLong();
+        long userId = record.getLong();
+        long workoutId = record.getLong();
+        long workoutExerciseId = record.getLong();
+        long setId = record.getLong();
+        int flags = record.get();
+        int reps = record.getInt();
+        double weight = record.getDouble();
+
+        return new Entry(kind, sequence, userId, workoutId, workoutExerciseId, setId,
+                (flags & HAS_REPS) != 0 ? reps : null,
+                (flags & HAS_WEIGHT) != 0 ? weight : null,
+                (flags & COMPLETED) != 0);
+    }
+}
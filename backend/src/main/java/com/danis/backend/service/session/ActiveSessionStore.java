@@ -0,0 +1,567 @@
+package com.danis.backend.service.session;
+
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.dto.*;
+import com.danis.backend.service.workflow.PersonalRecordService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional write-behind store of in-progress workouts, enabled with
+ * {@code workouts.sessions.enabled=true}.
+ *
+ * <p>A user's started or paused workout is held in memory once read, and its set edits are applied
+ * there and appended to an {@link ActiveSessionLog} instead of being written to the database. The
+ * edits are flushed by the {@link ActiveSessionFlusher} every few seconds, and by the workflow when
+ * the workout is paused or finished. After a crash the log's unflushed edits are applied again.
+ *
+ * <p>Edits of a session are serialized by the session; those of different users are logged
+ * concurrently and share the log's fsyncs.
+ *
+ * <p>New personal records are flagged against the records known when the session was loaded and
+ * the other sets held; the records themselves are written when the edits are flushed. Sessions
+ * live in this instance only, so all requests of a user must reach the same instance.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "workouts.sessions.enabled", havingValue = "true")
+public class ActiveSessionStore {
+
+    /**
+     * Edits of a session not yet in the database, up to the given log sequence
+     */
+    public record PendingFlush(Long userId, Long workoutId, List<WorkoutSetChange> changes, long sequence) {
+    }
+
+    private final int maxSessions;
+    private final long idleMillis;
+    private final long compactThresholdBytes;
+    private final ActiveSessionLog sessionLog;
+
+    // Size of the log after it was last rewritten
+    private volatile long compactedBytes;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    // Sessions detached with unflushed edits, until the write of those edits has committed or rolled back
+    private final Map<Long, Session> detaching = new ConcurrentHashMap<>();
+
+    // Sessions are admitted one at a time, so the store stays within the maximum
+    private final Object admissionLock = new Object();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Edits read from the log at startup, by user, until applied to the user's session
+    private final Map<Long, List<ActiveSessionLog.Entry>> recovered = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ActiveSessionStore(
+            @Value("${workouts.sessions.max-sessions}") int maxSessions,
+            @Value("${workouts.sessions.idle-minutes}") long idleMinutes,
+            @Value("${workouts.sessions.log-file}") String logFile,
+            @Value("${workouts.sessions.sync-writes:true}") boolean syncWrites,
+            @Value("${workouts.sessions.compact-threshold-bytes}") long compactThresholdBytes
+    ) throws IOException {
+        this.maxSessions = maxSessions;
+        this.idleMillis = idleMinutes * 60_000;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.sessionLog = new ActiveSessionLog(Path.of(logFile), syncWrites);
+        readLog();
+    }
+
+    /**
+     * Whether sessions are served; not before the log has been recovered
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<WorkoutDetailResponse> find(Long userId) {
+        Session session = ready ? sessions.get(userId) : null;
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            session.lastAccess = System.currentTimeMillis();
+            return Optional.of(copy(session.detail));
+        }
+    }
+
+    public Optional<WorkoutDetailResponse> find(Long userId, Long workoutId) {
+        return find(userId).filter(detail -> detail.getId().equals(workoutId));
+    }
+
+    /**
+     * Hold a user's in-progress workout, unless the store is full of sessions with unflushed edits
+     *
+     * @param exerciseOf    the exercise of each workout exercise
+     * @param bestOneRepMax the user's best estimated one rep max of each exercise, if any
+     */
+    public void admit(Long userId, WorkoutDetailResponse detail, Map<Long, Long> exerciseOf,
+                      Map<Long, Double> bestOneRepMax) {
+        if (!ready) {
+            return;
+        }
+
+        synchronized (admissionLock) {
+            if (sessions.containsKey(userId)) {
+                return;
+            }
+            if (sessions.size() >= maxSessions && !evictLeastRecentlyUsed()) {
+                return;
+            }
+            sessions.put(userId, new Session(copy(detail), Map.copyOf(exerciseOf), Map.copyOf(bestOneRepMax)));
+        }
+    }
+
+    /**
+     * Apply a set edit to the user's session of the workout, once it is logged.
+     * Empty if the workout is not held, so the edit is written to the database instead.
+     */
+    public Optional<WorkoutSetResponse> updateSet(
+            Long userId,
+            Long workoutId,
+            Long workoutExerciseId,
+            Long setId,
+            UpdateWorkoutSetRequest request
+    ) {
+        Session session = ready ? sessions.get(userId) : null;
+        if (session == null || !session.detail.getId().equals(workoutId)) {
+            return Optional.empty();
+        }
+
+        synchronized (session) {
+            if (session.detached) {
+                return Optional.empty();
+            }
+
+            WorkoutSetResponse set = findSet(session, workoutExerciseId, setId);
+            long logged = append(new ActiveSessionLog.Entry(ActiveSessionLog.EDIT, sequence.incrementAndGet(),
+                    userId, workoutId, workoutExerciseId, setId, request.getActualReps(), request.getActualWeight(),
+                    request.isCompleted()), true);
+
+            apply(session, workoutExerciseId, set, request.getActualReps(), request.getActualWeight(),
+                    request.isCompleted(), logged);
+            session.lastAccess = System.currentTimeMillis();
+
+            WorkoutSetResponse response = copy(set);
+            response.setNewPersonalRecord(isNewRecord(session, workoutExerciseId, set));
+            return Optional.of(response);
+        }
+    }
+
+    public void statusChanged(Long userId, Long workoutId, WorkoutStatus status) {
+        Session session = sessions.get(userId);
+        if (session != null) {
+            synchronized (session) {
+                if (session.detail.getId().equals(workoutId)) {
+                    session.detail.setStatus(status);
+                }
+            }
+        }
+    }
+
+    public List<Long> dirtyUsers() {
+        List<Long> users = new ArrayList<>();
+        sessions.forEach((userId, session) -> {
+            synchronized (session) {
+                if (!session.dirty.isEmpty()) {
+                    users.add(userId);
+                }
+            }
+        });
+        return users;
+    }
+
+    /**
+     * The user's edits to write. They stay pending until {@link #flushed} after the write committed.
+     */
+    public Optional<PendingFlush> drain(Long userId) {
+        Session session = sessions.get(userId);
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        synchronized (session) {
+            if (session.dirty.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new PendingFlush(userId, session.detail.getId(),
+                    List.copyOf(session.dirty.values()), session.lastSequence));
+        }
+    }
+
+    /**
+     * Mark a flush as written, once the current transaction (if any) has committed
+     */
+    public void flushed(PendingFlush flush) {
+        afterCommit(() -> {
+            detaching.computeIfPresent(flush.userId(),
+                    (userId, detached) -> detached.lastSequence <= flush.sequence() ? null : detached);
+            Session session = sessions.get(flush.userId());
+            if (session != null) {
+                synchronized (session) {
+                    session.dirty.keySet().removeIf(setId -> session.sequences.get(setId) <= flush.sequence());
+                    session.sequences.keySet().retainAll(session.dirty.keySet());
+                }
+            }
+            // Not waited for: without it, edits already written are only applied again
+            append(ActiveSessionLog.Entry.flushed(flush.sequence(), flush.userId()), false);
+        });
+    }
+
+    /**
+     * Stop holding the user's workout and take its unflushed edits, to be written by the caller
+     * and passed to {@link #flushed}. The workout is held again if the current transaction rolls back.
+     * Until then the edits are kept in the log when it is compacted.
+     */
+    public Optional<PendingFlush> detach(Long userId) {
+        Session session = sessions.remove(userId);
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        return;
+                    }
+                    synchronized (session) {
+                        if (status == STATUS_ROLLED_BACK) {
+                            session.detached = sessions.putIfAbsent(userId, session) != null;
+                        }
+                        detaching.remove(userId, session);
+                    }
+                }
+            });
+        }
+
+        synchronized (session) {
+            session.detached = true;
+            if (session.dirty.isEmpty()) {
+                return Optional.empty();
+            }
+            detaching.put(userId, session);
+            return Optional.of(new PendingFlush(userId, session.detail.getId(),
+                    List.copyOf(session.dirty.values()), session.lastSequence));
+        }
+    }
+
+    /**
+     * Drop sessions without unflushed edits that have not been used for the idle time
+     */
+    public void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        sessions.forEach((userId, session) -> {
+            if (session.lastAccess < idleSince) {
+                evict(userId, session);
+            }
+        });
+    }
+
+    /**
+     * Whether the log has grown by {@code workouts.sessions.compact-threshold-bytes} since it was last rewritten
+     */
+    public boolean shouldCompactLog() {
+        try {
+            return sessionLog.mark() - compactedBytes >= compactThresholdBytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the active session log's size", e);
+        }
+    }
+
+    /**
+     * Rewrite the log with only the edits not yet flushed, taken from a snapshot of the sessions,
+     * held and detached. Edits logged meanwhile are carried over from the old log.
+     */
+    public void compactLog() {
+        try {
+            long mark = sessionLog.mark();
+
+            List<ActiveSessionLog.Entry> entries = new ArrayList<>();
+            recovered.values().forEach(entries::addAll);
+            // A session put back on rollback may be seen in both maps
+            Set<Session> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            sessions.forEach((userId, session) -> addEdits(userId, session, seen, entries));
+            detaching.forEach((userId, session) -> addEdits(userId, session, seen, entries));
+            entries.sort(Comparator.comparingLong(ActiveSessionLog.Entry::sequence));
+
+            sessionLog.rewrite(entries, mark);
+            compactedBytes = sessionLog.mark();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact the active session log", e);
+        }
+    }
+
+    // ==================== Recovery ====================
+
+    /**
+     * Users with edits in the log that were not flushed before the last shutdown
+     */
+    Set<Long> recoveredUsers() {
+        return Set.copyOf(recovered.keySet());
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Apply a user's recovered edits to the user's session as unflushed edits. Edits of a workout
+     * that is not held, e.g. no longer in progress, are dropped; newer edits of a set are kept.
+     *
+     * @return the number of edits dropped
+     */
+    int reapply(Long userId) {
+        List<ActiveSessionLog.Entry> entries = recovered.getOrDefault(userId, List.of());
+        int dropped = 0;
+
+        Session session = sessions.get(userId);
+        for (ActiveSessionLog.Entry entry : entries) {
+            if (session == null || !session.detail.getId().equals(entry.workoutId())) {
+                dropped++;
+                continue;
+            }
+            synchronized (session) {
+                Long newer = session.sequences.get(entry.setId());
+                if (newer != null && newer > entry.sequence()) {
+                    continue;
+                }
+                try {
+                    WorkoutSetResponse set = findSet(session, entry.workoutExerciseId(), entry.setId());
+                    apply(session, entry.workoutExerciseId(), set, entry.reps(), entry.weight(),
+                            entry.completed(), entry.sequence());
+                } catch (EntityNotFoundException e) {
+                    dropped++;
+                }
+            }
+        }
+        recovered.remove(userId);
+
+        return dropped;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        sessionLog.close();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static final class Session {
+        final WorkoutDetailResponse detail;
+        final Map<Long, Long> exerciseOf;
+        final Map<Long, Double> bestOneRepMax;
+
+        // Unflushed edits by set id, with the log sequence of each
+        final Map<Long, WorkoutSetChange> dirty = new LinkedHashMap<>();
+        final Map<Long, Long> sequences = new HashMap<>();
+        long lastSequence;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        // No longer in the store; edits waiting for the session are written to the database instead
+        boolean detached;
+
+        Session(WorkoutDetailResponse detail, Map<Long, Long> exerciseOf, Map<Long, Double> bestOneRepMax) {
+            this.detail = detail;
+            this.exerciseOf = exerciseOf;
+            this.bestOneRepMax = bestOneRepMax;
+        }
+    }
+
+    // The unflushed edits of the log by user; edits before a user's last flush are dropped
+    private void readLog() throws IOException {
+        Map<Long, Long> flushedUpTo = new HashMap<>();
+        List<ActiveSessionLog.Entry> entries = sessionLog.readAll();
+
+        for (ActiveSessionLog.Entry entry : entries) {
+            sequence.accumulateAndGet(entry.sequence(), Math::max);
+            if (entry.kind() == ActiveSessionLog.FLUSHED) {
+                flushedUpTo.merge(entry.userId(), entry.sequence(), Math::max);
+            }
+        }
+        for (ActiveSessionLog.Entry entry : entries) {
+            if (entry.kind() == ActiveSessionLog.EDIT
+                    && entry.sequence() > flushedUpTo.getOrDefault(entry.userId(), 0L)) {
+                recovered.computeIfAbsent(entry.userId(), id -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        if (!recovered.isEmpty()) {
+            log.info("Recovering unflushed set edits of {} users from the active session log", recovered.size());
+        }
+    }
+
+    private static void addEdits(Long userId, Session session, Set<Session> seen,
+                                 List<ActiveSessionLog.Entry> entries) {
+        synchronized (session) {
+            if (!seen.add(session)) {
+                return;
+            }
+            session.dirty.forEach((setId, change) -> entries.add(new ActiveSessionLog.Entry(
+                    ActiveSessionLog.EDIT, session.sequences.get(setId), userId, session.detail.getId(),
+                    change.getExerciseId(), setId, change.getActualReps(), change.getActualWeight(),
+                    change.isCompleted())));
+        }
+    }
+
+    // Append to the log, waiting for the entry to be on disk if durable
+    private long append(ActiveSessionLog.Entry entry, boolean durable) {
+        try {
+            long ticket = sessionLog.append(entry);
+            if (durable) {
+                sessionLog.sync(ticket);
+            }
+            return entry.sequence();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the active session log", e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // The least recently used session without unflushed edits, if any
+    private boolean evictLeastRecentlyUsed() {
+        Long oldest = null;
+        Session oldestSession = null;
+        for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                boolean older = oldestSession == null || session.lastAccess < oldestSession.lastAccess;
+                if (session.dirty.isEmpty() && older) {
+                    oldest = entry.getKey();
+                    oldestSession = session;
+                }
+            }
+        }
+        return oldest != null && evict(oldest, oldestSession);
+    }
+
+    // Stop holding a session without unflushed edits
+    private boolean evict(Long userId, Session session) {
+        synchronized (session) {
+            if (!session.dirty.isEmpty() || !sessions.remove(userId, session)) {
+                return false;
+            }
+            session.detached = true;
+            return true;
+        }
+    }
+
+    private static WorkoutSetResponse findSet(Session session, Long workoutExerciseId, Long setId) {
+        WorkoutExerciseResponse exercise = session.detail.getExercises().stream()
+                .filter(e -> e.getId().equals(workoutExerciseId))
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Exercise not found"));
+
+        return exercise.getSets().stream()
+                .filter(s -> s.getId().equals(setId))
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Set not found"));
+    }
+
+    private static void apply(Session session, Long workoutExerciseId, WorkoutSetResponse set,
+                              Integer reps, Double weight, boolean completed, long logged) {
+        set.setActualReps(reps);
+        set.setActualWeight(weight);
+        set.setCompleted(completed);
+
+        WorkoutSetChange change = new WorkoutSetChange();
+        change.setExerciseId(workoutExerciseId);
+        change.setSetId(set.getId());
+        change.setActualReps(reps);
+        change.setActualWeight(weight);
+        change.setCompleted(completed);
+
+        session.dirty.put(set.getId(), change);
+        session.sequences.put(set.getId(), logged);
+        session.lastSequence = Math.max(session.lastSequence, logged);
+    }
+
+    // Better than the record known at load and the other completed sets of the exercise held, so
+    // editing a set back down hands the flag to the best remaining set
+    private static boolean isNewRecord(Session session, Long workoutExerciseId, WorkoutSetResponse set) {
+        if (!qualifies(set)) {
+            return false;
+        }
+
+        Long exerciseId = session.exerciseOf.get(workoutExerciseId);
+        double best = session.bestOneRepMax.getOrDefault(exerciseId, -1.0);
+        for (WorkoutExerciseResponse exercise : session.detail.getExercises()) {
+            if (!exerciseId.equals(session.exerciseOf.get(exercise.getId()))) {
+                continue;
+            }
+            for (WorkoutSetResponse other : exercise.getSets()) {
+                if (other != set && qualifies(other)) {
+                    best = Math.max(best, estimatedOneRepMax(other));
+                }
+            }
+        }
+
+        return estimatedOneRepMax(set) > best;
+    }
+
+    private static boolean qualifies(WorkoutSetResponse set) {
+        return set.isCompleted() && set.getActualWeight() != null;
+    }
+
+    private static double estimatedOneRepMax(WorkoutSetResponse set) {
+        return PersonalRecordService.estimatedOneRepMax(set.getActualWeight(), set.getActualReps());
+    }
+
+    private static WorkoutDetailResponse copy(WorkoutDetailResponse detail) {
+        return WorkoutDetailResponse.builder()
+                .id(detail.getId())
+                .templateName(detail.getTemplateName())
+                .status(detail.getStatus())
+                .startedAt(detail.getStartedAt())
+                .finishedAt(detail.getFinishedAt())
+                .exercises(detail.getExercises().stream()
+                        .map(exercise -> WorkoutExerciseResponse.builder()
+                                .id(exercise.getId())
+                                .exerciseName(exercise.getExerciseName())
+                                .imageUrl(exercise.getImageUrl())
+                                .orderIndex(exercise.getOrderIndex())
+                                .sets(exercise.getSets().stream().map(ActiveSessionStore::copy).toList())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    private static WorkoutSetResponse copy(WorkoutSetResponse set) {
+        return WorkoutSetResponse.builder()
+                .id(set.getId())
+                .setNumber(set.getSetNumber())
+                .plannedReps(set.getPlannedReps())
+                .plannedWeight(set.getPlannedWeight())
+                .actualReps(set.getActualReps())
+                .actualWeight(set.getActualWeight())
+                .completed(set.isCompleted())
+                .build();
+    }
+}
@@ -0,0 +1,234 @@
+package com.danis.backend.service.statistics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The days on which a user finished a workout, one bit per day starting at {@link #getStart()}.
+ * Streaks, calendar ranges and weekday counts are computed a 64 day word at a time.
+ *
+ * <p>Instances handed out by the statistics cache are shared and must not be modified.
+ */
+public final class ActivityBitmap {
+
+    // Bits i with i % 7 == phase; shifting the phase follows the weekdays from word to word
+    private static final long[] WEEKDAY_MASKS = new long[7];
+
+    static {
+        for (int phase = 0; phase < 7; phase++) {
+            for (int i = phase; i < 64; i += 7) {
+                WEEKDAY_MASKS[phase] |= 1L << i;
+            }
+        }
+    }
+
+    private long start; // Epoch day of bit 0
+    private long[] words;
+
+    public ActivityBitmap(LocalDate start) {
+        this(start.toEpochDay(), new long[0]);
+    }
+
+    private ActivityBitmap(long start, long[] words) {
+        this.start = start;
+        this.words = words;
+    }
+
+    public static ActivityBitmap decode(LocalDate start, byte[] bytes) {
+        LongBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        long[] words = new long[buffer.remaining()];
+        buffer.get(words);
+        return new ActivityBitmap(start.toEpochDay(), words);
+    }
+
+    /**
+     * Words as little endian bytes, without trailing empty words
+     */
+    public byte[] encode() {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asLongBuffer().put(words, 0, length);
+        return buffer.array();
+    }
+
+    public LocalDate getStart() {
+        return LocalDate.ofEpochDay(start);
+    }
+
+    public void set(LocalDate day) {
+        long epochDay = day.toEpochDay();
+
+        if (epochDay < start) {
+            // Grow towards the past by whole words so existing words keep their alignment
+            int prepended = (int) ((start - epochDay + 63) / 64);
+            long[] grown = new long[words.length + prepended];
+            System.arraycopy(words, 0, grown, prepended, words.length);
+            words = grown;
+            start -= prepended * 64L;
+        }
+
+        int index = (int) (epochDay - start);
+        if ((index >>> 6) >= words.length) {
+            words = Arrays.copyOf(words, Math.max((index >>> 6) + 1, words.length * 2));
+        }
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public boolean isSet(LocalDate day) {
+        long index = day.toEpochDay() - start;
+        if (index < 0 || (index >>> 6) >= words.length) {
+            return false;
+        }
+        return (words[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Consecutive active days up to today, or up to yesterday if there was no workout today yet
+     */
+    public int currentStreak(LocalDate today) {
+        LocalDate end = isSet(today) ? today : today.minusDays(1);
+        if (!isSet(end)) {
+            return 0;
+        }
+
+        int index = (int) (end.toEpochDay() - start);
+        int word = index >>> 6;
+        int bit = index & 63;
+        int streak = 0;
+
+        while (word >= 0) {
+            // Move the bit to the top; leading zeros of the inverse are the run of ones below it
+            long inverted = ~words[word] << (63 - bit);
+            if (inverted != 0) {
+                return streak + Long.numberOfLeadingZeros(inverted);
+            }
+            streak += bit + 1;
+            word--;
+            bit = 63;
+        }
+
+        return streak;
+    }
+
+    public int longestStreak() {
+        int longest = 0;
+        int from = nextSetBit(0);
+
+        while (from >= 0) {
+            int to = nextClearBit(from);
+            longest = Math.max(longest, to - from);
+            from = nextSetBit(to);
+        }
+
+        return longest;
+    }
+
+    /**
+     * Active days between two days, both inclusive
+     */
+    public List<LocalDate> activeDays(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        int last = lastIndex(to);
+
+        for (int i = nextSetBit(firstIndex(from)); i >= 0 && i <= last; i = nextSetBit(i + 1)) {
+            days.add(LocalDate.ofEpochDay(start + i));
+        }
+
+        return days;
+    }
+
+    /**
+     * Active days between two days (both inclusive) per weekday, indexed by {@link DayOfWeek#ordinal()}
+     */
+    public int[] countByDayOfWeek(LocalDate from, LocalDate to) {
+        int[] counts = new int[7];
+        int first = firstIndex(from);
+        int last = Math.min(lastIndex(to), words.length * 64 - 1);
+
+        for (int w = first >>> 6; first <= last && w <= last >>> 6; w++) {
+            long word = words[w];
+            if (w == first >>> 6) {
+                word &= -1L << first;
+            }
+            if (w == last >>> 6) {
+                word &= -1L >>> (63 - (last & 63));
+            }
+            if (word == 0) {
+                continue;
+            }
+
+            // Epoch day 0 was a Thursday, so day d falls on ordinal (d + 3) % 7
+            long wordStart = start + w * 64L;
+            for (int day = 0; day < 7; day++) {
+                int phase = (int) Math.floorMod(day - 3 - wordStart, 7L);
+                counts[day] += Long.bitCount(word & WEEKDAY_MASKS[phase]);
+            }
+        }
+
+        return counts;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private int firstIndex(LocalDate from) {
+        return (int) Math.max(0, from.toEpochDay() - start);
+    }
+
+    private int lastIndex(LocalDate to) {
+        return (int) Math.min(Integer.MAX_VALUE, to.toEpochDay() - start);
+    }
+
+    private int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return w * 64 + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    private int nextClearBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return from;
+        }
+
+        long word = ~words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return w * 64 + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return words.length * 64;
+            }
+            word = ~words[w];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.exception.ValidationException;
+
+/**
+ * Bucket size of the analytics time series; the param is also the Postgres date_trunc field
+ */
+public enum AnalyticsGranularity {
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month"),
+    YEAR("year");
+
+    private final String param;
+
+    AnalyticsGranularity(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public static AnalyticsGranularity parse(String param) {
+        for (AnalyticsGranularity granularity : values()) {
+            if (granularity.param.equalsIgnoreCase(param.trim())) {
+                return granularity;
+            }
+        }
+        throw new ValidationException("Unknown granularity: " + param);
+    }
+}
@@ -0,0 +1,127 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.entities.WorkoutExercise;
+import com.danis.backend.domain.model.entities.WorkoutSet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of a loaded workout history, detached from the persistence context,
+ * so sections can be computed from it on other threads.
+ */
+public final class HistorySnapshot {
+
+    public record SetEntry(boolean completed, boolean weighted, double weight, int reps) {
+    }
+
+    public record ExerciseEntry(
+            Long exerciseId,
+            String name,
+            String imageUrl,
+            List<String> targetMuscles,
+            List<SetEntry> sets
+    ) {
+    }
+
+    public record WorkoutEntry(
+            Long id,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt,
+            List<ExerciseEntry> exercises
+    ) {
+    }
+
+    private final List<WorkoutEntry> workouts;
+
+    private HistorySnapshot(List<WorkoutEntry> workouts) {
+        this.workouts = List.copyOf(workouts);
+    }
+
+    /**
+     * Copy workouts with their exercises and sets; must run where the entities are still attached
+     *
+     * @param withTargetMuscles whether the exercises' target muscles were loaded and should be copied
+     */
+    public static HistorySnapshot of(List<Workout> workouts, boolean withTargetMuscles) {
+        List<WorkoutEntry> entries = new ArrayList<>(workouts.size());
+        for (Workout workout : workouts) {
+            entries.add(entry(workout, withTargetMuscles));
+        }
+        return new HistorySnapshot(entries);
+    }
+
+    /**
+     * Copy a single workout; must run where the entity is still attached
+     */
+    public static WorkoutEntry entry(Workout workout, boolean withTargetMuscles) {
+        List<ExerciseEntry> exercises = new ArrayList<>(workout.getExercises().size());
+
+        for (WorkoutExercise we : workout.getExercises()) {
+            Exercise exercise = we.getExercise();
+            List<SetEntry> sets = new ArrayList<>(we.getSets().size());
+
+            for (WorkoutSet set : we.getSets()) {
+                sets.add(new SetEntry(
+                        set.isCompleted(),
+                        set.getActualWeight() != null,
+                        set.getActualWeight() != null ? set.getActualWeight() : 0.0,
+                        set.getActualReps() != null ? set.getActualReps() : 0
+                ));
+            }
+
+            List<String> muscles = withTargetMuscles && exercise.getTargetMuscles() != null
+                    ? List.copyOf(exercise.getTargetMuscles())
+                    : null;
+            exercises.add(new ExerciseEntry(
+                    exercise.getId(), exercise.getName(), exercise.getImageUrl(), muscles, List.copyOf(sets)));
+        }
+
+        return new WorkoutEntry(workout.getId(), workout.getStartedAt(), workout.getFinishedAt(), List.copyOf(exercises));
+    }
+
+    /**
+     * Workouts without their exercises, for sections that only need finish times
+     */
+    public static HistorySnapshot ofFinishTimes(List<LocalDateTime> finishTimes) {
+        List<WorkoutEntry> entries = new ArrayList<>(finishTimes.size());
+        for (LocalDateTime finishedAt : finishTimes) {
+            entries.add(new WorkoutEntry(null, null, finishedAt, List.of()));
+        }
+        return new HistorySnapshot(entries);
+    }
+
+    public int size() {
+        return workouts.size();
+    }
+
+    /**
+     * Feed the whole history to an accumulator or another visitor
+     */
+    public <V extends HistoryVisitor> V replay(V visitor) {
+        for (WorkoutEntry workout : workouts) {
+            replay(workout, visitor);
+        }
+        return visitor;
+    }
+
+    public static <V extends HistoryVisitor> V replay(WorkoutEntry workout, V visitor) {
+        visitor.beginWorkout(workout.id(), workout.startedAt(), workout.finishedAt());
+
+        for (ExerciseEntry exercise : workout.exercises()) {
+            visitor.beginExercise(
+                    exercise.exerciseId(), exercise.name(), exercise.imageUrl(), exercise.targetMuscles());
+
+            for (SetEntry set : exercise.sets()) {
+                visitor.addSet(set.completed(), set.weighted(), set.weight(), set.reps());
+            }
+
+            visitor.endExercise();
+        }
+
+        return visitor;
+    }
+}
@@ -0,0 +1,29 @@
+package com.danis.backend.service.statistics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Receives a workout history workout by workout, exercise by exercise and set by set,
+ * e.g. from {@link WorkoutHistoryStreamer} or {@link HistorySnapshot#replay}.
+ */
+public interface HistoryVisitor {
+
+    void beginWorkout(LocalDateTime startedAt, LocalDateTime finishedAt);
+
+    /**
+     * For visitors that need to tell workouts apart; sources pass the id where they have one
+     */
+    default void beginWorkout(Long workoutId, LocalDateTime startedAt, LocalDateTime finishedAt) {
+        beginWorkout(startedAt, finishedAt);
+    }
+
+    void beginExercise(Long exerciseId, String name, String imageUrl, List<String> targetMuscles);
+
+    /**
+     * @param weighted whether the set has a weight at all
+     */
+    void addSet(boolean completed, boolean weighted, double weight, int reps);
+
+    void endExercise();
+}
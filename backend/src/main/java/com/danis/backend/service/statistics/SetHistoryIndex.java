@@ -0,0 +1,275 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.dto.ExerciseFrequencyDTO;
+import com.danis.backend.dto.MuscleGroupStatsDTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * A user's completed history in parallel primitive columns, so sections are computed with
+ * plain loops over arrays instead of walking entities and boxed values.
+ *
+ * <p>The history is stored at three levels: a workout row holds its finish day and the end of
+ * its exercise rows, an exercise row its exercise and the end of its set rows, and a set row
+ * its exercise, weight, reps and completion bit. Exercises are numbered through a dictionary.
+ * Weights are kept as floats and reps as shorts.
+ *
+ * <p>Filled through the {@link HistoryVisitor} methods by a single writer and made visible to
+ * scans by {@link #publish()}; later workouts are added with {@link #append}. Every publish hands
+ * scans a new immutable view of the columns, so they need no locking and never see a partly
+ * added workout.
+ */
+public final class SetHistoryIndex implements HistoryVisitor {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Rough heap size of a dictionary entry with its strings
+    private static final int EXERCISE_INFO_BYTES = 160;
+
+    public record ExerciseInfo(Long id, String name, String imageUrl, List<String> targetMuscles) {
+    }
+
+    // Exercise dictionary
+    private final Map<Long, Integer> exerciseIndex = new HashMap<>();
+    private ExerciseInfo[] exercises = new ExerciseInfo[INITIAL_CAPACITY];
+    private int exerciseCount;
+
+    // Workout rows
+    private long[] workoutDay = new long[INITIAL_CAPACITY]; // Epoch day of the finish time
+    private int[] workoutEnd = new int[INITIAL_CAPACITY];
+    private int workoutCount;
+
+    // Exercise rows
+    private int[] entryExercise = new int[INITIAL_CAPACITY];
+    private int[] entryEnd = new int[INITIAL_CAPACITY];
+    private int entryCount;
+
+    // Set rows
+    private int[] setExercise = new int[INITIAL_CAPACITY];
+    private float[] weight = new float[INITIAL_CAPACITY];
+    private short[] reps = new short[INITIAL_CAPACITY];
+    private long[] completed = new long[1];
+    private int setCount;
+
+    private volatile Columns published = snapshot();
+
+    // ==================== Writing ====================
+
+    @Override
+    public void beginWorkout(LocalDateTime startedAt, LocalDateTime finishedAt) {
+        if (workoutCount == workoutDay.length) {
+            workoutDay = Arrays.copyOf(workoutDay, workoutCount * 2);
+            workoutEnd = Arrays.copyOf(workoutEnd, workoutCount * 2);
+        }
+        workoutDay[workoutCount] = finishedAt.toLocalDate().toEpochDay();
+        workoutEnd[workoutCount] = entryCount;
+        workoutCount++;
+    }
+
+    @Override
+    public void beginExercise(Long exerciseId, String name, String imageUrl, List<String> targetMuscles) {
+        Integer index = exerciseIndex.get(exerciseId);
+        if (index == null) {
+            if (exerciseCount == exercises.length) {
+                exercises = Arrays.copyOf(exercises, exerciseCount * 2);
+            }
+            index = exerciseCount++;
+            exercises[index] = new ExerciseInfo(exerciseId, name, imageUrl,
+                    targetMuscles != null ? List.copyOf(targetMuscles) : null);
+            exerciseIndex.put(exerciseId, index);
+        }
+
+        if (entryCount == entryExercise.length) {
+            entryExercise = Arrays.copyOf(entryExercise, entryCount * 2);
+            entryEnd = Arrays.copyOf(entryEnd, entryCount * 2);
+        }
+        entryExercise[entryCount] = index;
+        entryEnd[entryCount] = setCount;
+        entryCount++;
+        workoutEnd[workoutCount - 1] = entryCount;
+    }
+
+    @Override
+    public void addSet(boolean completed, boolean weighted, double weight, int reps) {
+        if (setCount == setExercise.length) {
+            setExercise = Arrays.copyOf(setExercise, setCount * 2);
+            this.weight = Arrays.copyOf(this.weight, setCount * 2);
+            this.reps = Arrays.copyOf(this.reps, setCount * 2);
+        }
+        if ((setCount >>> 6) == this.completed.length) {
+            this.completed = Arrays.copyOf(this.completed, this.completed.length * 2);
+        }
+
+        setExercise[setCount] = entryExercise[entryCount - 1];
+        this.weight[setCount] = (float) weight;
+        this.reps[setCount] = (short) Math.min(reps, Short.MAX_VALUE);
+        if (completed) {
+            this.completed[setCount >>> 6] |= 1L << setCount;
+        }
+        setCount++;
+        entryEnd[entryCount - 1] = setCount;
+    }
+
+    @Override
+    public void endExercise() {
+    }
+
+    /**
+     * Make everything visited so far visible to scans
+     */
+    public void publish() {
+        published = snapshot();
+    }
+
+    /**
+     * Add a finished workout and publish it; safe while other threads scan
+     */
+    public synchronized void append(HistorySnapshot.WorkoutEntry workout) {
+        HistorySnapshot.replay(workout, this);
+        publish();
+    }
+
+    // ==================== Scans ====================
+
+    public int getWorkoutCount() {
+        return published.workoutCount;
+    }
+
+    public int getSetCount() {
+        return published.setCount;
+    }
+
+    public int getTotalUniqueExercises() {
+        return published.exerciseCount;
+    }
+
+    public List<ExerciseFrequencyDTO> mostFrequentExercises(int limit) {
+        Columns c = published;
+        ExerciseTotals totals = exerciseTotals(c);
+
+        Integer[] order = new Integer[c.exerciseCount];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(totals.count[b], totals.count[a]));
+
+        List<ExerciseFrequencyDTO> frequent = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, order.length); i++) {
+            int e = order[i];
+            frequent.add(ExerciseFrequencyDTO.builder()
+                    .exerciseId(c.exercises[e].id())
+                    .exerciseName(c.exercises[e].name())
+                    .imageUrl(c.exercises[e].imageUrl())
+                    .count(totals.count[e])
+                    .totalSets(totals.sets[e])
+                    .totalVolume(totals.volume[e])
+                    .build());
+        }
+        return frequent;
+    }
+
+    public Map<String, MuscleGroupStatsDTO> muscleGroupDistribution() {
+        Columns c = published;
+        ExerciseTotals totals = exerciseTotals(c);
+        Map<String, MuscleGroupStatsDTO> stats = new HashMap<>();
+
+        for (int e = 0; e < c.exerciseCount; e++) {
+            List<String> muscles = c.exercises[e].targetMuscles();
+            if (muscles == null) {
+                continue;
+            }
+            for (String muscle : muscles) {
+                MuscleGroupStatsDTO muscleStats = stats.computeIfAbsent(muscle, MuscleGroupStatsDTO::new);
+                muscleStats.setWorkoutCount(muscleStats.getWorkoutCount() + totals.count[e]);
+                muscleStats.addSets(totals.sets[e]);
+                muscleStats.addVolume(totals.volume[e]);
+            }
+        }
+
+        return stats;
+    }
+
+    public Map<String, Integer> workoutsByDayOfWeek() {
+        Columns c = published;
+        int[] counts = new int[7];
+
+        // Epoch day 0 was a Thursday, so day d falls on ordinal (d + 3) % 7
+        for (int w = 0; w < c.workoutCount; w++) {
+            counts[(int) Math.floorMod(c.workoutDay[w] + 3, 7L)]++;
+        }
+
+        Map<String, Integer> byDay = new LinkedHashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byDay.put(day.name(), counts[day.ordinal()]);
+        }
+        return byDay;
+    }
+
+    /**
+     * Approximate heap size of the columns, including spare capacity
+     */
+    public long footprintBytes() {
+        Columns c = published;
+        return 8L * c.workoutDay.length + 4L * c.workoutEnd.length
+                + 4L * c.entryExercise.length + 4L * c.entryEnd.length
+                + 4L * c.setExercise.length + 4L * c.weight.length + 2L * c.reps.length + 8L * c.completed.length
+                + (long) EXERCISE_INFO_BYTES * c.exerciseCount;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Columns snapshot() {
+        return new Columns(exercises, exerciseCount, workoutDay, workoutEnd, workoutCount,
+                entryExercise, entryEnd, entryCount, setExercise, weight, reps, completed, setCount);
+    }
+
+    private static ExerciseTotals exerciseTotals(Columns c) {
+        ExerciseTotals totals = new ExerciseTotals(c.exerciseCount);
+
+        for (int i = 0; i < c.entryCount; i++) {
+            int e = c.entryExercise[i];
+            totals.count[e]++;
+            totals.sets[e] += c.entryEnd[i] - (i == 0 ? 0 : c.entryEnd[i - 1]);
+        }
+
+        for (int s = 0; s < c.setCount; s++) {
+            if ((c.completed[s >>> 6] & (1L << s)) != 0) {
+                totals.volume[c.setExercise[s]] += (double) c.weight[s] * c.reps[s];
+            }
+        }
+
+        return totals;
+    }
+
+    // Arrays may be longer than the counts; rows past the counts are not part of the view
+    private record Columns(
+            ExerciseInfo[] exercises,
+            int exerciseCount,
+            long[] workoutDay,
+            int[] workoutEnd,
+            int workoutCount,
+            int[] entryExercise,
+            int[] entryEnd,
+            int entryCount,
+            int[] setExercise,
+            float[] weight,
+            short[] reps,
+            long[] completed,
+            int setCount
+    ) {
+    }
+
+    private static final class ExerciseTotals {
+        final int[] count;
+        final int[] sets;
+        final double[] volume;
+
+        ExerciseTotals(int exercises) {
+            count = new int[exercises];
+            sets = new int[exercises];
+            volume = new double[exercises];
+        }
+    }
+}
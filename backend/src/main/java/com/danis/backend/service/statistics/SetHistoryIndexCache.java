@@ -0,0 +1,115 @@
+package com.danis.backend.service.statistics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link SetHistoryIndex} of recently active users, built from the database on first use.
+ *
+ * <p>Indexes are weighed by their footprint in bytes, dropped after a period without use and held
+ * softly, so the garbage collector can reclaim them under memory pressure. Finished workouts are
+ * appended to a cached index; any other change to a user's history drops it. The summed footprint
+ * is published as {@code statistics.index.footprint}, cache counts with the tag
+ * {@code cache=set-history-index}.
+ */
+@Component
+public class SetHistoryIndexCache {
+
+    private final Cache<Long, SetHistoryIndex> cache;
+    private final WorkoutHistoryStreamer historyStreamer;
+
+    // Bumped on every change, so an index built while a workout was finished is not cached.
+    // Forgotten after the idle time, like the indexes that depend on them.
+    private final Cache<Long, AtomicLong> versions;
+
+    public SetHistoryIndexCache(
+            WorkoutHistoryStreamer historyStreamer,
+            MeterRegistry meterRegistry,
+            @Value("${statistics.index.max-bytes}") long maxBytes,
+            @Value("${statistics.index.idle-minutes}") long idleMinutes
+    ) {
+        this.historyStreamer = historyStreamer;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, SetHistoryIndex index) ->
+                        (int) Math.min(Integer.MAX_VALUE, index.footprintBytes()))
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .softValues()
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "set-history-index");
+        Gauge.builder("statistics.index.footprint", this, SetHistoryIndexCache::footprintBytes)
+                .baseUnit("bytes")
+                .description("Approximate heap size of the cached set history indexes")
+                .register(meterRegistry);
+    }
+
+    public SetHistoryIndex get(Long userId) {
+        SetHistoryIndex cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = version(userId);
+        SetHistoryIndex built = historyStreamer.streamCompleted(userId, true, new SetHistoryIndex());
+        built.publish();
+
+        // Atomic with the listeners below: either the change is seen here, or the index is cached first
+        cache.asMap().compute(userId, (id, existing) -> version(id) == version ? built : existing);
+        return built;
+    }
+
+    public long footprintBytes() {
+        return cache.asMap().values().stream()
+                .mapToLong(SetHistoryIndex::footprintBytes)
+                .sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkoutFinished(WorkoutFinishedEvent event) {
+        // Returning the same index re-weighs it
+        cache.asMap().compute(event.userId(), (id, index) -> {
+            bump(id);
+            if (index != null) {
+                index.append(event.workout());
+            }
+            return index;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatisticsChanged(StatisticsChangedEvent event) {
+        // The index holds completed workouts only, in-progress edits leave it valid
+        if (!event.historyChanged()) {
+            return;
+        }
+        cache.asMap().compute(event.userId(), (id, index) -> {
+            bump(id);
+            return null;
+        });
+    }
+
+    // ==================== Helper Methods ====================
+
+    private long version(Long userId) {
+        AtomicLong version = versions.getIfPresent(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    private void bump(Long userId) {
+        versions.get(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
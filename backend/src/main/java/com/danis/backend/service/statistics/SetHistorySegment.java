@@ -0,0 +1,251 @@
+package com.danis.backend.service.statistics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable segment file of a user's completed history, read through a memory mapped buffer.
+ *
+ * <p>The file holds a header followed by one column after the other, little endian:
+ * <pre>
+ * int magic, int workouts, int entries, int sets
+ * long[workouts] workout id, long[workouts] finish time, long[workouts] start time, int[workouts] entry end
+ * long[entries]  exercise id, int[entries] set end
+ * float[sets]    weight, short[sets] reps, byte[sets] flags
+ * </pre>
+ * Times are epoch seconds of the local date time, {@link Long#MIN_VALUE} for a missing start.
+ * Entries are the workouts' exercises; end offsets are cumulative within the segment.
+ */
+final class SetHistorySegment {
+
+    private static final int MAGIC = 0x4B545331; // "KTS1"
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final byte COMPLETED = 1;
+    private static final byte WEIGHTED = 2;
+
+    private final ByteBuffer buffer;
+    private final int workouts;
+    private final int entries;
+    private final int sets;
+
+    // Column offsets
+    private final int workoutIdAt;
+    private final int finishedAt;
+    private final int startedAt;
+    private final int entryEndAt;
+    private final int exerciseIdAt;
+    private final int setEndAt;
+    private final int weightAt;
+    private final int repsAt;
+    private final int flagsAt;
+
+    private SetHistorySegment(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a history segment");
+        }
+
+        this.buffer = buffer;
+        this.workouts = buffer.getInt(4);
+        this.entries = buffer.getInt(8);
+        this.sets = buffer.getInt(12);
+
+        workoutIdAt = HEADER_BYTES;
+        finishedAt = workoutIdAt + workouts * Long.BYTES;
+        startedAt = finishedAt + workouts * Long.BYTES;
+        entryEndAt = startedAt + workouts * Long.BYTES;
+        exerciseIdAt = entryEndAt + workouts * Integer.BYTES;
+        setEndAt = exerciseIdAt + entries * Long.BYTES;
+        weightAt = setEndAt + entries * Integer.BYTES;
+        repsAt = weightAt + sets * Float.BYTES;
+        flagsAt = repsAt + sets * Short.BYTES;
+    }
+
+    static SetHistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SetHistorySegment(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    int getSetCount() {
+        return sets;
+    }
+
+    boolean containsWorkout(long workoutId) {
+        for (int w = 0; w < workouts; w++) {
+            if (buffer.getLong(workoutIdAt + w * Long.BYTES) == workoutId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feed the segment to a visitor, naming exercises from the store's dictionary
+     */
+    <V extends HistoryVisitor> V replay(V visitor, Map<Long, SetHistoryIndex.ExerciseInfo> exercises) {
+        int entry = 0;
+        int set = 0;
+
+        for (int w = 0; w < workouts; w++) {
+            long started = buffer.getLong(startedAt + w * Long.BYTES);
+            visitor.beginWorkout(
+                    buffer.getLong(workoutIdAt + w * Long.BYTES),
+                    started != NO_TIME ? LocalDateTime.ofEpochSecond(started, 0, ZoneOffset.UTC) : null,
+                    LocalDateTime.ofEpochSecond(buffer.getLong(finishedAt + w * Long.BYTES), 0, ZoneOffset.UTC));
+
+            int entryEnd = buffer.getInt(entryEndAt + w * Integer.BYTES);
+            for (; entry < entryEnd; entry++) {
+                long exerciseId = buffer.getLong(exerciseIdAt + entry * Long.BYTES);
+                SetHistoryIndex.ExerciseInfo info = exercises.get(exerciseId);
+                visitor.beginExercise(exerciseId,
+                        info != null ? info.name() : null,
+                        info != null ? info.imageUrl() : null,
+                        info != null ? info.targetMuscles() : null);
+
+                int setEnd = buffer.getInt(setEndAt + entry * Integer.BYTES);
+                for (; set < setEnd; set++) {
+                    byte flags = buffer.get(flagsAt + set);
+                    visitor.addSet(
+                            (flags & COMPLETED) != 0,
+                            (flags & WEIGHTED) != 0,
+                            buffer.getFloat(weightAt + set * Float.BYTES),
+                            buffer.getShort(repsAt + set * Short.BYTES)
+                    );
+                }
+
+                visitor.endExercise();
+            }
+        }
+
+        return visitor;
+    }
+
+    /**
+     * Columns of a segment being written, collected from a visitor
+     */
+    static final class Writer implements HistoryVisitor {
+
+        private long[] workoutIds = new long[16];
+        private long[] finishTimes = new long[16];
+        private long[] startTimes = new long[16];
+        private int[] entryEnds = new int[16];
+        private int workoutCount;
+
+        private long[] exerciseIds = new long[16];
+        private int[] setEnds = new int[16];
+        private int entryCount;
+
+        private float[] weights = new float[16];
+        private short[] reps = new short[16];
+        private byte[] flags = new byte[16];
+        private int setCount;
+
+        @Override
+        public void beginWorkout(LocalDateTime startedAt, LocalDateTime finishedAt) {
+            beginWorkout(null, startedAt, finishedAt);
+        }
+
+        @Override
+        public void beginWorkout(Long workoutId, LocalDateTime startedAt, LocalDateTime finishedAt) {
+            if (workoutCount == workoutIds.length) {
+                workoutIds = Arrays.copyOf(workoutIds, workoutCount * 2);
+                finishTimes = Arrays.copyOf(finishTimes, workoutCount * 2);
+                startTimes = Arrays.copyOf(startTimes, workoutCount * 2);
+                entryEnds = Arrays.copyOf(entryEnds, workoutCount * 2);
+            }
+            workoutIds[workoutCount] = workoutId != null ? workoutId : 0L;
+            finishTimes[workoutCount] = finishedAt.toEpochSecond(ZoneOffset.UTC);
+            startTimes[workoutCount] = startedAt != null ? startedAt.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+            entryEnds[workoutCount] = entryCount;
+            workoutCount++;
+        }
+
+        @Override
+        public void beginExercise(Long exerciseId, String name, String imageUrl, List<String> targetMuscles) {
+            if (entryCount == exerciseIds.length) {
+                exerciseIds = Arrays.copyOf(exerciseIds, entryCount * 2);
+                setEnds = Arrays.copyOf(setEnds, entryCount * 2);
+            }
+            exerciseIds[entryCount] = exerciseId;
+            setEnds[entryCount] = setCount;
+            entryCount++;
+            entryEnds[workoutCount - 1] = entryCount;
+        }
+
+        @Override
+        public void addSet(boolean completed, boolean weighted, double weight, int reps) {
+            if (setCount == weights.length) {
+                weights = Arrays.copyOf(weights, setCount * 2);
+                this.reps = Arrays.copyOf(this.reps, setCount * 2);
+                flags = Arrays.copyOf(flags, setCount * 2);
+            }
+            weights[setCount] = (float) weight;
+            this.reps[setCount] = (short) Math.min(reps, Short.MAX_VALUE);
+            flags[setCount] = (byte) ((completed ? COMPLETED : 0) | (weighted ? WEIGHTED : 0));
+            setCount++;
+            setEnds[entryCount - 1] = setCount;
+        }
+
+        @Override
+        public void endExercise() {
+        }
+
+        boolean isEmpty() {
+            return workoutCount == 0;
+        }
+
+        int getSetCount() {
+            return setCount;
+        }
+
+        /**
+         * Write the segment next to its final name and move it into place, so readers never see part of it
+         */
+        void writeTo(Path file) throws IOException {
+            int size = HEADER_BYTES
+                    + workoutCount * (3 * Long.BYTES + Integer.BYTES)
+                    + entryCount * (Long.BYTES + Integer.BYTES)
+                    + setCount * (Float.BYTES + Short.BYTES + 1);
+            ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(MAGIC).putInt(workoutCount).putInt(entryCount).putInt(setCount);
+            out.asLongBuffer().put(workoutIds, 0, workoutCount);
+            out.position(out.position() + workoutCount * Long.BYTES);
+            out.asLongBuffer().put(finishTimes, 0, workoutCount);
+            out.position(out.position() + workoutCount * Long.BYTES);
+            out.asLongBuffer().put(startTimes, 0, workoutCount);
+            out.position(out.position() + workoutCount * Long.BYTES);
+            out.asIntBuffer().put(entryEnds, 0, workoutCount);
+            out.position(out.position() + workoutCount * Integer.BYTES);
+            out.asLongBuffer().put(exerciseIds, 0, entryCount);
+            out.position(out.position() + entryCount * Long.BYTES);
+            out.asIntBuffer().put(setEnds, 0, entryCount);
+            out.position(out.position() + entryCount * Integer.BYTES);
+            out.asFloatBuffer().put(weights, 0, setCount);
+            out.position(out.position() + setCount * Float.BYTES);
+            out.asShortBuffer().put(reps, 0, setCount);
+            out.position(out.position() + setCount * Short.BYTES);
+            out.put(flags, 0, setCount);
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, out.array());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
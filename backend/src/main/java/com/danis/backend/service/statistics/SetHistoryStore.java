@@ -0,0 +1,379 @@
+package com.danis.backend.service.statistics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Optional on-disk copy of users' completed histories for analytics over long histories,
+ * enabled with {@code statistics.store.enabled=true}.
+ *
+ * <p>Each user has a directory of append-only {@link SetHistorySegment} files, an exercise
+ * dictionary and a marker written once the initial build from the database is complete.
+ * Segments are memory mapped when replayed, so a history of any length is scanned without
+ * holding it on the heap, and the OS page cache keeps the files of active users in memory.
+ *
+ * <p>A finished workout is written as a new segment; once a user has too many segments they are
+ * merged. Any other change to the completed history deletes the user's files, to be rebuilt on next
+ * use; edits of a workout in progress leave them as they are.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "statistics.store.enabled", havingValue = "true")
+public class SetHistoryStore {
+
+    // Sets per segment written by a build, which bounds the heap used while writing
+    private static final int SEGMENT_SETS = 1 << 16;
+    private static final int MAX_SEGMENTS = 32;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String EXERCISES_FILE = "exercises.dat";
+    private static final String COMPLETE_FILE = "complete";
+
+    private final Path directory;
+    private final WorkoutHistoryStreamer historyStreamer;
+
+    // Readers replay under the read lock; builds, appends and deletes take the write lock.
+    // A user's lock is removed with the user's files.
+    private final Map<Long, ReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    public SetHistoryStore(
+            WorkoutHistoryStreamer historyStreamer,
+            @Value("${statistics.store.directory}") String directory
+    ) throws IOException {
+        this.historyStreamer = historyStreamer;
+        this.directory = Files.createDirectories(Path.of(directory));
+    }
+
+    /**
+     * Feed the user's completed history to a visitor, building the user's files first if needed
+     */
+    public <V extends HistoryVisitor> V replay(Long userId, V visitor) {
+        Path userDirectory = userDirectory(userId);
+
+        try {
+            // The files may be deleted again between the build and the read, hence the loop
+            while (true) {
+                Lock readLock = acquire(userId, ReadWriteLock::readLock);
+                try {
+                    if (Files.exists(userDirectory.resolve(COMPLETE_FILE))) {
+                        Map<Long, SetHistoryIndex.ExerciseInfo> exercises = readExercises(userDirectory);
+                        for (Path file : segmentFiles(userDirectory)) {
+                            SetHistorySegment.open(file).replay(visitor, exercises);
+                        }
+                        return visitor;
+                    }
+                } finally {
+                    readLock.unlock();
+                }
+
+                Lock writeLock = acquire(userId, ReadWriteLock::writeLock);
+                try {
+                    if (!Files.exists(userDirectory.resolve(COMPLETE_FILE))) {
+                        build(userId, userDirectory);
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the history store of user " + userId, e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkoutFinished(WorkoutFinishedEvent event) {
+        Long userId = event.userId();
+        Path userDirectory = userDirectory(userId);
+
+        Lock writeLock = acquire(userId, ReadWriteLock::writeLock);
+        try {
+            if (!Files.exists(userDirectory.resolve(COMPLETE_FILE))) {
+                return;
+            }
+
+            // A build that started after the workout was committed already holds it
+            List<Path> segments = segmentFiles(userDirectory);
+            for (Path file : segments) {
+                if (SetHistorySegment.open(file).containsWorkout(event.workout().id())) {
+                    return;
+                }
+            }
+
+            Map<Long, SetHistoryIndex.ExerciseInfo> exercises = readExercises(userDirectory);
+            SetHistorySegment.Writer writer = new SetHistorySegment.Writer();
+            HistorySnapshot.replay(event.workout(), new Recorder(writer, exercises));
+
+            writer.writeTo(userDirectory.resolve(segmentName(nextSegment(segments))));
+            writeExercises(userDirectory, exercises);
+
+            if (segments.size() + 1 > MAX_SEGMENTS) {
+                compact(userId, userDirectory, exercises);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping the history store of user {} after a failed append", userId, e);
+            delete(userDirectory);
+            locks.remove(userId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatisticsChanged(StatisticsChangedEvent event) {
+        // The files hold completed workouts only, in-progress edits leave them valid
+        if (!event.historyChanged()) {
+            return;
+        }
+
+        Lock writeLock = acquire(event.userId(), ReadWriteLock::writeLock);
+        try {
+            delete(userDirectory(event.userId()));
+            // Nothing is left to guard until the next build
+            locks.remove(event.userId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void build(Long userId, Path userDirectory) throws IOException {
+        delete(userDirectory);
+        Files.createDirectories(userDirectory);
+
+        Map<Long, SetHistoryIndex.ExerciseInfo> exercises = new HashMap<>();
+        SegmentingWriter writer = new SegmentingWriter(userDirectory, exercises);
+        historyStreamer.streamCompleted(userId, true, writer);
+        writer.flush();
+
+        writeExercises(userDirectory, exercises);
+        Files.createFile(userDirectory.resolve(COMPLETE_FILE));
+    }
+
+    /**
+     * Merge all segments into as few as a build would write
+     */
+    private void compact(Long userId, Path userDirectory, Map<Long, SetHistoryIndex.ExerciseInfo> exercises)
+            throws IOException {
+        Path merged = directory.resolve(userId + ".compacting");
+        delete(merged);
+        Files.createDirectories(merged);
+
+        SegmentingWriter writer = new SegmentingWriter(merged, new HashMap<>());
+        for (Path file : segmentFiles(userDirectory)) {
+            SetHistorySegment.open(file).replay(writer, exercises);
+        }
+        writer.flush();
+
+        writeExercises(merged, exercises);
+        Files.createFile(merged.resolve(COMPLETE_FILE));
+
+        Path old = directory.resolve(userId + ".old");
+        Files.move(userDirectory, old, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(merged, userDirectory, StandardCopyOption.ATOMIC_MOVE);
+        delete(old);
+    }
+
+    private Map<Long, SetHistoryIndex.ExerciseInfo> readExercises(Path userDirectory) throws IOException {
+        Map<Long, SetHistoryIndex.ExerciseInfo> exercises = new HashMap<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(userDirectory.resolve(EXERCISES_FILE))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                String name = in.readUTF();
+                String imageUrl = in.readBoolean() ? in.readUTF() : null;
+                int muscleCount = in.readInt();
+                List<String> muscles = null;
+                if (muscleCount >= 0) {
+                    muscles = new ArrayList<>(muscleCount);
+                    for (int m = 0; m < muscleCount; m++) {
+                        muscles.add(in.readUTF());
+                    }
+                }
+                exercises.put(id, new SetHistoryIndex.ExerciseInfo(id, name, imageUrl, muscles));
+            }
+        }
+
+        return exercises;
+    }
+
+    private void writeExercises(Path userDirectory, Map<Long, SetHistoryIndex.ExerciseInfo> exercises)
+            throws IOException {
+        Path file = userDirectory.resolve(EXERCISES_FILE);
+        Path temp = userDirectory.resolve(EXERCISES_FILE + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(exercises.size());
+            for (SetHistoryIndex.ExerciseInfo exercise : exercises.values()) {
+                out.writeLong(exercise.id());
+                out.writeUTF(exercise.name() != null ? exercise.name() : "");
+                out.writeBoolean(exercise.imageUrl() != null);
+                if (exercise.imageUrl() != null) {
+                    out.writeUTF(exercise.imageUrl());
+                }
+                if (exercise.targetMuscles() == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(exercise.targetMuscles().size());
+                    for (String muscle : exercise.targetMuscles()) {
+                        out.writeUTF(muscle);
+                    }
+                }
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<Path> segmentFiles(Path userDirectory) throws IOException {
+        if (!Files.isDirectory(userDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(userDirectory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && !name.endsWith(".tmp");
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private int nextSegment(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        String last = segments.get(segments.size() - 1).getFileName().toString();
+        return Integer.parseInt(last.substring(SEGMENT_PREFIX.length(), last.length() - ".dat".length())) + 1;
+    }
+
+    private static String segmentName(int number) {
+        return String.format("%s%08d.dat", SEGMENT_PREFIX, number);
+    }
+
+    private Path userDirectory(Long userId) {
+        return directory.resolve(userId.toString());
+    }
+
+    // Lock the user's entry; a lock removed from the map while waiting for it guards nothing, so retry
+    private Lock acquire(Long userId, Function<ReadWriteLock, Lock> side) {
+        while (true) {
+            ReadWriteLock lock = locks.computeIfAbsent(userId, id -> new ReentrantReadWriteLock());
+            Lock acquired = side.apply(lock);
+            acquired.lock();
+            if (locks.get(userId) == lock) {
+                return acquired;
+            }
+            acquired.unlock();
+        }
+    }
+
+    private void delete(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + path, e);
+        }
+    }
+
+    /**
+     * Passes a history on to a segment writer while adding its exercises to the dictionary
+     */
+    private static class Recorder implements HistoryVisitor {
+        HistoryVisitor writer;
+        final Map<Long, SetHistoryIndex.ExerciseInfo> exercises;
+
+        Recorder(HistoryVisitor writer, Map<Long, SetHistoryIndex.ExerciseInfo> exercises) {
+            this.writer = writer;
+            this.exercises = exercises;
+        }
+
+        @Override
+        public void beginWorkout(LocalDateTime startedAt, LocalDateTime finishedAt) {
+            beginWorkout(null, startedAt, finishedAt);
+        }
+
+        @Override
+        public void beginWorkout(Long workoutId, LocalDateTime startedAt, LocalDateTime finishedAt) {
+            writer.beginWorkout(workoutId, startedAt, finishedAt);
+        }
+
+        @Override
+        public void beginExercise(Long exerciseId, String name, String imageUrl, List<String> targetMuscles) {
+            exercises.putIfAbsent(exerciseId, new SetHistoryIndex.ExerciseInfo(exerciseId, name, imageUrl,
+                    targetMuscles != null ? List.copyOf(targetMuscles) : null));
+            writer.beginExercise(exerciseId, name, imageUrl, targetMuscles);
+        }
+
+        @Override
+        public void addSet(boolean completed, boolean weighted, double weight, int reps) {
+            writer.addSet(completed, weighted, weight, reps);
+        }
+
+        @Override
+        public void endExercise() {
+            writer.endExercise();
+        }
+    }
+
+    /**
+     * Writes a history as consecutive segments of about {@link #SEGMENT_SETS} sets,
+     * starting a new one only between workouts
+     */
+    private static class SegmentingWriter extends Recorder {
+        private final Path userDirectory;
+        private int segment;
+
+        SegmentingWriter(Path userDirectory, Map<Long, SetHistoryIndex.ExerciseInfo> exercises) {
+            super(new SetHistorySegment.Writer(), exercises);
+            this.userDirectory = userDirectory;
+        }
+
+        private SetHistorySegment.Writer current() {
+            return (SetHistorySegment.Writer) writer;
+        }
+
+        @Override
+        public void beginWorkout(Long workoutId, LocalDateTime startedAt, LocalDateTime finishedAt) {
+            if (current().getSetCount() >= SEGMENT_SETS) {
+                flush();
+            }
+            super.beginWorkout(workoutId, startedAt, finishedAt);
+        }
+
+        void flush() {
+            if (current().isEmpty()) {
+                return;
+            }
+            try {
+                current().writeTo(userDirectory.resolve(segmentName(segment++)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            writer = new SetHistorySegment.Writer();
+        }
+    }
+}
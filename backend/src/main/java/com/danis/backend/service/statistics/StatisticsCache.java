@@ -0,0 +1,255 @@
+package com.danis.backend.service.statistics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-process cache of computed statistics, keyed by user and view
+ * (e.g. an overview with a given set of sections).
+ *
+ * <p>Entries are held per user, so a user's entries are dropped together. They are weighed by their
+ * size, e.g. the workouts behind an overview or the elements of a list, and expire after a fixed time,
+ * which also bounds how stale time relative values like the current streak can get.
+ * A user's entries are dropped once a transaction publishing a {@link StatisticsChangedEvent}
+ * or {@link WorkoutFinishedEvent} for them commits. Hit, miss and eviction counts are published
+ * as {@code cache.*} metrics with the tag {@code cache=statistics}.
+ *
+ * <p>Concurrent misses for the same user, view and data version are coalesced: the first caller
+ * loads the value and the others wait for its result instead of loading it again. Callers served
+ * that way are counted as {@code statistics.requests.coalesced}. Callers run inside a transaction and
+ * hold a connection while they wait, so the wait is bounded: past it a caller loads the value itself,
+ * counted as {@code statistics.requests.coalesce-timeouts}.
+ */
+@Component
+public class StatisticsCache {
+
+    // Returned by await when the leader did not finish in time
+    private static final Object TIMED_OUT = new Object();
+
+    // View -> entry, per user. Each entry keeps its own expiry; a user's map expires with its newest entry.
+    private final Cache<Long, Map<String, Entry>> cache;
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final long ttlNanos;
+
+    // Bumped on every invalidation, so a computation that raced with a change is not cached.
+    // Kept as long as an entry could be, a user's version is forgotten once nothing cached depends on it.
+    private final Cache<Long, AtomicLong> versions;
+
+    // Loads in progress; an entry is removed once its load completes
+    private final Map<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter coalesceTimeouts;
+    private final long coalesceWaitMs;
+
+    public StatisticsCache(
+            MeterRegistry meterRegistry,
+            @Value("${statistics.cache.max-weight}") long maxWeight,
+            @Value("${statistics.cache.ttl-minutes}") long ttlMinutes,
+            @Value("${statistics.cache.coalesce-wait-ms}") long coalesceWaitMs
+    ) {
+        this.coalesceWaitMs = coalesceWaitMs;
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        // Hits and misses are of views, so they are recorded by get rather than by the per-user cache
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long userId, Map<String, Entry> views) ->
+                        (int) Math.min(Integer.MAX_VALUE, views.values().stream().mapToLong(Entry::weight).sum()))
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats(() -> stats)
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "statistics");
+        this.coalesced = Counter.builder("statistics.requests.coalesced")
+                .description("Statistics requests served by another request's computation")
+                .register(meterRegistry);
+        this.coalesceTimeouts = Counter.builder("statistics.requests.coalesce-timeouts")
+                .description("Statistics requests that stopped waiting for another request's computation")
+                .register(meterRegistry);
+        Gauge.builder("statistics.requests.in-flight", inFlight, Map::size)
+                .description("Statistics computations in progress")
+                .register(meterRegistry);
+    }
+
+    public <T> T get(Long userId, String view, Supplier<T> loader) {
+        return get(userId, view, loader, value -> true);
+    }
+
+    /**
+     * @param cacheable whether a freshly loaded value may be cached, e.g. only complete results
+     */
+    public <T> T get(Long userId, String view, Supplier<T> loader, Predicate<? super T> cacheable) {
+        return get(userId, view, loader, cacheable, StatisticsCache::sizeOf);
+    }
+
+    /**
+     * @param weigher the size of a loaded value, at least 1
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(
+            Long userId,
+            String view,
+            Supplier<T> loader,
+            Predicate<? super T> cacheable,
+            ToIntFunction<? super T> weigher
+    ) {
+        Key key = new Key(userId, view);
+
+        Map<String, Entry> views = cache.asMap().get(userId);
+        Entry cached = views != null ? views.get(view) : null;
+        if (cached != null && !cached.expired()) {
+            stats.recordHits(1);
+            return (T) cached.value();
+        }
+        stats.recordMisses(1);
+
+        long version = version(userId);
+        Flight flight = new Flight(key, version);
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flight, pending);
+        if (leader != null) {
+            coalesced.increment();
+            Object shared = await(leader);
+            if (shared != TIMED_OUT) {
+                return (T) shared;
+            }
+            // The leader is slow; load alongside it rather than hold the connection idle any longer
+            coalesceTimeouts.increment();
+            return load(key, version, loader, cacheable, weigher);
+        }
+
+        try {
+            T value = load(key, version, loader, cacheable, weigher);
+            pending.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, pending);
+        }
+    }
+
+    /**
+     * Current data version of a user's statistics; changes whenever they are invalidated
+     */
+    public long version(Long userId) {
+        AtomicLong version = versions.getIfPresent(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    public void invalidate(Long userId) {
+        // Atomic with caching a loaded value: either the change is seen there, or the value is dropped here
+        cache.asMap().compute(userId, (id, views) -> {
+            versions.get(id, key -> new AtomicLong()).incrementAndGet();
+            return null;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatisticsChanged(StatisticsChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkoutFinished(WorkoutFinishedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private <T> T load(
+            Key key,
+            long version,
+            Supplier<T> loader,
+            Predicate<? super T> cacheable,
+            ToIntFunction<? super T> weigher
+    ) {
+        T value = loader.get();
+        if (cacheable.test(value)) {
+            Entry entry = new Entry(value, Math.max(1, weigher.applyAsInt(value)), System.nanoTime() + ttlNanos);
+            cache.asMap().compute(key.userId(), (id, views) -> {
+                if (version(id) != version) {
+                    return views;
+                }
+                Map<String, Entry> updated = new HashMap<>();
+                if (views != null) {
+                    views.forEach((view, cached) -> {
+                        if (!cached.expired()) {
+                            updated.put(view, cached);
+                        }
+                    });
+                }
+                updated.put(key.view(), entry);
+                return Map.copyOf(updated);
+            });
+        }
+        return value;
+    }
+
+    // The leader's result, or TIMED_OUT once the wait is over; the leader itself is not cancelled
+    private Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.copy().orTimeout(coalesceWaitMs, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                return TIMED_OUT;
+            }
+            // Rethrow the leader's failure as is
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Elements of a collection or map, 1 for anything else
+    private static int sizeOf(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return 1;
+    }
+
+    private record Key(Long userId, String view) {
+    }
+
+    private record Flight(Key key, long version) {
+    }
+
+    private record Entry(Object value, int weight, long expiresAt) {
+
+        boolean expired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
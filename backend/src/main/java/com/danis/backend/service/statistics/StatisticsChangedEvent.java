@@ -0,0 +1,20 @@
+package com.danis.backend.service.statistics;
+
+/**
+ * Published when data behind a user's statistics changes.
+ * {@code historyChanged} is false when only an in-progress workout changed, which leaves
+ * the completed history, and what is derived from it alone, as it was.
+ */
+public record StatisticsChangedEvent(Long userId, boolean historyChanged) {
+
+    public StatisticsChangedEvent(Long userId) {
+        this(userId, true);
+    }
+
+    /**
+     * A change to a workout still in progress, e.g. a set edit
+     */
+    public static StatisticsChangedEvent inProgress(Long userId) {
+        return new StatisticsChangedEvent(userId, false);
+    }
+}
@@ -0,0 +1,59 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Parts of the statistics overview that can be requested separately,
+ * e.g. {@code GET /api/statistics/overview?sections=prs,muscles}
+ */
+public enum StatisticsSection {
+    TOTALS("totals"),           // all time totals and average duration
+    RECENT("recent"),           // last 30 days
+    STREAKS("streaks"),
+    EXERCISES("exercises"),     // unique and most frequent exercises
+    MUSCLES("muscles"),
+    WEEKDAYS("weekdays"),
+    PRS("prs");
+
+    private final String param;
+
+    StatisticsSection(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public static Set<StatisticsSection> all() {
+        return EnumSet.allOf(StatisticsSection.class);
+    }
+
+    /**
+     * Parse request parameter values; no values means every section
+     */
+    public static Set<StatisticsSection> parse(Collection<String> params) {
+        if (params == null || params.isEmpty()) {
+            return all();
+        }
+
+        Set<StatisticsSection> sections = EnumSet.noneOf(StatisticsSection.class);
+        for (String param : params) {
+            sections.add(fromParam(param.trim()));
+        }
+        return sections;
+    }
+
+    private static StatisticsSection fromParam(String param) {
+        for (StatisticsSection section : values()) {
+            if (section.param.equalsIgnoreCase(param)) {
+                return section;
+            }
+        }
+        throw new ValidationException("Unknown statistics section: " + param);
+    }
+}
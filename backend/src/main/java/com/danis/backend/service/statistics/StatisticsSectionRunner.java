@@ -0,0 +1,101 @@
+package com.danis.backend.service.statistics;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Computes independent statistics sections concurrently on a bounded pool and waits for them
+ * until a per-request deadline. Sections still running at the deadline, or rejected by a saturated
+ * pool, are reported as pending; results finishing later are discarded.
+ *
+ * <p>Tasks must not touch the persistence context, as they run outside the caller's transaction;
+ * compute them from a {@link SetHistoryIndex} or {@link HistorySnapshot}.
+ */
+@Component
+public class StatisticsSectionRunner {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final long deadlineMillis;
+
+    public StatisticsSectionRunner(
+            @Value("${statistics.overview.threads}") int threads,
+            @Value("${statistics.overview.queue-capacity}") int queueCapacity,
+            @Value("${statistics.overview.deadline-ms}") long deadlineMillis
+    ) {
+        this.deadlineMillis = deadlineMillis;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("statistics-");
+        // Never run a section on the request thread, which would not be held to the deadline
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+    }
+
+    /**
+     * Run the tasks and hand each finished result to {@code onResult} on the calling thread.
+     *
+     * @return the sections that were rejected or did not finish before the deadline
+     */
+    public <T> Set<StatisticsSection> computeAll(
+            Map<StatisticsSection, Supplier<T>> tasks,
+            BiConsumer<StatisticsSection, T> onResult
+    ) {
+        Set<StatisticsSection> pending = EnumSet.noneOf(StatisticsSection.class);
+        Map<StatisticsSection, CompletableFuture<T>> futures = new EnumMap<>(StatisticsSection.class);
+        tasks.forEach((section, task) -> {
+            try {
+                futures.put(section, CompletableFuture.supplyAsync(task, executor));
+            } catch (RejectedExecutionException e) {
+                pending.add(section);
+            }
+        });
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Unfinished sections are pending; failures are rethrown below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        futures.forEach((section, future) -> {
+            // A late section keeps running to completion; its result is simply not read
+            if (!future.isDone()) {
+                pending.add(section);
+                return;
+            }
+
+            try {
+                onResult.accept(section, future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Computing statistics section " + section + " failed", e.getCause());
+            }
+        });
+
+        return pending;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
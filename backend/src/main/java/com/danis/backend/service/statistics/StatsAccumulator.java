@@ -0,0 +1,466 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.entities.WorkoutExercise;
+import com.danis.backend.domain.model.entities.WorkoutSet;
+import com.danis.backend.dto.*;
+import com.danis.backend.service.workflow.PersonalRecordService;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Computes every section of the statistics overview in a single pass over a workout history.
+ *
+ * <p>Workouts are fed either as entities through {@link #add(Workout)} or field by field through
+ * {@link #beginWorkout}, {@link #beginExercise}, {@link #addSet} and {@link #endExercise}.
+ * Two accumulators over disjoint parts of a history can be combined with {@link #merge},
+ * which makes the accumulator usable as a (parallel) stream reduction via {@link #collector}.
+ *
+ * <p>Sections that need per-set or per-muscle bookkeeping are only tracked when requested.
+ *
+ * <p>Not thread safe; use one instance per thread and merge the results.
+ */
+public class StatsAccumulator implements HistoryVisitor {
+
+    private final LocalDateTime recentCutoff;
+    private final boolean trackMuscles;
+    private final boolean trackRecords;
+
+    // Overall totals
+    private int workouts;
+    private int sets;
+    private int reps;
+    private double volume;
+    private long duration;
+    private int timedWorkouts;
+
+    // Last 30 days
+    private int recentWorkouts;
+    private double recentVolume;
+
+    private final int[] workoutsByDayOfWeek = new int[7];
+
+    // One bit per day with at least one workout, bit 0 being epoch day activeFrom. Like ActivityBitmap,
+    // the bits are offset rather than indexed by epoch day, which is negative before 1970; activeFrom is
+    // a multiple of 64, so the bits of two accumulators line up after shifting by whole words.
+    private BitSet activeDays = new BitSet();
+    private long activeFrom;
+
+    private final Map<Long, ExerciseTotals> exercises = new HashMap<>();
+    private final Map<String, MuscleTotals> muscles = new HashMap<>();
+
+    // State of the workout and exercise being visited
+    private LocalDateTime currentFinishedAt;
+    private boolean currentRecent;
+    private ExerciseTotals currentExercise;
+    private List<String> currentMuscles;
+    private int currentSets;
+    private double currentVolume;
+
+    /**
+     * @param recentCutoff workouts finished after this instant count towards the recent totals
+     */
+    public StatsAccumulator(LocalDateTime recentCutoff) {
+        this(recentCutoff, StatisticsSection.all());
+    }
+
+    /**
+     * @param sections muscle distribution and records are only tracked when requested
+     */
+    public StatsAccumulator(LocalDateTime recentCutoff, Set<StatisticsSection> sections) {
+        this.recentCutoff = recentCutoff;
+        this.trackMuscles = sections.contains(StatisticsSection.MUSCLES);
+        this.trackRecords = sections.contains(StatisticsSection.PRS);
+    }
+
+    public static Collector<Workout, StatsAccumulator, StatsAccumulator> collector(LocalDateTime recentCutoff) {
+        return collector(recentCutoff, StatisticsSection.all());
+    }
+
+    public static Collector<Workout, StatsAccumulator, StatsAccumulator> collector(
+            LocalDateTime recentCutoff,
+            Set<StatisticsSection> sections
+    ) {
+        return Collector.of(
+                () -> new StatsAccumulator(recentCutoff, sections),
+                StatsAccumulator::add,
+                StatsAccumulator::merge
+        );
+    }
+
+    /**
+     * Visit a workout entity with its exercises and sets
+     */
+    public void add(Workout workout) {
+        beginWorkout(workout.getStartedAt(), workout.getFinishedAt());
+
+        for (WorkoutExercise we : workout.getExercises()) {
+            Exercise exercise = we.getExercise();
+            beginExercise(exercise.getId(), exercise.getName(), exercise.getImageUrl(), exercise.getTargetMuscles());
+
+            for (WorkoutSet set : we.getSets()) {
+                addSet(
+                        set.isCompleted(),
+                        set.getActualWeight() != null,
+                        set.getActualWeight() != null ? set.getActualWeight() : 0.0,
+                        set.getActualReps() != null ? set.getActualReps() : 0
+                );
+            }
+
+            endExercise();
+        }
+    }
+
+    @Override
+    public void beginWorkout(LocalDateTime startedAt, LocalDateTime finishedAt) {
+        workouts++;
+        currentFinishedAt = finishedAt;
+        currentRecent = finishedAt.isAfter(recentCutoff);
+
+        if (currentRecent) {
+            recentWorkouts++;
+        }
+
+        if (startedAt != null) {
+            duration += ChronoUnit.MINUTES.between(startedAt, finishedAt);
+            timedWorkouts++;
+        }
+
+        workoutsByDayOfWeek[finishedAt.getDayOfWeek().getValue() - 1]++;
+        markActive(finishedAt.toLocalDate().toEpochDay());
+    }
+
+    @Override
+    public void beginExercise(Long exerciseId, String name, String imageUrl, List<String> targetMuscles) {
+        currentExercise = exercises.get(exerciseId);
+        if (currentExercise == null) {
+            currentExercise = new ExerciseTotals(exerciseId, name, imageUrl);
+            exercises.put(exerciseId, currentExercise);
+        }
+
+        currentMuscles = targetMuscles;
+        currentSets = 0;
+        currentVolume = 0.0;
+    }
+
+    /**
+     * @param weighted whether the set has a weight at all; unweighted sets never count as records
+     */
+    @Override
+    public void addSet(boolean completed, boolean weighted, double weight, int reps) {
+        currentSets++;
+
+        if (!completed) {
+            return;
+        }
+
+        this.reps += reps;
+        currentVolume += weight * reps;
+
+        if (weighted && trackRecords) {
+            currentExercise.offerRecord(weight, reps, currentFinishedAt);
+        }
+    }
+
+    @Override
+    public void endExercise() {
+        sets += currentSets;
+        volume += currentVolume;
+
+        if (currentRecent) {
+            recentVolume += currentVolume;
+        }
+
+        currentExercise.count++;
+        currentExercise.sets += currentSets;
+        currentExercise.volume += currentVolume;
+
+        if (trackMuscles && currentMuscles != null) {
+            for (String muscle : currentMuscles) {
+                MuscleTotals totals = muscles.get(muscle);
+                if (totals == null) {
+                    totals = new MuscleTotals();
+                    muscles.put(muscle, totals);
+                }
+                totals.workoutCount++;
+                totals.sets += currentSets;
+                totals.volume += currentVolume;
+            }
+        }
+
+        currentExercise = null;
+        currentMuscles = null;
+    }
+
+    /**
+     * Combine with an accumulator over a later part of the same history.
+     * On equal records the one already held by this accumulator is kept.
+     */
+    public StatsAccumulator merge(StatsAccumulator other) {
+        workouts += other.workouts;
+        sets += other.sets;
+        reps += other.reps;
+        volume += other.volume;
+        duration += other.duration;
+        timedWorkouts += other.timedWorkouts;
+        recentWorkouts += other.recentWorkouts;
+        recentVolume += other.recentVolume;
+
+        for (int i = 0; i < workoutsByDayOfWeek.length; i++) {
+            workoutsByDayOfWeek[i] += other.workoutsByDayOfWeek[i];
+        }
+
+        if (!other.activeDays.isEmpty()) {
+            rebase(activeDays.isEmpty() ? other.activeFrom : Math.min(activeFrom, other.activeFrom));
+            activeDays.or(shifted(other.activeDays, (int) ((other.activeFrom - activeFrom) / 64)));
+        }
+
+        other.exercises.forEach((id, totals) -> {
+            ExerciseTotals mine = exercises.get(id);
+            if (mine == null) {
+                exercises.put(id, totals.copy());
+            } else {
+                mine.merge(totals);
+            }
+        });
+
+        other.muscles.forEach((muscle, totals) -> {
+            MuscleTotals mine = muscles.computeIfAbsent(muscle, m -> new MuscleTotals());
+            mine.workoutCount += totals.workoutCount;
+            mine.sets += totals.sets;
+            mine.volume += totals.volume;
+        });
+
+        return this;
+    }
+
+    // ==================== Results ====================
+
+    public int getTotalWorkouts() {
+        return workouts;
+    }
+
+    public int getTotalSets() {
+        return sets;
+    }
+
+    public int getTotalReps() {
+        return reps;
+    }
+
+    public double getTotalVolume() {
+        return volume;
+    }
+
+    public long getTotalDuration() {
+        return duration;
+    }
+
+    public double getAverageWorkoutDuration() {
+        return timedWorkouts > 0 ? (double) duration / timedWorkouts : 0.0;
+    }
+
+    public int getWorkoutsLast30Days() {
+        return recentWorkouts;
+    }
+
+    public double getVolumeLast30Days() {
+        return recentVolume;
+    }
+
+    public int getTotalUniqueExercises() {
+        return exercises.size();
+    }
+
+    public int currentStreak(LocalDate today) {
+        long todayIndex = today.toEpochDay() - activeFrom;
+
+        long start;
+        if (isActive(todayIndex)) {
+            start = todayIndex;
+        } else if (isActive(todayIndex - 1)) {
+            start = todayIndex - 1;
+        } else {
+            return 0;
+        }
+
+        return (int) start - activeDays.previousClearBit((int) start);
+    }
+
+    public int longestStreak() {
+        int longest = 0;
+
+        for (int from = activeDays.nextSetBit(0); from >= 0; ) {
+            int to = activeDays.nextClearBit(from);
+            longest = Math.max(longest, to - from);
+            from = activeDays.nextSetBit(to);
+        }
+
+        return longest;
+    }
+
+    public Map<String, Integer> workoutsByDayOfWeek() {
+        Map<String, Integer> byDay = new LinkedHashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byDay.put(day.name(), workoutsByDayOfWeek[day.getValue() - 1]);
+        }
+        return byDay;
+    }
+
+    public Map<String, MuscleGroupStatsDTO> muscleGroupDistribution() {
+        Map<String, MuscleGroupStatsDTO> stats = new HashMap<>();
+        muscles.forEach((muscle, totals) ->
+                stats.put(muscle, new MuscleGroupStatsDTO(muscle, totals.workoutCount, totals.sets, totals.volume))
+        );
+        return stats;
+    }
+
+    public List<ExerciseFrequencyDTO> mostFrequentExercises(int limit) {
+        return exercises.values().stream()
+                .sorted(Comparator.comparingInt((ExerciseTotals e) -> e.count).reversed())
+                .limit(limit)
+                .map(e -> ExerciseFrequencyDTO.builder()
+                        .exerciseId(e.exerciseId)
+                        .exerciseName(e.name)
+                        .imageUrl(e.imageUrl)
+                        .count(e.count)
+                        .totalSets(e.sets)
+                        .totalVolume(e.volume)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public List<PersonalRecordDTO> personalRecords() {
+        return exercises.values().stream()
+                .filter(e -> e.hasRecord)
+                .sorted(Comparator.comparingDouble((ExerciseTotals e) -> e.bestOneRepMax).reversed())
+                .map(e -> PersonalRecordDTO.builder()
+                        .exerciseId(e.exerciseId)
+                        .exerciseName(e.name)
+                        .weight(e.bestWeight)
+                        .reps(e.bestReps)
+                        .estimatedOneRepMax(e.bestOneRepMax)
+                        .achievedAt(e.bestAchievedAt)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build the complete overview from this accumulator alone
+     */
+    public UserWorkoutStatsDTO toUserWorkoutStats(LocalDate today, int frequentLimit) {
+        return UserWorkoutStatsDTO.builder()
+                .totalWorkouts(workouts)
+                .totalSets(sets)
+                .totalReps(reps)
+                .totalVolume(volume)
+                .totalDuration(duration)
+                .workoutsLast30Days(recentWorkouts)
+                .volumeLast30Days(recentVolume)
+                .averageWorkoutDuration(getAverageWorkoutDuration())
+                .currentStreak(currentStreak(today))
+                .longestStreak(longestStreak())
+                .totalUniqueExercises(getTotalUniqueExercises())
+                .mostFrequentExercises(mostFrequentExercises(frequentLimit))
+                .muscleGroupDistribution(muscleGroupDistribution())
+                .workoutsByDayOfWeek(workoutsByDayOfWeek())
+                .personalRecords(personalRecords())
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void markActive(long epochDay) {
+        if (activeDays.isEmpty() || epochDay < activeFrom) {
+            rebase(Math.floorDiv(epochDay, 64) * 64);
+        }
+        activeDays.set((int) (epochDay - activeFrom));
+    }
+
+    // Moves bit 0 back to the given day, a multiple of 64
+    private void rebase(long from) {
+        if (activeDays.isEmpty()) {
+            activeFrom = from;
+        } else if (from < activeFrom) {
+            activeDays = shifted(activeDays, (int) ((activeFrom - from) / 64));
+            activeFrom = from;
+        }
+    }
+
+    private boolean isActive(long index) {
+        return index >= 0 && index < activeDays.length() && activeDays.get((int) index);
+    }
+
+    private static BitSet shifted(BitSet bits, int words) {
+        if (words == 0) {
+            return bits;
+        }
+        long[] source = bits.toLongArray();
+        long[] target = new long[words + source.length];
+        System.arraycopy(source, 0, target, words, source.length);
+        return BitSet.valueOf(target);
+    }
+
+    private static final class MuscleTotals {
+        private int workoutCount;
+        private int sets;
+        private double volume;
+    }
+
+    private static final class ExerciseTotals {
+        private final Long exerciseId;
+        private final String name;
+        private final String imageUrl;
+
+        private int count;
+        private int sets;
+        private double volume;
+
+        private boolean hasRecord;
+        private double bestOneRepMax;
+        private double bestWeight;
+        private int bestReps;
+        private LocalDateTime bestAchievedAt;
+
+        private ExerciseTotals(Long exerciseId, String name, String imageUrl) {
+            this.exerciseId = exerciseId;
+            this.name = name;
+            this.imageUrl = imageUrl;
+        }
+
+        private void offerRecord(double weight, int reps, LocalDateTime achievedAt) {
+            double estimatedOneRepMax = PersonalRecordService.estimatedOneRepMax(weight, reps);
+
+            if (!hasRecord || estimatedOneRepMax > bestOneRepMax) {
+                hasRecord = true;
+                bestOneRepMax = estimatedOneRepMax;
+                bestWeight = weight;
+                bestReps = reps;
+                bestAchievedAt = achievedAt;
+            }
+        }
+
+        private void merge(ExerciseTotals other) {
+            count += other.count;
+            sets += other.sets;
+            volume += other.volume;
+
+            if (other.hasRecord) {
+                offerRecord(other.bestWeight, other.bestReps, other.bestAchievedAt);
+            }
+        }
+
+        private ExerciseTotals copy() {
+            ExerciseTotals copy = new ExerciseTotals(exerciseId, name, imageUrl);
+            copy.merge(this);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.danis.backend.service.statistics;
+
+/**
+ * Published when a workout is finished, with a copy of it taken while it was still attached
+ */
+public record WorkoutFinishedEvent(Long userId, HistorySnapshot.WorkoutEntry workout) {
+}
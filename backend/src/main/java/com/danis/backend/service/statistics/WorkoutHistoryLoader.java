@@ -0,0 +1,45 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Loads a user's completed history with exercises, sets and target muscles initialized,
+ * using a fixed number of queries regardless of how many workouts there are.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkoutHistoryLoader {
+
+    private final WorkoutRepository workoutRepository;
+
+    @Transactional(readOnly = true)
+    public List<Workout> loadCompleted(Long userId) {
+        return loadCompleted(userId, true);
+    }
+
+    /**
+     * @param withTargetMuscles whether to initialize the exercises' target muscles as well
+     */
+    @Transactional(readOnly = true)
+    public List<Workout> loadCompleted(Long userId, boolean withTargetMuscles) {
+        List<Workout> workouts = workoutRepository.findByUserIdAndStatusWithExercises(userId, WorkoutStatus.COMPLETED);
+
+        if (!workouts.isEmpty()) {
+            // Both populate the entities loaded above through the persistence context
+            workoutRepository.fetchSetsByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
+
+            if (withTargetMuscles) {
+                workoutRepository.fetchTargetMusclesByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
+            }
+        }
+
+        return workouts;
+    }
+}
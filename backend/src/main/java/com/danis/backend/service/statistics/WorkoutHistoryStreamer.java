@@ -0,0 +1,84 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.projection.ExerciseMuscle;
+import com.danis.backend.domain.repository.projection.HistoryRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Feeds a user's completed history to a {@link StatsAccumulator} or another {@link HistoryVisitor}
+ * row by row.
+ *
+ * <p>Unlike {@link WorkoutHistoryLoader}, no entities are loaded: sets are read as scalar rows
+ * through a database cursor in fetch size chunks, so memory per request stays bounded
+ * however long the history is. Only the exercises' target muscles are held, one list per exercise.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkoutHistoryStreamer {
+
+    private final WorkoutRepository workoutRepository;
+
+    /**
+     * @param withTargetMuscles whether to pass the exercises' target muscles to the visitor
+     */
+    @Transactional(readOnly = true)
+    public <V extends HistoryVisitor> V streamCompleted(Long userId, boolean withTargetMuscles, V visitor) {
+        Map<Long, List<String>> muscles = new HashMap<>();
+        if (withTargetMuscles) {
+            for (ExerciseMuscle em : workoutRepository.findTargetMusclesByUserIdAndStatus(userId, WorkoutStatus.COMPLETED)) {
+                muscles.computeIfAbsent(em.getExerciseId(), id -> new ArrayList<>()).add(em.getMuscle());
+            }
+        }
+
+        try (Stream<HistoryRow> rows = workoutRepository.streamHistoryByUserIdAndStatus(userId, WorkoutStatus.COMPLETED)) {
+            Iterator<HistoryRow> iterator = rows.iterator();
+            Long workoutId = null;
+            Long workoutExerciseId = null;
+
+            while (iterator.hasNext()) {
+                HistoryRow row = iterator.next();
+
+                if (!row.workoutId().equals(workoutId)) {
+                    if (workoutExerciseId != null) {
+                        visitor.endExercise();
+                    }
+                    workoutId = row.workoutId();
+                    workoutExerciseId = null;
+                    visitor.beginWorkout(row.workoutId(), row.startedAt(), row.finishedAt());
+                }
+
+                if (row.workoutExerciseId() != null && !row.workoutExerciseId().equals(workoutExerciseId)) {
+                    if (workoutExerciseId != null) {
+                        visitor.endExercise();
+                    }
+                    workoutExerciseId = row.workoutExerciseId();
+                    visitor.beginExercise(
+                            row.exerciseId(), row.exerciseName(), row.imageUrl(), muscles.get(row.exerciseId()));
+                }
+
+                // No set on outer joined rows
+                if (row.completed() != null) {
+                    visitor.addSet(
+                            row.completed(),
+                            row.actualWeight() != null,
+                            row.actualWeight() != null ? row.actualWeight() : 0.0,
+                            row.actualReps() != null ? row.actualReps() : 0
+                    );
+                }
+            }
+
+            if (workoutExerciseId != null) {
+                visitor.endExercise();
+            }
+        }
+
+        return visitor;
+    }
+}
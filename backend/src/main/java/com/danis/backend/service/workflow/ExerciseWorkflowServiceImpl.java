@@ -6,8 +6,10 @@ import com.danis.backend.domain.model.enums.ExerciseType;
 import com.danis.backend.domain.repository.ExerciseRepository;
 import com.danis.backend.domain.repository.UserRepository;
 import com.danis.backend.dto.ExerciseCreateDTO;
+import com.danis.backend.service.statistics.StatisticsChangedEvent;
 import com.danis.backend.service.validation.ExerciseValidationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,6 +21,7 @@ public class ExerciseWorkflowServiceImpl implements ExerciseWorkflowService {
     private final ExerciseRepository exerciseRepository;
     private final ExerciseValidationService validationService;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Exercise createCustomExercise(ExerciseCreateDTO dto, Long userId) {
@@ -78,6 +81,7 @@ public class ExerciseWorkflowServiceImpl implements ExerciseWorkflowService {
         }
 
         exerciseRepository.delete(exercise);
+        eventPublisher.publishEvent(new StatisticsChangedEvent(userId));
     }
 
 }
@@ -0,0 +1,227 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.PersonalRecordRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.WorkoutStatisticsRepository;
+import com.danis.backend.domain.repository.projection.BestSet;
+import com.danis.backend.domain.repository.projection.UpdatedSet;
+import com.danis.backend.dto.PersonalRecordDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@link PersonalRecord} table current while a workout is in progress.
+ *
+ * <p>A completed set is compared against the stored record of its exercise, so a new record
+ * is detected with one indexed read. Records taken from an in-progress workout are
+ * reconciled when a set is edited afterwards and when the workout is finished, and kept by
+ * {@link UserStatsService#rebuild}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PersonalRecordService {
+
+    private final PersonalRecordRepository personalRecordRepository;
+    private final WorkoutStatisticsRepository statisticsRepository;
+    private final WorkoutRepository workoutRepository;
+    private final UserRepository userRepository;
+    private final ExerciseRepository exerciseRepository;
+
+    /**
+     * Check a just updated set against the exercise's record.
+     * Returns true if the set is the new personal record.
+     */
+    public boolean onSetUpdated(Long userId, Long workoutId, UpdatedSet set) {
+        return onSetsUpdated(userId, workoutId, List.of(set)).contains(set.getId());
+    }
+
+    /**
+     * Check sets just updated together against their exercises' records, read with one query.
+     * Per exercise, the best of the sets is compared, so at most one set per exercise is flagged.
+     * Returns the ids of the sets that are new personal records.
+     */
+    public Set<Long> onSetsUpdated(Long userId, Long workoutId, List<UpdatedSet> sets) {
+        Map<Long, List<UpdatedSet>> byWorkoutExercise = sets.stream().collect(Collectors.groupingBy(
+                UpdatedSet::getWorkoutExerciseId, LinkedHashMap::new, Collectors.toList()));
+
+        Map<Long, PersonalRecord> records = new HashMap<>();
+        personalRecordRepository.findByUserIdAndExerciseIdIn(userId,
+                        sets.stream().map(UpdatedSet::getExerciseId).collect(Collectors.toSet()))
+                .forEach(record -> records.put(record.getExercise().getId(), record));
+
+        Set<Long> newRecords = new HashSet<>();
+        Map<Long, WorkoutExercise> loaded = null;
+
+        for (Map.Entry<Long, List<UpdatedSet>> entry : byWorkoutExercise.entrySet()) {
+            Long exerciseId = entry.getValue().get(0).getExerciseId();
+            PersonalRecord existing = records.get(exerciseId);
+
+            Optional<UpdatedSet> best = entry.getValue().stream()
+                    .filter(set -> set.isCompleted() && set.getActualWeight() != null)
+                    .max(Comparator.comparingDouble(
+                            set -> estimatedOneRepMax(set.getActualWeight(), set.getActualReps())));
+
+            if (best.isPresent()) {
+                UpdatedSet set = best.get();
+                double estimatedOneRepMax = estimatedOneRepMax(set.getActualWeight(), set.getActualReps());
+
+                if (existing == null || estimatedOneRepMax > existing.getEstimatedOneRepMax()) {
+                    PersonalRecord record = existing != null ? existing : PersonalRecord.builder()
+                            .user(userRepository.getReferenceById(userId))
+                            .exercise(exerciseRepository.getReferenceById(exerciseId))
+                            .build();
+
+                    record.setWorkout(workoutRepository.getReferenceById(workoutId));
+                    record.setWeight(set.getActualWeight());
+                    record.setReps(set.getActualReps() != null ? set.getActualReps() : 0);
+                    record.setEstimatedOneRepMax(estimatedOneRepMax);
+                    record.setAchievedAt(LocalDateTime.now());
+                    records.put(exerciseId, personalRecordRepository.save(record));
+                    newRecords.add(set.getId());
+                    continue;
+                }
+            }
+
+            // A set may have been the record and no longer be good enough.
+            // Only then are the workout's sets loaded, to find the best of the others.
+            if (existing != null && existing.getWorkout() != null && existing.getWorkout().getId().equals(workoutId)) {
+                if (loaded == null) {
+                    loaded = workoutRepository.fetchSetsByWorkoutId(workoutId).stream()
+                            .collect(Collectors.toMap(WorkoutExercise::getId, exercise -> exercise));
+                }
+                WorkoutExercise exercise = loaded.get(entry.getKey());
+                if (exercise != null && bestIn(exercise) < existing.getEstimatedOneRepMax()) {
+                    recompute(existing, exercise.getWorkout(), exercise);
+                }
+            }
+        }
+
+        return newRecords;
+    }
+
+    /**
+     * Reconcile the records taken from a workout that is being finished: they get the workout's
+     * finish time, and records whose set was edited or uncompleted since are recomputed.
+     * Must run in the same transaction that marks the workout as completed.
+     *
+     * @param records the user's records of the workout's exercises, by exercise id; a record
+     *                that no longer has a qualifying set is deleted and removed from it
+     */
+    public void reconcileFinishedWorkout(Workout workout, Map<Long, PersonalRecord> records) {
+        for (WorkoutExercise exercise : workout.getExercises()) {
+            Long exerciseId = exercise.getExercise().getId();
+            PersonalRecord record = records.get(exerciseId);
+            if (record == null || !isFrom(record, workout)) {
+                continue;
+            }
+
+            if (bestIn(exercise) >= record.getEstimatedOneRepMax()) {
+                record.setAchievedAt(workout.getFinishedAt());
+            } else if (!recompute(record, workout, exercise)) {
+                records.remove(exerciseId);
+            }
+        }
+    }
+
+    /**
+     * The best estimated one rep max of each of the exercises the user has a record of
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Double> bestOneRepMaxes(Long userId, Collection<Long> exerciseIds) {
+        return personalRecordRepository.findByUserIdAndExerciseIdIn(userId, exerciseIds).stream()
+                .collect(Collectors.toMap(
+                        record -> record.getExercise().getId(), PersonalRecord::getEstimatedOneRepMax));
+    }
+
+    /**
+     * One rep max estimation (Epley formula), with missing reps counted as none
+     */
+    public static double estimatedOneRepMax(double weight, Integer reps) {
+        return weight * (1 + (reps != null ? reps : 0) / 30.0);
+    }
+
+    /**
+     * Get all personal records for a user from the record table
+     */
+    @Transactional(readOnly = true)
+    public List<PersonalRecordDTO> getPersonalRecords(Long userId) {
+        return personalRecordRepository.findAllForUser(userId).stream()
+                .map(pr -> PersonalRecordDTO.builder()
+                        .exerciseId(pr.getExercise().getId())
+                        .exerciseName(pr.getExercise().getName())
+                        .weight(pr.getWeight())
+                        .reps(pr.getReps())
+                        .estimatedOneRepMax(pr.getEstimatedOneRepMax())
+                        .achievedAt(pr.getAchievedAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // ==================== Helper Methods ====================
+
+    // Best of the completed history and the sets of the given workout, or no record at all;
+    // false if the record was deleted
+    private boolean recompute(PersonalRecord record, Workout workout, WorkoutExercise exercise) {
+        Optional<BestSet> historyBest = statisticsRepository.findCompletedBestSet(
+                workout.getUser().getId(), exercise.getExercise().getId(), workout.getId());
+
+        Optional<WorkoutSet> workoutBest = exercise.getSets().stream()
+                .filter(this::qualifies)
+                .max((a, b) -> Double.compare(estimatedOneRepMax(a), estimatedOneRepMax(b)));
+
+        double historyMax = historyBest.map(best -> estimatedOneRepMax(best.getWeight(), best.getReps())).orElse(-1.0);
+        double workoutMax = workoutBest.map(this::estimatedOneRepMax).orElse(-1.0);
+
+        if (historyBest.isEmpty() && workoutBest.isEmpty()) {
+            personalRecordRepository.delete(record);
+            return false;
+        } else if (historyMax >= workoutMax) {
+            BestSet best = historyBest.get();
+            record.setWorkout(workoutRepository.getReferenceById(best.getWorkoutId()));
+            record.setWeight(best.getWeight());
+            record.setReps(best.getReps());
+            record.setEstimatedOneRepMax(historyMax);
+            record.setAchievedAt(best.getAchievedAt());
+        } else {
+            WorkoutSet best = workoutBest.get();
+            record.setWeight(best.getActualWeight());
+            record.setReps(reps(best));
+            record.setEstimatedOneRepMax(workoutMax);
+            record.setAchievedAt(workout.getFinishedAt() != null ? workout.getFinishedAt() : LocalDateTime.now());
+        }
+        return true;
+    }
+
+    private boolean isFrom(PersonalRecord record, Workout workout) {
+        return record.getWorkout() != null && record.getWorkout().getId().equals(workout.getId());
+    }
+
+    private double bestIn(WorkoutExercise exercise) {
+        return exercise.getSets().stream()
+                .filter(this::qualifies)
+                .mapToDouble(this::estimatedOneRepMax)
+                .max()
+                .orElse(-1.0);
+    }
+
+    private boolean qualifies(WorkoutSet set) {
+        return set.isCompleted() && set.getActualWeight() != null;
+    }
+
+    private double estimatedOneRepMax(WorkoutSet set) {
+        return estimatedOneRepMax(set.getActualWeight(), set.getActualReps());
+    }
+
+    private int reps(WorkoutSet set) {
+        return set.getActualReps() != null ? set.getActualReps() : 0;
+    }
+}
@@ -0,0 +1,472 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.PersonalRecordRepository;
+import com.danis.backend.domain.repository.UserDailyRollupRepository;
+import com.danis.backend.domain.repository.UserExerciseStatsRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.UserStatsRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.*;
+import com.danis.backend.exception.ValidationException;
+import com.danis.backend.service.statistics.ActivityBitmap;
+import com.danis.backend.service.statistics.AnalyticsGranularity;
+import com.danis.backend.service.statistics.StatisticsCache;
+import com.danis.backend.service.statistics.WorkoutHistoryLoader;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-user statistics aggregate ({@link UserStats}, {@link UserExerciseStats},
+ * {@link PersonalRecord} and {@link UserDailyRollup}) so the summary and analytics can be served
+ * without reading the workout history.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class UserStatsService {
+
+    private static final int MOST_FREQUENT_LIMIT = 5;
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserExerciseStatsRepository userExerciseStatsRepository;
+    private final PersonalRecordRepository personalRecordRepository;
+    private final UserDailyRollupRepository dailyRollupRepository;
+    private final WorkoutRepository workoutRepository;
+    private final UserRepository userRepository;
+    private final WorkoutHistoryLoader historyLoader;
+    private final PersonalRecordService personalRecordService;
+    private final StatisticsCache statisticsCache;
+
+    /**
+     * Add a just finished workout to its owner's aggregate.
+     * Must run in the same transaction that marks the workout as completed.
+     */
+    public void applyFinishedWorkout(Workout workout) {
+        Long userId = workout.getUser().getId();
+
+        Optional<UserStats> existing = userStatsRepository.findByUserId(userId);
+        if (existing.isEmpty()
+                || existing.get().getActivityDays() == null
+                || !dailyRollupRepository.existsByUserId(userId)) {
+            // No aggregate (or one from before the activity bitmap and daily rollups) yet. A first finished
+            // workout starts it; a longer history is left to the statistics-rebuild job rather than read here.
+            if (workoutRepository.countByUserIdAndStatus(userId, WorkoutStatus.COMPLETED) <= 1) {
+                rebuild(userId);
+            } else {
+                log.info("User {} has no statistics aggregate yet; run the statistics-rebuild job", userId);
+            }
+            return;
+        }
+
+        Set<Long> exerciseIds = workout.getExercises().stream()
+                .map(we -> we.getExercise().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, UserExerciseStats> exerciseStats = new HashMap<>();
+        userExerciseStatsRepository.findByUserIdAndExerciseIdIn(userId, exerciseIds)
+                .forEach(s -> exerciseStats.put(s.getExercise().getId(), s));
+
+        Map<Long, PersonalRecord> records = new HashMap<>();
+        personalRecordRepository.findByUserIdAndExerciseIdIn(userId, exerciseIds)
+                .forEach(pr -> records.put(pr.getExercise().getId(), pr));
+
+        // Records may already have been taken from this workout while it was in progress
+        personalRecordService.reconcileFinishedWorkout(workout, records);
+
+        LocalDate day = workout.getFinishedAt().toLocalDate();
+        Map<LocalDate, UserDailyRollup> rollups = new HashMap<>();
+        dailyRollupRepository.findByUserIdAndDay(userId, day)
+                .ifPresent(rollup -> rollups.put(day, rollup));
+
+        UserStats stats = existing.get();
+        ActivityBitmap activity = ActivityBitmap.decode(stats.getActivityStart(), stats.getActivityDays());
+        apply(stats, workout, exerciseStats, records, rollups, activity);
+        storeActivity(stats, activity);
+
+        userStatsRepository.save(stats);
+        userExerciseStatsRepository.saveAll(exerciseStats.values());
+        personalRecordRepository.saveAll(records.values());
+        dailyRollupRepository.saveAll(rollups.values());
+    }
+
+    /**
+     * Get the statistics summary from the stored aggregate. A user without one has not finished
+     * a workout since the aggregate was rebuilt, so the summary is empty.
+     */
+    @Transactional(readOnly = true)
+    public UserWorkoutStatsDTO getSummary(Long userId) {
+        return toSummary(userId, userStatsRepository.findByUserId(userId)
+                .orElseGet(() -> UserStats.builder().build()));
+    }
+
+    /**
+     * Get the days with a finished workout
+     */
+    @Transactional(readOnly = true)
+    public ActivityBitmap getActivity(Long userId) {
+        return statisticsCache.get(userId, "activity", () -> loadActivity(userId));
+    }
+
+    /**
+     * Get the active days of a month, or of a whole year if no month is given
+     */
+    @Transactional(readOnly = true)
+    public ActivityCalendarDTO getCalendar(Long userId, int year, Integer month) {
+        if (year < 1 || year > 9999) {
+            throw new ValidationException("year must be between 1 and 9999");
+        }
+        if (month != null && (month < 1 || month > 12)) {
+            throw new ValidationException("month must be between 1 and 12");
+        }
+
+        LocalDate from = month != null ? LocalDate.of(year, month, 1) : LocalDate.of(year, 1, 1);
+        LocalDate to = month != null ? from.plusMonths(1).minusDays(1) : from.plusYears(1).minusDays(1);
+
+        ActivityBitmap activity = getActivity(userId);
+        List<LocalDate> activeDays = activity.activeDays(from, to);
+        int[] counts = activity.countByDayOfWeek(from, to);
+
+        Map<String, Integer> byDay = new LinkedHashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byDay.put(day.name(), counts[day.ordinal()]);
+        }
+
+        return ActivityCalendarDTO.builder()
+                .from(from)
+                .to(to)
+                .activeDays(activeDays)
+                .activeDayCount(activeDays.size())
+                .activeDaysByDayOfWeek(byDay)
+                .currentStreak(activity.currentStreak(LocalDate.now()))
+                .longestStreak(activity.longestStreak())
+                .build();
+    }
+
+    /**
+     * Get totals per day, week, month or year between two dates (both inclusive) from the daily rollups
+     */
+    @Transactional(readOnly = true)
+    public AnalyticsDTO getAnalytics(Long userId, LocalDate from, LocalDate to, AnalyticsGranularity granularity) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+
+        List<AnalyticsBucketDTO> buckets = dailyRollupRepository
+                .sumByBucket(userId, from, to, granularity.getParam()).stream()
+                .map(bucket -> AnalyticsBucketDTO.builder()
+                        .bucketStart(bucket.getBucketStart())
+                        .workouts((int) bucket.getWorkouts())
+                        .sets((int) bucket.getSets())
+                        .reps((int) bucket.getReps())
+                        .volume(bucket.getVolume())
+                        .duration(bucket.getDuration())
+                        .build())
+                .collect(Collectors.toList());
+
+        return AnalyticsDTO.builder()
+                .from(from)
+                .to(to)
+                .granularity(granularity.getParam())
+                .buckets(buckets)
+                .build();
+    }
+
+    /**
+     * Recompute the aggregate from the raw workout history.
+     * Logs a warning when the stored totals had drifted from the recomputed ones.
+     */
+    public UserWorkoutStatsDTO rebuild(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        List<Workout> history = new ArrayList<>(historyLoader.loadCompleted(userId));
+        history.sort(Comparator.comparing(Workout::getFinishedAt));
+
+        UserStats stats = userStatsRepository.findByUserId(userId)
+                .orElseGet(() -> UserStats.builder().user(user).build());
+
+        String before = totalsOf(stats);
+        reset(stats);
+
+        userExerciseStatsRepository.deleteAllByUserId(userId);
+        personalRecordRepository.deleteAllByUserId(userId);
+        dailyRollupRepository.deleteAllByUserId(userId);
+
+        Map<Long, UserExerciseStats> exerciseStats = new HashMap<>();
+        Map<Long, PersonalRecord> records = new HashMap<>();
+        Map<LocalDate, UserDailyRollup> rollups = new HashMap<>();
+        ActivityBitmap activity = new ActivityBitmap(user.getCreatedAt() != null
+                ? user.getCreatedAt().toLocalDate()
+                : LocalDate.now());
+
+        for (Workout workout : history) {
+            apply(stats, workout, exerciseStats, records, rollups, activity);
+        }
+        storeActivity(stats, activity);
+
+        // Records are also taken from in-progress workouts as sets are logged (see PersonalRecordService)
+        for (WorkoutStatus status : List.of(WorkoutStatus.STARTED, WorkoutStatus.PAUSED)) {
+            for (Workout workout : workoutRepository.findByUserIdAndStatus(userId, status)) {
+                applyInProgressRecords(records, workout);
+            }
+        }
+
+        String after = totalsOf(stats);
+        if (stats.getId() != null && !before.equals(after)) {
+            log.warn("Statistics aggregate for user {} had drifted: stored [{}], recomputed [{}]",
+                    userId, before, after);
+        }
+
+        userStatsRepository.save(stats);
+        userExerciseStatsRepository.saveAll(exerciseStats.values());
+        personalRecordRepository.saveAll(records.values());
+        dailyRollupRepository.saveAll(rollups.values());
+
+        return toSummary(userId, stats);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void apply(
+            UserStats stats,
+            Workout workout,
+            Map<Long, UserExerciseStats> exerciseStats,
+            Map<Long, PersonalRecord> records,
+            Map<LocalDate, UserDailyRollup> rollups,
+            ActivityBitmap activity
+    ) {
+        User user = workout.getUser();
+        LocalDateTime finishedAt = workout.getFinishedAt();
+
+        UserDailyRollup rollup = rollups.computeIfAbsent(finishedAt.toLocalDate(), day ->
+                UserDailyRollup.builder()
+                        .user(user)
+                        .day(day)
+                        .build()
+        );
+
+        stats.setTotalWorkouts(stats.getTotalWorkouts() + 1);
+        rollup.setWorkouts(rollup.getWorkouts() + 1);
+
+        if (workout.getStartedAt() != null && finishedAt != null) {
+            long duration = ChronoUnit.MINUTES.between(workout.getStartedAt(), finishedAt);
+            stats.setTotalDuration(stats.getTotalDuration() + duration);
+            stats.setTimedWorkouts(stats.getTimedWorkouts() + 1);
+            rollup.setDuration(rollup.getDuration() + duration);
+        }
+
+        stats.getWorkoutsByDayOfWeek().merge(finishedAt.getDayOfWeek().name(), 1, Integer::sum);
+        activity.set(finishedAt.toLocalDate());
+
+        for (WorkoutExercise we : workout.getExercises()) {
+            Exercise exercise = we.getExercise();
+            int sets = we.getSets().size();
+            double volume = 0.0;
+
+            for (WorkoutSet set : we.getSets()) {
+                if (!set.isCompleted()) {
+                    continue;
+                }
+
+                double weight = set.getActualWeight() != null ? set.getActualWeight() : 0.0;
+                int reps = set.getActualReps() != null ? set.getActualReps() : 0;
+
+                stats.setTotalReps(stats.getTotalReps() + reps);
+                rollup.setReps(rollup.getReps() + reps);
+                volume += weight * reps;
+
+                if (set.getActualWeight() != null) {
+                    applyPersonalRecord(records, user, exercise, workout, weight, reps, finishedAt);
+                }
+            }
+
+            stats.setTotalSets(stats.getTotalSets() + sets);
+            stats.setTotalVolume(stats.getTotalVolume() + volume);
+            rollup.setSets(rollup.getSets() + sets);
+            rollup.setVolume(rollup.getVolume() + volume);
+
+            UserExerciseStats exStats = exerciseStats.computeIfAbsent(exercise.getId(), id ->
+                    UserExerciseStats.builder()
+                            .user(user)
+                            .exercise(exercise)
+                            .build()
+            );
+            exStats.setSessionCount(exStats.getSessionCount() + 1);
+            exStats.setTotalSets(exStats.getTotalSets() + sets);
+            exStats.setTotalVolume(exStats.getTotalVolume() + volume);
+
+            List<String> muscles = exercise.getTargetMuscles();
+            if (muscles != null) {
+                for (String muscle : muscles) {
+                    MuscleGroupTotals totals = stats.getMuscleGroups()
+                            .getOrDefault(muscle, new MuscleGroupTotals());
+                    stats.getMuscleGroups().put(muscle, totals.add(sets, volume));
+                }
+            }
+        }
+    }
+
+    private void storeActivity(UserStats stats, ActivityBitmap activity) {
+        stats.setActivityStart(activity.getStart());
+        stats.setActivityDays(activity.encode());
+    }
+
+    private ActivityBitmap loadActivity(Long userId) {
+        Optional<UserStats> stats = userStatsRepository.findByUserId(userId)
+                .filter(s -> s.getActivityDays() != null);
+        if (stats.isPresent()) {
+            return ActivityBitmap.decode(stats.get().getActivityStart(), stats.get().getActivityDays());
+        }
+
+        // No aggregate yet: only the finish times are needed
+        ActivityBitmap activity = new ActivityBitmap(LocalDate.now());
+        workoutRepository.findFinishedAtByUserIdAndStatus(userId, WorkoutStatus.COMPLETED)
+                .forEach(finishedAt -> activity.set(finishedAt.toLocalDate()));
+        return activity;
+    }
+
+    // Completed sets of a workout in progress; the records get the workout's finish time once finished
+    private void applyInProgressRecords(Map<Long, PersonalRecord> records, Workout workout) {
+        for (WorkoutExercise we : workoutRepository.fetchSetsByWorkoutId(workout.getId())) {
+            for (WorkoutSet set : we.getSets()) {
+                if (set.isCompleted() && set.getActualWeight() != null) {
+                    applyPersonalRecord(records, workout.getUser(), we.getExercise(), workout, set.getActualWeight(),
+                            set.getActualReps() != null ? set.getActualReps() : 0, workout.getStartedAt());
+                }
+            }
+        }
+    }
+
+    private void applyPersonalRecord(
+            Map<Long, PersonalRecord> records,
+            User user,
+            Exercise exercise,
+            Workout workout,
+            double weight,
+            int reps,
+            LocalDateTime achievedAt
+    ) {
+        double estimatedOneRepMax = PersonalRecordService.estimatedOneRepMax(weight, reps);
+
+        PersonalRecord existing = records.get(exercise.getId());
+
+        if (existing == null) {
+            records.put(exercise.getId(), PersonalRecord.builder()
+                    .user(user)
+                    .exercise(exercise)
+                    .workout(workout)
+                    .weight(weight)
+                    .reps(reps)
+                    .estimatedOneRepMax(estimatedOneRepMax)
+                    .achievedAt(achievedAt)
+                    .build());
+        } else if (estimatedOneRepMax > existing.getEstimatedOneRepMax()) {
+            existing.setWorkout(workout);
+            existing.setWeight(weight);
+            existing.setReps(reps);
+            existing.setEstimatedOneRepMax(estimatedOneRepMax);
+            existing.setAchievedAt(achievedAt);
+        }
+    }
+
+    private void reset(UserStats stats) {
+        stats.setTotalWorkouts(0);
+        stats.setTotalSets(0);
+        stats.setTotalReps(0);
+        stats.setTotalVolume(0.0);
+        stats.setTotalDuration(0);
+        stats.setTimedWorkouts(0);
+        stats.setActivityStart(null);
+        stats.setActivityDays(null);
+        stats.getWorkoutsByDayOfWeek().clear();
+        stats.getMuscleGroups().clear();
+    }
+
+    private String totalsOf(UserStats stats) {
+        return String.format("workouts=%d, sets=%d, reps=%d, volume=%.2f, duration=%d",
+                stats.getTotalWorkouts(), stats.getTotalSets(), stats.getTotalReps(),
+                stats.getTotalVolume(), stats.getTotalDuration());
+    }
+
+    private UserWorkoutStatsDTO toSummary(Long userId, UserStats stats) {
+        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
+        LocalDate today = LocalDate.now();
+
+        ActivityBitmap activity = stats.getActivityDays() != null
+                ? ActivityBitmap.decode(stats.getActivityStart(), stats.getActivityDays())
+                : new ActivityBitmap(today);
+
+        Map<String, Integer> byDay = new LinkedHashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byDay.put(day.name(), stats.getWorkoutsByDayOfWeek().getOrDefault(day.name(), 0));
+        }
+
+        Map<String, MuscleGroupStatsDTO> muscles = new HashMap<>();
+        stats.getMuscleGroups().forEach((muscle, totals) ->
+                muscles.put(muscle, new MuscleGroupStatsDTO(
+                        muscle,
+                        totals.getWorkoutCount(),
+                        totals.getTotalSets(),
+                        totals.getTotalVolume()
+                ))
+        );
+
+        List<ExerciseFrequencyDTO> mostFrequent = userExerciseStatsRepository
+                .findMostFrequent(userId, PageRequest.of(0, MOST_FREQUENT_LIMIT)).stream()
+                .map(s -> ExerciseFrequencyDTO.builder()
+                        .exerciseId(s.getExercise().getId())
+                        .exerciseName(s.getExercise().getName())
+                        .imageUrl(s.getExercise().getImageUrl())
+                        .count(s.getSessionCount())
+                        .totalSets(s.getTotalSets())
+                        .totalVolume(s.getTotalVolume())
+                        .build())
+                .collect(Collectors.toList());
+
+        Double volumeLast30Days = workoutRepository.sumCompletedVolumeFinishedAfter(
+                userId, WorkoutStatus.COMPLETED, thirtyDaysAgo);
+
+        return UserWorkoutStatsDTO.builder()
+                // Overall stats
+                .totalWorkouts(stats.getTotalWorkouts())
+                .totalSets(stats.getTotalSets())
+                .totalReps(stats.getTotalReps())
+                .totalVolume(stats.getTotalVolume())
+                .totalDuration(stats.getTotalDuration())
+
+                // Recent stats, bounded by the 30 day window rather than the whole history
+                .workoutsLast30Days((int) workoutRepository.countByUserIdAndStatusAndFinishedAtAfter(
+                        userId, WorkoutStatus.COMPLETED, thirtyDaysAgo))
+                .volumeLast30Days(volumeLast30Days != null ? volumeLast30Days : 0.0)
+                .averageWorkoutDuration(stats.getTimedWorkouts() > 0
+                        ? (double) stats.getTotalDuration() / stats.getTimedWorkouts()
+                        : 0.0)
+
+                // Streaks
+                .currentStreak(activity.currentStreak(today))
+                .longestStreak(activity.longestStreak())
+
+                // Exercise stats
+                .totalUniqueExercises((int) userExerciseStatsRepository.countByUserId(userId))
+                .mostFrequentExercises(mostFrequent)
+
+                .muscleGroupDistribution(muscles)
+                .workoutsByDayOfWeek(byDay)
+                .personalRecords(personalRecordService.getPersonalRecords(userId))
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.entities.WorkoutEvent;
+import com.danis.backend.domain.model.enums.WorkoutEventType;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.WorkoutEventRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.*;
+import com.danis.backend.exception.ValidationException;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Applies a journal of workout events recorded by a client while offline.
+ *
+ * <p>The journal is applied in one transaction on top of {@link WorkoutWorkflowService}: either
+ * every new event is applied or none is. Events are deduplicated by their client id against the
+ * ones applied by earlier uploads, so a retried upload only applies what is new. Consecutive set
+ * events are written as one batch. A pause, resume or finish whose state the workout is already in
+ * is recorded without being applied again.
+ *
+ * <p>Events carry the time they happened on the client, which must not go back: not within the
+ * journal, not before the workout was started and not before an event applied by an earlier upload.
+ * Nor may it lie in the future beyond a small allowance for the client's clock being ahead.
+ * A finish takes its time as the workout's finish time; pauses and resumes keep theirs on the
+ * recorded event.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class WorkoutJournalService {
+
+    // Bounded like a batch set update
+    private static final int MAX_EVENTS = 200;
+    private static final int MAX_EVENT_ID_LENGTH = 64;
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final WorkoutRepository workoutRepository;
+    private final WorkoutEventRepository workoutEventRepository;
+    private final WorkoutWorkflowService workoutWorkflowService;
+
+    public WorkoutJournalResponse replay(Long workoutId, Long userId, WorkoutJournalRequest request) {
+        List<WorkoutJournalEventDTO> events = request.getEvents();
+        validate(events);
+
+        // Uploads of the same workout's journal are applied one after the other
+        Workout workout = workoutRepository.findByIdForUpdate(workoutId)
+                .orElseThrow(() -> new EntityNotFoundException("Workout not found"));
+
+        if (!workout.getUser().getId().equals(userId)) {
+            throw new IllegalStateException("You cannot update someone else's workout");
+        }
+
+        Optional<LocalDateTime> latest = workoutEventRepository.findLatestOccurredAt(workoutId);
+        Set<String> seen = new HashSet<>(workoutEventRepository.findAppliedEventIds(workoutId,
+                events.stream().map(WorkoutJournalEventDTO::getEventId).toList()));
+
+        List<String> applied = new ArrayList<>();
+        List<String> duplicates = new ArrayList<>();
+        List<WorkoutSetChange> pendingSets = new ArrayList<>();
+        List<WorkoutEvent> records = new ArrayList<>();
+
+        for (WorkoutJournalEventDTO event : events) {
+            if (!seen.add(event.getEventId())) {
+                duplicates.add(event.getEventId());
+                continue;
+            }
+
+            if (workout.getStartedAt() != null && event.getOccurredAt().isBefore(workout.getStartedAt())) {
+                throw new ValidationException("Event " + event.getEventId() + " occurred before the workout started");
+            }
+            if (latest.isPresent() && event.getOccurredAt().isBefore(latest.get())) {
+                throw new ValidationException("Event " + event.getEventId() + " occurred before an applied event");
+            }
+
+            if (isSetEvent(event.getType())) {
+                pendingSets.add(toChange(event));
+            } else {
+                applySets(workoutId, userId, pendingSets);
+                applyTransition(workout, userId, event);
+            }
+
+            applied.add(event.getEventId());
+            records.add(WorkoutEvent.builder()
+                    .workout(workout)
+                    .eventId(event.getEventId())
+                    .type(event.getType())
+                    .occurredAt(event.getOccurredAt())
+                    .build());
+        }
+
+        applySets(workoutId, userId, pendingSets);
+        workoutEventRepository.saveAll(records);
+
+        return WorkoutJournalResponse.builder()
+                .appliedEventIds(applied)
+                .duplicateEventIds(duplicates)
+                .workout(workoutWorkflowService.getWorkoutDetails(workoutId, userId))
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void validate(List<WorkoutJournalEventDTO> events) {
+        if (events == null || events.isEmpty()) {
+            throw new ValidationException("No events given");
+        }
+        if (events.size() > MAX_EVENTS) {
+            throw new ValidationException("At most " + MAX_EVENTS + " events per journal");
+        }
+
+        LocalDateTime latestAllowed = LocalDateTime.now().plus(MAX_CLOCK_SKEW);
+        LocalDateTime previous = null;
+        for (WorkoutJournalEventDTO event : events) {
+            if (event.getEventId() == null || event.getEventId().isBlank()
+                    || event.getEventId().length() > MAX_EVENT_ID_LENGTH
+                    || event.getType() == null || event.getOccurredAt() == null) {
+                throw new ValidationException("Every event needs an id of at most "
+                        + MAX_EVENT_ID_LENGTH + " characters, a type and the time it occurred");
+            }
+            if (previous != null && event.getOccurredAt().isBefore(previous)) {
+                throw new ValidationException("Events must be in the order they occurred");
+            }
+            if (event.getOccurredAt().isAfter(latestAllowed)) {
+                throw new ValidationException("Event " + event.getEventId() + " occurred in the future");
+            }
+            previous = event.getOccurredAt();
+            if (isSetEvent(event.getType()) && (event.getExerciseId() == null || event.getSetId() == null)) {
+                throw new ValidationException("Set events need an exercise and a set id");
+            }
+        }
+    }
+
+    private boolean isSetEvent(WorkoutEventType type) {
+        return type == WorkoutEventType.SET_EDITED || type == WorkoutEventType.SET_COMPLETED;
+    }
+
+    private WorkoutSetChange toChange(WorkoutJournalEventDTO event) {
+        WorkoutSetChange change = new WorkoutSetChange();
+        change.setExerciseId(event.getExerciseId());
+        change.setSetId(event.getSetId());
+        change.setActualReps(event.getActualReps());
+        change.setActualWeight(event.getActualWeight());
+        change.setCompleted(event.getType() == WorkoutEventType.SET_COMPLETED || event.isCompleted());
+        return change;
+    }
+
+    // Any set that cannot be written fails the whole journal
+    private void applySets(Long workoutId, Long userId, List<WorkoutSetChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        UpdateWorkoutSetsRequest request = new UpdateWorkoutSetsRequest();
+        request.setSets(List.copyOf(changes));
+        changes.clear();
+
+        workoutWorkflowService.updateWorkoutSets(workoutId, userId, request).stream()
+                .filter(result -> !result.isUpdated())
+                .findFirst()
+                .ifPresent(result -> {
+                    throw new EntityNotFoundException("Set " + result.getSetId() + " not found");
+                });
+    }
+
+    private void applyTransition(Workout workout, Long userId, WorkoutJournalEventDTO event) {
+        switch (event.getType()) {
+            case PAUSED -> {
+                if (workout.getStatus() != WorkoutStatus.PAUSED) {
+                    workoutWorkflowService.pauseWorkout(workout.getId(), userId);
+                }
+            }
+            case RESUMED -> {
+                if (workout.getStatus() != WorkoutStatus.STARTED) {
+                    workoutWorkflowService.resumeWorkout(workout.getId(), userId);
+                }
+            }
+            case FINISHED -> {
+                if (workout.getStatus() != WorkoutStatus.COMPLETED) {
+                    workoutWorkflowService.finishWorkout(workout.getId(), userId, event.getOccurredAt());
+                }
+            }
+            default -> throw new IllegalStateException("Not a workout transition: " + event.getType());
+        }
+    }
+}
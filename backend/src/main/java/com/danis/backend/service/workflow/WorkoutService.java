@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 public class WorkoutService {
 
     private final WorkoutRepository workoutRepository;
+    private final UserStatsService userStatsService;
 
     public Workout createFromTemplate(User user, WorkoutTemplate template) {
         Workout workout = Workout.builder()
@@ -49,8 +50,13 @@ public class WorkoutService {
     }
 
     public Workout finish(Workout workout) {
+        return finish(workout, LocalDateTime.now());
+    }
+
+    public Workout finish(Workout workout, LocalDateTime finishedAt) {
         workout.setStatus(WorkoutStatus.COMPLETED);
-        workout.setFinishedAt(LocalDateTime.now());
+        workout.setFinishedAt(finishedAt);
+        userStatsService.applyFinishedWorkout(workout);
         return workout;
     }
 }
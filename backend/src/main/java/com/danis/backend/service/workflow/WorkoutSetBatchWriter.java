@@ -0,0 +1,68 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.dto.WorkoutSetChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Writes the logged values of many sets as a single JDBC batch, in the caller's transaction. The
+ * persistence context is bypassed: flush it before, refresh loaded sets after.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkoutSetBatchWriter {
+
+    // A change only applies to a set of the given workout exercise, in the given user's workout while in progress
+    private static final String UPDATE_SET = "UPDATE workout_sets " +
+            "SET actual_reps = ?, actual_weight = ?, completed = ? " +
+            "WHERE id = ? AND workout_exercise_id = ? AND EXISTS (SELECT 1 FROM workout_exercises we " +
+            "JOIN workouts w ON w.id = we.workout_id " +
+            "WHERE we.id = workout_sets.workout_exercise_id AND w.id = ? AND w.user_id = ? " +
+            "AND w.status IN ('STARTED', 'PAUSED'))";
+
+    private static final int[] TYPES = {
+            Types.INTEGER, Types.DOUBLE, Types.BOOLEAN, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT
+    };
+
+    /**
+     * A change to a set of the given user's workout
+     */
+    public record OwnedChange(Long userId, Long workoutId, WorkoutSetChange change) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Write changes to sets of one of the user's workouts
+     *
+     * @return the rows written by each change, 0 where it did not apply
+     */
+    public int[] write(Long workoutId, Long userId, List<WorkoutSetChange> changes) {
+        return write(changes.stream().map(change -> new OwnedChange(userId, workoutId, change)).toList());
+    }
+
+    /**
+     * Write changes to sets of any users' workouts
+     *
+     * @return the rows written by each change, 0 where it did not apply
+     */
+    public int[] write(List<OwnedChange> changes) {
+        List<Object[]> rows = changes.stream()
+                .map(owned -> new Object[]{
+                        owned.change().getActualReps(),
+                        owned.change().getActualWeight(),
+                        owned.change().isCompleted(),
+                        owned.change().getSetId(),
+                        owned.change().getExerciseId(),
+                        owned.workoutId(),
+                        owned.userId()
+                })
+                .toList();
+
+        return jdbcTemplate.batchUpdate(UPDATE_SET, rows, TYPES);
+    }
+}
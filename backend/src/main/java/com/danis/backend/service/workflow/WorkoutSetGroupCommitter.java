@@ -0,0 +1,334 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.repository.WorkoutSetRepository;
+import com.danis.backend.domain.repository.projection.UpdatedSet;
+import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.dto.WorkoutSetChange;
+import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.service.session.ActiveSessionStore;
+import com.danis.backend.service.statistics.StatisticsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the set updates of concurrent requests together: updates are queued, and a single writer
+ * thread writes up to {@code workouts.group-commit.batch-size} of them as one JDBC batch in one
+ * transaction, waiting at most {@code workouts.group-commit.max-delay-ms} for a batch to fill.
+ * Each caller gets a future completed once its update has committed. Updates of the same set are
+ * written in separate batches, in the order they were queued, so each caller sees its own write.
+ *
+ * <p>An update the batch did not apply, e.g. of someone else's workout, and every update of a
+ * failed batch are written again on their own by {@code workouts.group-commit.retry-threads}, so
+ * their callers get the error a direct update would give while the writer goes on with the next
+ * batch. Callers hold no transaction while queued, so they do not take the connections the writer
+ * needs.
+ *
+ * <p>Updates written and transactions committed are counted as {@code workouts.group-commit.writes}
+ * and {@code workouts.group-commit.commits}, queued updates are published as
+ * {@code workouts.group-commit.pending}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "workouts.group-commit.enabled", havingValue = "true")
+public class WorkoutSetGroupCommitter {
+
+    // How often an idle writer checks for shutdown
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final WorkoutWorkflowService workoutWorkflowService;
+    private final WorkoutSetRepository workoutSetRepository;
+    private final WorkoutSetBatchWriter workoutSetBatchWriter;
+    private final PersonalRecordService personalRecordService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<ActiveSessionStore> activeSessionStore;
+
+    private final long maxDelayNanos;
+    private final int batchSize;
+    private final BlockingQueue<PendingWrite> queue;
+    // Updates of a set already in the batch being collected, leading the next one; writer thread only
+    private final List<PendingWrite> deferred = new ArrayList<>();
+    private Thread writer;
+    private final ThreadPoolTaskExecutor retries;
+    private volatile boolean running = true;
+
+    private final Counter writes;
+    private final Counter commits;
+
+    public WorkoutSetGroupCommitter(
+            WorkoutWorkflowService workoutWorkflowService,
+            WorkoutSetRepository workoutSetRepository,
+            WorkoutSetBatchWriter workoutSetBatchWriter,
+            PersonalRecordService personalRecordService,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            Optional<ActiveSessionStore> activeSessionStore,
+            MeterRegistry meterRegistry,
+            @Value("${workouts.group-commit.max-delay-ms}") long maxDelayMillis,
+            @Value("${workouts.group-commit.batch-size}") int batchSize,
+            @Value("${workouts.group-commit.queue-capacity}") int queueCapacity,
+            @Value("${workouts.group-commit.retry-threads}") int retryThreads
+    ) {
+        this.workoutWorkflowService = workoutWorkflowService;
+        this.workoutSetRepository = workoutSetRepository;
+        this.workoutSetBatchWriter = workoutSetBatchWriter;
+        this.personalRecordService = personalRecordService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.activeSessionStore = activeSessionStore;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.writes = Counter.builder("workouts.group-commit.writes")
+                .description("Set updates written by group commits")
+                .register(meterRegistry);
+        this.commits = Counter.builder("workouts.group-commit.commits")
+                .description("Group commit transactions committed")
+                .register(meterRegistry);
+        Gauge.builder("workouts.group-commit.pending", queue, Collection::size)
+                .description("Set updates waiting for a group commit")
+                .register(meterRegistry);
+
+        this.retries = new ThreadPoolTaskExecutor();
+        retries.setCorePoolSize(retryThreads);
+        retries.setMaxPoolSize(retryThreads);
+        retries.setThreadNamePrefix("set-group-commit-retry-");
+        retries.setWaitForTasksToCompleteOnShutdown(true);
+        retries.setAwaitTerminationSeconds(10);
+        retries.initialize();
+    }
+
+    @PostConstruct
+    void start() {
+        writer = new Thread(this::run, "set-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a set update for the next group commit. A workout held by the active session store takes
+     * the update in memory instead; with the queue full, the update is written right away.
+     */
+    public CompletableFuture<WorkoutSetResponse> submit(
+            Long workoutId,
+            Long exerciseId,
+            Long setId,
+            Long userId,
+            UpdateWorkoutSetRequest request
+    ) {
+        Optional<WorkoutSetResponse> held = activeSessionStore
+                .flatMap(store -> store.updateSet(userId, workoutId, exerciseId, setId, request));
+        if (held.isPresent()) {
+            return CompletableFuture.completedFuture(held.get());
+        }
+
+        PendingWrite write = new PendingWrite(workoutId, exerciseId, setId, userId, request, new CompletableFuture<>());
+        if (!running || !queue.offer(write)) {
+            writeAlone(write);
+        }
+        return write.future();
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Queued while the writer stopped
+        List<PendingWrite> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(write -> write.future().completeExceptionally(shuttingDown()));
+
+        retries.shutdown();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private record PendingWrite(
+            Long workoutId,
+            Long exerciseId,
+            Long setId,
+            Long userId,
+            UpdateWorkoutSetRequest request,
+            CompletableFuture<WorkoutSetResponse> future
+    ) {
+        WorkoutSetBatchWriter.OwnedChange toChange() {
+            WorkoutSetChange change = new WorkoutSetChange();
+            change.setExerciseId(exerciseId);
+            change.setSetId(setId);
+            change.setActualReps(request.getActualReps());
+            change.setActualWeight(request.getActualWeight());
+            change.setCompleted(request.isCompleted());
+            return new WorkoutSetBatchWriter.OwnedChange(userId, workoutId, change);
+        }
+    }
+
+    private record Owner(Long userId, Long workoutId) {
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // The next batch: the deferred updates or the first queued one, and those that follow within the max delay
+    private void collect(List<PendingWrite> batch) throws InterruptedException {
+        try {
+            if (!deferred.isEmpty()) {
+                batch.addAll(deferred);
+                deferred.clear();
+            } else {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    return;
+                }
+                batch.add(first);
+            }
+
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (batch.size() < batchSize) {
+                queue.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= batchSize || remaining <= 0) {
+                    return;
+                }
+                PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+            }
+        } finally {
+            deferRepeatedSets(batch);
+        }
+    }
+
+    // Keep the first update of each set in the batch, the later ones wait for the next batch in order
+    private void deferRepeatedSets(List<PendingWrite> batch) {
+        Set<Long> setIds = new HashSet<>();
+        Iterator<PendingWrite> writes = batch.iterator();
+        while (writes.hasNext()) {
+            PendingWrite write = writes.next();
+            if (!setIds.add(write.setId())) {
+                deferred.add(write);
+                writes.remove();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<WorkoutSetResponse> written;
+        try {
+            written = transactionTemplate.execute(status -> write(batch));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} set updates failed, writing them one by one", batch.size(), e);
+            batch.forEach(this::retryAlone);
+            return;
+        }
+
+        commits.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            if (written.get(i) != null) {
+                writes.increment();
+                batch.get(i).future().complete(written.get(i));
+            } else {
+                retryAlone(batch.get(i));
+            }
+        }
+    }
+
+    // The responses of the batch's updates, null where an update was not applied
+    private List<WorkoutSetResponse> write(List<PendingWrite> batch) {
+        int[] counts = workoutSetBatchWriter.write(batch.stream().map(PendingWrite::toChange).toList());
+
+        boolean[] applied = new boolean[batch.size()];
+        Map<Owner, List<Long>> byOwner = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            applied[i] = counts[i] > 0;
+            if (applied[i]) {
+                byOwner.computeIfAbsent(new Owner(write.userId(), write.workoutId()), owner -> new ArrayList<>())
+                        .add(write.setId());
+            }
+        }
+        if (byOwner.isEmpty()) {
+            return Arrays.asList(new WorkoutSetResponse[batch.size()]);
+        }
+
+        Map<Long, UpdatedSet> sets = workoutSetRepository.findUpdated(byOwner.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(UpdatedSet::getId, Function.identity()));
+
+        // Records are checked per workout, as a batch update of the workout would
+        Set<Long> newRecords = new HashSet<>();
+        byOwner.forEach((owner, setIds) -> newRecords.addAll(personalRecordService.onSetsUpdated(
+                owner.userId(), owner.workoutId(), setIds.stream().distinct().map(sets::get).toList())));
+        byOwner.keySet().stream()
+                .map(Owner::userId)
+                .distinct()
+                .forEach(userId -> eventPublisher.publishEvent(StatisticsChangedEvent.inProgress(userId)));
+
+        List<WorkoutSetResponse> responses = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UpdatedSet set = applied[i] ? sets.get(batch.get(i).setId()) : null;
+            responses.add(set != null ? WorkoutSetResponse.from(set, newRecords.contains(set.getId())) : null);
+        }
+        return responses;
+    }
+
+    // Write an update on its own off the writer thread, which goes on with the next batch
+    private void retryAlone(PendingWrite write) {
+        try {
+            retries.execute(() -> writeAlone(write));
+        } catch (RejectedExecutionException e) {
+            write.future().completeExceptionally(shuttingDown());
+        }
+    }
+
+    // Write an update in its own transaction, completing its future with the result or the error
+    private void writeAlone(PendingWrite write) {
+        try {
+            write.future().complete(workoutWorkflowService.updateWorkoutSet(
+                    write.workoutId(), write.exerciseId(), write.setId(), write.userId(), write.request()));
+        } catch (RuntimeException e) {
+            write.future().completeExceptionally(e);
+        }
+    }
+
+    private static IllegalStateException shuttingDown() {
+        return new IllegalStateException("Set update not written, the server is shutting down");
+    }
+}
@@ -1,463 +1,376 @@
 package com.danis.backend.service.workflow;
 
-import com.danis.backend.domain.model.entities.*;
 import com.danis.backend.domain.model.enums.WorkoutStatus;
 import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.WorkoutStatisticsRepository;
+import com.danis.backend.domain.repository.projection.ExerciseSession;
+import com.danis.backend.domain.repository.projection.ExerciseSessionTotals;
+import com.danis.backend.domain.repository.projection.MuscleTotals;
+import com.danis.backend.domain.repository.projection.SetTotals;
+import com.danis.backend.domain.repository.projection.WorkoutTotals;
 import com.danis.backend.dto.*;
-import lombok.RequiredArgsConstructor;
+import com.danis.backend.exception.ValidationException;
+import com.danis.backend.service.statistics.ActivityBitmap;
+import com.danis.backend.service.statistics.HistorySnapshot;
+import com.danis.backend.service.statistics.SetHistoryIndex;
+import com.danis.backend.service.statistics.SetHistoryIndexCache;
+import com.danis.backend.service.statistics.SetHistoryStore;
+import com.danis.backend.service.statistics.StatisticsCache;
+import com.danis.backend.service.statistics.StatisticsSection;
+import com.danis.backend.service.statistics.StatisticsSectionRunner;
+import com.danis.backend.service.statistics.StatsAccumulator;
+import com.danis.backend.service.statistics.WorkoutHistoryStreamer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class WorkoutStatisticsService {
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int MOST_FREQUENT_LIMIT = 5;
+    private static final int MAX_SESSION_PAGE = 1000;
+
     private final WorkoutRepository workoutRepository;
+    private final WorkoutStatisticsRepository statisticsRepository;
+    private final SetHistoryIndexCache setHistoryIndexCache;
+    private final StatisticsCache statisticsCache;
+    private final PersonalRecordService personalRecordService;
+    private final UserStatsService userStatsService;
+    private final StatisticsSectionRunner sectionRunner;
+    private final WorkoutHistoryStreamer historyStreamer;
+    private final Optional<SetHistoryStore> historyStore;
+
+    // Completed workouts above which the overview streams the history rather than loading it
+    private final long streamingThreshold;
+
+    public WorkoutStatisticsService(
+            WorkoutRepository workoutRepository,
+            WorkoutStatisticsRepository statisticsRepository,
+            SetHistoryIndexCache setHistoryIndexCache,
+            StatisticsCache statisticsCache,
+            PersonalRecordService personalRecordService,
+            UserStatsService userStatsService,
+            StatisticsSectionRunner sectionRunner,
+            WorkoutHistoryStreamer historyStreamer,
+            Optional<SetHistoryStore> historyStore,
+            @Value("${statistics.streaming.threshold-workouts}") long streamingThreshold
+    ) {
+        this.workoutRepository = workoutRepository;
+        this.statisticsRepository = statisticsRepository;
+        this.setHistoryIndexCache = setHistoryIndexCache;
+        this.statisticsCache = statisticsCache;
+        this.personalRecordService = personalRecordService;
+        this.userStatsService = userStatsService;
+        this.sectionRunner = sectionRunner;
+        this.historyStreamer = historyStreamer;
+        this.historyStore = historyStore;
+        this.streamingThreshold = streamingThreshold;
+    }
 
     /**
      * Get comprehensive workout statistics for a user
      */
     public UserWorkoutStatsDTO getUserWorkoutStats(Long userId) {
-        // Get all finished workouts
-        List<Workout> allWorkouts = workoutRepository.findByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
-
-        // Get workouts from last 30 days
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Workout> recentWorkouts = allWorkouts.stream()
-                .filter(w -> w.getFinishedAt().isAfter(thirtyDaysAgo))
-                .collect(Collectors.toList());
-
-        return UserWorkoutStatsDTO.builder()
-                // Overall stats
-                .totalWorkouts(allWorkouts.size())
-                .totalSets(calculateTotalSets(allWorkouts))
-                .totalReps(calculateTotalReps(allWorkouts))
-                .totalVolume(calculateTotalVolume(allWorkouts))
-                .totalDuration(calculateTotalDuration(allWorkouts))
-
-                // Recent stats
-                .workoutsLast30Days(recentWorkouts.size())
-                .volumeLast30Days(calculateTotalVolume(recentWorkouts))
-                .averageWorkoutDuration(calculateAverageDuration(allWorkouts))
-
-                // Streaks
-                .currentStreak(calculateCurrentStreak(allWorkouts))
-                .longestStreak(calculateLongestStreak(allWorkouts))
-
-                // Exercise stats
-                .totalUniqueExercises(calculateUniqueExercises(allWorkouts))
-                .mostFrequentExercises(getMostFrequentExercises(allWorkouts, 5))
-
-                // Muscle group distribution
-                .muscleGroupDistribution(getMuscleGroupDistribution(allWorkouts))
-
-                // Weekly breakdown
-                .workoutsByDayOfWeek(getWorkoutsByDayOfWeek(allWorkouts))
-
-                // Personal Records
-                .personalRecords(getPersonalRecords(allWorkouts))
-
-                .build();
+        return getUserWorkoutStats(userId, StatisticsSection.all());
     }
 
     /**
-     * Get statistics for a specific time period
+     * Get the requested sections of the workout statistics; the others are left empty
      */
-    public PeriodStatsDTO getPeriodStats(Long userId, int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        List<Workout> workouts = workoutRepository.findByUserIdAndStatusAndFinishedAtAfter(
-                userId, WorkoutStatus.COMPLETED, startDate
-        );
-
-        return PeriodStatsDTO.builder()
-                .periodDays(days)
-                .totalWorkouts(workouts.size())
-                .totalSets(calculateTotalSets(workouts))
-                .totalReps(calculateTotalReps(workouts))
-                .totalVolume(calculateTotalVolume(workouts))
-                .totalDuration(calculateTotalDuration(workouts))
-                .averageWorkoutsPerWeek((double) workouts.size() / (days / 7.0))
-                .volumeByWeek(getVolumeByWeek(workouts))
-                .build();
+    public UserWorkoutStatsDTO getUserWorkoutStats(Long userId, Set<StatisticsSection> sections) {
+        return statisticsCache.get(userId, "overview:" + sections, () -> loadUserWorkoutStats(userId, sections),
+                stats -> stats.getPendingSections().isEmpty(), UserWorkoutStatsDTO::getTotalWorkouts);
     }
 
-    /**
-     * Get progress for a specific exercise
-     */
-    public ExerciseProgressDTO getExerciseProgress(Long userId, Long exerciseId) {
-        List<Workout> workouts = workoutRepository.findByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
-
-        List<ExerciseSessionDTO> sessions = new ArrayList<>();
-
-        for (Workout workout : workouts) {
-            for (WorkoutExercise we : workout.getExercises()) {
-                if (we.getExercise().getId().equals(exerciseId)) {
-                    sessions.add(mapToExerciseSession(we, workout));
-                }
-            }
+    private UserWorkoutStatsDTO loadUserWorkoutStats(Long userId, Set<StatisticsSection> sections) {
+        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
+        UserWorkoutStatsDTO.UserWorkoutStatsDTOBuilder stats = UserWorkoutStatsDTO.builder();
+
+        // Totals are summed by the database
+        if (sections.contains(StatisticsSection.TOTALS)) {
+            WorkoutTotals workoutTotals = statisticsRepository.findCompletedWorkoutTotals(userId, ALL_TIME);
+            SetTotals setTotals = statisticsRepository.findCompletedSetTotals(userId, ALL_TIME);
+
+            stats.totalWorkouts((int) workoutTotals.getWorkoutCount())
+                    .totalSets((int) setTotals.getTotalSets())
+                    .totalReps((int) setTotals.getTotalReps())
+                    .totalVolume(setTotals.getTotalVolume())
+                    .totalDuration(workoutTotals.getTotalDuration())
+                    .averageWorkoutDuration(averageDuration(workoutTotals));
         }
 
-        sessions.sort(Comparator.comparing(ExerciseSessionDTO::getDate));
+        if (sections.contains(StatisticsSection.RECENT)) {
+            WorkoutTotals recentWorkoutTotals = statisticsRepository.findCompletedWorkoutTotals(userId, thirtyDaysAgo);
+            SetTotals recentSetTotals = statisticsRepository.findCompletedSetTotals(userId, thirtyDaysAgo);
 
-        if (sessions.isEmpty()) {
-            return ExerciseProgressDTO.builder()
-                    .exerciseId(exerciseId)
-                    .totalSessions(0)
-                    .sessions(new ArrayList<>())
-                    .build();
+            stats.workoutsLast30Days((int) recentWorkoutTotals.getWorkoutCount())
+                    .volumeLast30Days(recentSetTotals.getTotalVolume());
         }
 
-        return ExerciseProgressDTO.builder()
-                .exerciseId(exerciseId)
-                .exerciseName(sessions.get(0).getExerciseName())
-                .totalSessions(sessions.size())
-                .totalSets(sessions.stream().mapToInt(ExerciseSessionDTO::getSets).sum())
-                .totalReps(sessions.stream().mapToInt(ExerciseSessionDTO::getReps).sum())
-                .totalVolume(sessions.stream().mapToDouble(ExerciseSessionDTO::getVolume).sum())
-                .maxWeightEver(sessions.stream()
-                        .mapToDouble(ExerciseSessionDTO::getMaxWeight)
-                        .max()
-                        .orElse(0.0))
-                .currentMaxWeight(sessions.get(sessions.size() - 1).getMaxWeight())
-                .sessions(sessions)
-                .build();
-    }
-
-    /**
-     * Get all personal records for a user
-     */
-    public List<PersonalRecordDTO> getPersonalRecords(List<Workout> workouts) {
-        Map<Long, PersonalRecordDTO> recordsMap = new HashMap<>();
-
-        for (Workout workout : workouts) {
-            for (WorkoutExercise we : workout.getExercises()) {
-                Long exerciseId = we.getExercise().getId();
-
-                for (WorkoutSet set : we.getSets()) {
-                    if (!set.isCompleted() || set.getActualWeight() == null) {
-                        continue;
-                    }
-
-                    double weight = set.getActualWeight();
-                    int reps = set.getActualReps() != null ? set.getActualReps() : 0;
-
-                    // One Rep Max estimation (Epley formula)
-                    double estimatedOneRepMax = weight * (1 + reps / 30.0);
-
-                    PersonalRecordDTO existing = recordsMap.get(exerciseId);
-
-                    if (existing == null || estimatedOneRepMax > existing.getEstimatedOneRepMax()) {
-                        recordsMap.put(exerciseId, PersonalRecordDTO.builder()
-                                .exerciseId(exerciseId)
-                                .exerciseName(we.getExercise().getName())
-                                .weight(weight)
-                                .reps(reps)
-                                .estimatedOneRepMax(estimatedOneRepMax)
-                                .achievedAt(workout.getFinishedAt())
-                                .build());
-                    }
-                }
-            }
+        // Records are kept up to date in their own table
+        if (sections.contains(StatisticsSection.PRS)) {
+            stats.personalRecords(personalRecordService.getPersonalRecords(userId));
         }
 
-        return new ArrayList<>(recordsMap.values())
-                .stream()
-                .sorted(Comparator.comparing(PersonalRecordDTO::getEstimatedOneRepMax).reversed())
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Get muscle group statistics
-     */
-    public Map<String, MuscleGroupStatsDTO> getMuscleGroupDistribution(List<Workout> workouts) {
-        Map<String, MuscleGroupStatsDTO> stats = new HashMap<>();
+        // Streaks come from the activity bitmap
+        if (sections.contains(StatisticsSection.STREAKS)) {
+            ActivityBitmap activity = userStatsService.getActivity(userId);
+            stats.currentStreak(activity.currentStreak(LocalDate.now()))
+                    .longestStreak(activity.longestStreak());
+        }
 
-        for (Workout workout : workouts) {
-            for (WorkoutExercise we : workout.getExercises()) {
-                List<String> muscles = we.getExercise().getTargetMuscles();
+        boolean needsExercises = sections.contains(StatisticsSection.EXERCISES)
+                || sections.contains(StatisticsSection.MUSCLES);
+        boolean needsDays = sections.contains(StatisticsSection.WEEKDAYS);
 
-                if (muscles != null) {
-                    for (String muscle : muscles) {
-                        stats.computeIfAbsent(muscle, m -> new MuscleGroupStatsDTO(m));
+        if (!needsExercises && !needsDays) {
+            return stats.pendingSections(List.of()).build();
+        }
 
-                        MuscleGroupStatsDTO muscleStats = stats.get(muscle);
-                        muscleStats.incrementWorkoutCount();
-                        muscleStats.addSets(we.getSets().size());
-                        muscleStats.addVolume(calculateExerciseVolume(we));
-                    }
-                }
+        // Long histories are streamed through a single accumulator instead of being copied into memory,
+        // from the on-disk history store where it is enabled
+        if (needsExercises
+                && workoutRepository.countByUserIdAndStatus(userId, WorkoutStatus.COMPLETED) > streamingThreshold) {
+            // Records come from their table, so the accumulator need not track them
+            Set<StatisticsSection> streamed = EnumSet.copyOf(sections);
+            streamed.remove(StatisticsSection.PRS);
+            StatsAccumulator accumulator = historyStore
+                    .map(store -> store.replay(userId, new StatsAccumulator(thirtyDaysAgo, streamed)))
+                    .orElseGet(() -> historyStreamer.streamCompleted(userId,
+                            sections.contains(StatisticsSection.MUSCLES),
+                            new StatsAccumulator(thirtyDaysAgo, streamed)));
+
+            if (sections.contains(StatisticsSection.EXERCISES)) {
+                stats.totalUniqueExercises(accumulator.getTotalUniqueExercises())
+                        .mostFrequentExercises(accumulator.mostFrequentExercises(MOST_FREQUENT_LIMIT));
+            }
+            if (sections.contains(StatisticsSection.MUSCLES)) {
+                stats.muscleGroupDistribution(accumulator.muscleGroupDistribution());
             }
+            if (needsDays) {
+                stats.workoutsByDayOfWeek(accumulator.workoutsByDayOfWeek());
+            }
+            return stats.pendingSections(List.of()).build();
         }
 
-        return stats;
-    }
-
-    /**
-     * Get workouts grouped by day of week
-     */
-    public Map<String, Integer> getWorkoutsByDayOfWeek(List<Workout> workouts) {
-        Map<String, Integer> byDay = new LinkedHashMap<>();
+        // Otherwise sections scan the user's cached column index (or just the finish times),
+        // one concurrent task per section
+        SetHistoryIndex index = needsExercises ? setHistoryIndexCache.get(userId) : null;
+        HistorySnapshot finishTimes = index == null
+                ? HistorySnapshot.ofFinishTimes(workoutRepository.findFinishedAtByUserIdAndStatus(userId, WorkoutStatus.COMPLETED))
+                : null;
+
+        Map<StatisticsSection, Supplier<Consumer<UserWorkoutStatsDTO.UserWorkoutStatsDTOBuilder>>> tasks =
+                new EnumMap<>(StatisticsSection.class);
+
+        if (sections.contains(StatisticsSection.EXERCISES)) {
+            tasks.put(StatisticsSection.EXERCISES, () -> {
+                int unique = index.getTotalUniqueExercises();
+                List<ExerciseFrequencyDTO> mostFrequent = index.mostFrequentExercises(MOST_FREQUENT_LIMIT);
+                return builder -> builder.totalUniqueExercises(unique).mostFrequentExercises(mostFrequent);
+            });
+        }
 
-        // Initialize all days
-        for (DayOfWeek day : DayOfWeek.values()) {
-            byDay.put(day.name(), 0);
+        if (sections.contains(StatisticsSection.MUSCLES)) {
+            tasks.put(StatisticsSection.MUSCLES, () -> {
+                Map<String, MuscleGroupStatsDTO> muscles = index.muscleGroupDistribution();
+                return builder -> builder.muscleGroupDistribution(muscles);
+            });
         }
 
-        for (Workout workout : workouts) {
-            String day = workout.getFinishedAt().getDayOfWeek().name();
-            byDay.put(day, byDay.get(day) + 1);
+        if (sections.contains(StatisticsSection.WEEKDAYS)) {
+            tasks.put(StatisticsSection.WEEKDAYS, () -> {
+                Map<String, Integer> byDay = index != null
+                        ? index.workoutsByDayOfWeek()
+                        : finishTimes.replay(new StatsAccumulator(thirtyDaysAgo, EnumSet.of(StatisticsSection.WEEKDAYS)))
+                        .workoutsByDayOfWeek();
+                return builder -> builder.workoutsByDayOfWeek(byDay);
+            });
         }
 
-        return byDay;
+        Set<StatisticsSection> pending = sectionRunner.computeAll(tasks, (section, result) -> result.accept(stats));
+
+        return stats.pendingSections(pending.stream()
+                        .map(StatisticsSection::getParam)
+                        .collect(Collectors.toList()))
+                .build();
     }
 
     /**
-     * Get most frequent exercises
+     * Get statistics for a specific time period
      */
-    public List<ExerciseFrequencyDTO> getMostFrequentExercises(List<Workout> workouts, int limit) {
-        Map<Long, ExerciseFrequencyDTO> frequencyMap = new HashMap<>();
-
-        for (Workout workout : workouts) {
-            for (WorkoutExercise we : workout.getExercises()) {
-                Long exerciseId = we.getExercise().getId();
-
-                frequencyMap.computeIfAbsent(exerciseId, id ->
-                        ExerciseFrequencyDTO.builder()
-                                .exerciseId(id)
-                                .exerciseName(we.getExercise().getName())
-                                .imageUrl(we.getExercise().getImageUrl())
-                                .count(0)
-                                .totalSets(0)
-                                .totalVolume(0.0)
-                                .build()
-                );
-
-                ExerciseFrequencyDTO freq = frequencyMap.get(exerciseId);
-                freq.incrementCount();
-                freq.addSets(we.getSets().size());
-                freq.addVolume(calculateExerciseVolume(we));
-            }
-        }
-
-        return frequencyMap.values().stream()
-                .sorted(Comparator.comparing(ExerciseFrequencyDTO::getCount).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+    public PeriodStatsDTO getPeriodStats(Long userId, int days) {
+        return statisticsCache.get(userId, "period:" + days, () -> loadPeriodStats(userId, days));
     }
 
-    /**
-     * Calculate current workout streak
-     */
-    public int calculateCurrentStreak(List<Workout> workouts) {
-        if (workouts.isEmpty()) {
-            return 0;
-        }
+    private PeriodStatsDTO loadPeriodStats(Long userId, int days) {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
+        WorkoutTotals workoutTotals = statisticsRepository.findCompletedWorkoutTotals(userId, startDate);
+        SetTotals setTotals = statisticsRepository.findCompletedSetTotals(userId, startDate);
 
-        List<Workout> sorted = workouts.stream()
-                .sorted(Comparator.comparing(Workout::getFinishedAt).reversed())
+        List<WeeklyVolumeDTO> volumeByWeek = statisticsRepository.findCompletedVolumeByWeek(userId, startDate)
+                .stream()
+                .map(week -> WeeklyVolumeDTO.builder()
+                        .weekStart(week.getWeekStart())
+                        .workoutCount((int) week.getWorkoutCount())
+                        .totalVolume(week.getTotalVolume())
+                        .totalSets((int) week.getTotalSets())
+                        .build())
                 .collect(Collectors.toList());
 
-        Set<LocalDate> workoutDates = sorted.stream()
-                .map(w -> w.getFinishedAt().toLocalDate())
-                .collect(Collectors.toSet());
-
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        // Check if there's a workout today or yesterday
-        if (!workoutDates.contains(today) && !workoutDates.contains(yesterday)) {
-            return 0;
-        }
-
-        int streak = 0;
-        LocalDate checkDate = workoutDates.contains(today) ? today : yesterday;
-
-        while (workoutDates.contains(checkDate)) {
-            streak++;
-            checkDate = checkDate.minusDays(1);
-        }
-
-        return streak;
+        return PeriodStatsDTO.builder()
+                .periodDays(days)
+                .totalWorkouts((int) workoutTotals.getWorkoutCount())
+                .totalSets((int) setTotals.getTotalSets())
+                .totalReps((int) setTotals.getTotalReps())
+                .totalVolume(setTotals.getTotalVolume())
+                .totalDuration(workoutTotals.getTotalDuration())
+                .averageWorkoutsPerWeek((double) workoutTotals.getWorkoutCount() / (days / 7.0))
+                .volumeByWeek(volumeByWeek)
+                .build();
     }
 
     /**
-     * Calculate longest workout streak
+     * Get progress for a specific exercise, with all its sessions
      */
-    public int calculateLongestStreak(List<Workout> workouts) {
-        if (workouts.isEmpty()) {
-            return 0;
-        }
-
-        Set<LocalDate> workoutDates = workouts.stream()
-                .map(w -> w.getFinishedAt().toLocalDate())
-                .collect(Collectors.toSet());
-
-        List<LocalDate> sortedDates = new ArrayList<>(workoutDates);
-        sortedDates.sort(Comparator.naturalOrder());
-
-        int longestStreak = 1;
-        int currentStreak = 1;
-
-        for (int i = 1; i < sortedDates.size(); i++) {
-            LocalDate prev = sortedDates.get(i - 1);
-            LocalDate curr = sortedDates.get(i);
-
-            if (ChronoUnit.DAYS.between(prev, curr) == 1) {
-                currentStreak++;
-                longestStreak = Math.max(longestStreak, currentStreak);
-            } else {
-                currentStreak = 1;
-            }
-        }
-
-        return longestStreak;
+    public ExerciseProgressDTO getExerciseProgress(Long userId, Long exerciseId) {
+        return getExerciseProgress(userId, exerciseId, null, null, null, null);
     }
 
     /**
-     * Get volume by week for the last N weeks
+     * Get progress for a specific exercise between two dates, both inclusive and optional.
+     * Totals cover the whole range; sessions are returned a page at a time in chronological order.
+     * Without a limit, all sessions (after the cursor, if any) are returned, as before paging.
      */
-    public List<WeeklyVolumeDTO> getVolumeByWeek(List<Workout> workouts) {
-        Map<LocalDate, WeeklyVolumeDTO> weekMap = new HashMap<>();
-
-        for (Workout workout : workouts) {
-            LocalDate weekStart = workout.getFinishedAt().toLocalDate()
-                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-
-            weekMap.computeIfAbsent(weekStart, date ->
-                    WeeklyVolumeDTO.builder()
-                            .weekStart(date)
-                            .workoutCount(0)
-                            .totalVolume(0.0)
-                            .totalSets(0)
-                            .build()
-            );
-
-            WeeklyVolumeDTO weekStats = weekMap.get(weekStart);
-            weekStats.incrementWorkoutCount();
-            weekStats.addVolume(calculateWorkoutVolume(workout));
-            weekStats.addSets(calculateWorkoutSets(workout));
+    public ExerciseProgressDTO getExerciseProgress(
+            Long userId,
+            Long exerciseId,
+            LocalDate from,
+            LocalDate to,
+            String cursor,
+            Integer limit
+    ) {
+        if (limit != null && (limit < 1 || limit > MAX_SESSION_PAGE)) {
+            throw new ValidationException("limit must be between 1 and " + MAX_SESSION_PAGE);
         }
 
-        return weekMap.values().stream()
-                .sorted(Comparator.comparing(WeeklyVolumeDTO::getWeekStart))
-                .collect(Collectors.toList());
+        String view = "exercise:" + exerciseId + ":" + from + ":" + to + ":" + cursor + ":" + limit;
+        return statisticsCache.get(userId, view,
+                () -> loadExerciseProgress(userId, exerciseId, from, to, cursor, limit),
+                progress -> true, progress -> progress.getSessions().size());
     }
 
-    // ==================== Helper Methods ====================
-
-    private int calculateTotalSets(List<Workout> workouts) {
-        return workouts.stream()
-                .mapToInt(this::calculateWorkoutSets)
-                .sum();
-    }
+    private ExerciseProgressDTO loadExerciseProgress(
+            Long userId,
+            Long exerciseId,
+            LocalDate from,
+            LocalDate to,
+            String cursor,
+            Integer requestedLimit
+    ) {
+        LocalDateTime fromDate = from != null ? from.atStartOfDay() : ALL_TIME;
+        LocalDateTime toDate = to != null ? to.plusDays(1).atStartOfDay() : END_OF_TIME;
+
+        // Keyset cursor: finish time and id of the last session of the previous page
+        LocalDateTime afterDate = ALL_TIME;
+        long afterId = 0L;
+        if (cursor != null) {
+            try {
+                int separator = cursor.lastIndexOf('_');
+                afterDate = LocalDateTime.parse(cursor.substring(0, separator));
+                afterId = Long.parseLong(cursor.substring(separator + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new ValidationException("Invalid cursor: " + cursor);
+            }
+        }
 
-    private int calculateWorkoutSets(Workout workout) {
-        return workout.getExercises().stream()
-                .mapToInt(we -> we.getSets().size())
-                .sum();
-    }
+        ExerciseSessionTotals totals = statisticsRepository.findCompletedExerciseSessionTotals(
+                userId, exerciseId, fromDate, toDate);
+        int limit = requestedLimit != null ? requestedLimit : (int) Math.max(1, totals.getTotalSessions());
 
-    private int calculateTotalReps(List<Workout> workouts) {
-        return workouts.stream()
-                .mapToInt(this::calculateWorkoutReps)
-                .sum();
-    }
+        // One row more than the page tells whether there is a next one
+        List<ExerciseSession> page = statisticsRepository.findCompletedExerciseSessions(
+                userId, exerciseId, fromDate, toDate, afterDate, afterId, limit + 1);
 
-    private int calculateWorkoutReps(Workout workout) {
-        return workout.getExercises().stream()
-                .flatMap(we -> we.getSets().stream())
-                .filter(WorkoutSet::isCompleted)
-                .mapToInt(set -> set.getActualReps() != null ? set.getActualReps() : 0)
-                .sum();
-    }
+        String nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            ExerciseSession last = page.get(limit - 1);
+            nextCursor = last.getFinishedAt() + "_" + last.getWorkoutExerciseId();
+        }
 
-    private double calculateTotalVolume(List<Workout> workouts) {
-        return workouts.stream()
-                .mapToDouble(this::calculateWorkoutVolume)
-                .sum();
-    }
+        List<ExerciseSessionDTO> sessions = page.stream()
+                .map(session -> ExerciseSessionDTO.builder()
+                        .date(session.getFinishedAt().toLocalDate())
+                        .exerciseName(session.getExerciseName())
+                        .sets((int) session.getSets())
+                        .reps((int) session.getReps())
+                        .maxWeight(session.getMaxWeight())
+                        .averageWeight(session.getAverageWeight())
+                        .volume(session.getVolume())
+                        .build())
+                .collect(Collectors.toList());
 
-    private double calculateWorkoutVolume(Workout workout) {
-        return workout.getExercises().stream()
-                .mapToDouble(this::calculateExerciseVolume)
-                .sum();
+        return ExerciseProgressDTO.builder()
+                .exerciseId(exerciseId)
+                .exerciseName(totals.getExerciseName())
+                .totalSessions((int) totals.getTotalSessions())
+                .totalSets((int) totals.getTotalSets())
+                .totalReps((int) totals.getTotalReps())
+                .totalVolume(totals.getTotalVolume())
+                .maxWeightEver(totals.getMaxWeightEver())
+                .currentMaxWeight(totals.getCurrentMaxWeight())
+                .sessions(sessions)
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    private double calculateExerciseVolume(WorkoutExercise we) {
-        return we.getSets().stream()
-                .filter(WorkoutSet::isCompleted)
-                .mapToDouble(set -> {
-                    double weight = set.getActualWeight() != null ? set.getActualWeight() : 0.0;
-                    int reps = set.getActualReps() != null ? set.getActualReps() : 0;
-                    return weight * reps;
-                })
-                .sum();
+    /**
+     * Get all personal records for a user, one indexed read of the record table
+     */
+    public List<PersonalRecordDTO> getPersonalRecords(Long userId) {
+        return statisticsCache.get(userId, "personal-records", () -> personalRecordService.getPersonalRecords(userId));
     }
 
-    private long calculateTotalDuration(List<Workout> workouts) {
-        return workouts.stream()
-                .filter(w -> w.getStartedAt() != null && w.getFinishedAt() != null)
-                .mapToLong(w -> ChronoUnit.MINUTES.between(w.getStartedAt(), w.getFinishedAt()))
-                .sum();
+    /**
+     * Get muscle group statistics for a user, one aggregate query without loading the history
+     */
+    public Map<String, MuscleGroupStatsDTO> getMuscleGroupDistribution(Long userId) {
+        return statisticsCache.get(userId, "muscle-groups", () -> loadMuscleGroupDistribution(userId));
     }
 
-    private double calculateAverageDuration(List<Workout> workouts) {
-        List<Workout> withDuration = workouts.stream()
-                .filter(w -> w.getStartedAt() != null && w.getFinishedAt() != null)
-                .collect(Collectors.toList());
+    private Map<String, MuscleGroupStatsDTO> loadMuscleGroupDistribution(Long userId) {
+        Map<String, MuscleGroupStatsDTO> stats = new HashMap<>();
 
-        if (withDuration.isEmpty()) {
-            return 0.0;
+        for (MuscleTotals totals : statisticsRepository.findCompletedMuscleTotals(userId)) {
+            stats.put(totals.getMuscle(), new MuscleGroupStatsDTO(
+                    totals.getMuscle(),
+                    (int) totals.getWorkoutCount(),
+                    (int) totals.getTotalSets(),
+                    totals.getTotalVolume()
+            ));
         }
 
-        return withDuration.stream()
-                .mapToLong(w -> ChronoUnit.MINUTES.between(w.getStartedAt(), w.getFinishedAt()))
-                .average()
-                .orElse(0.0);
+        return stats;
     }
 
-    private int calculateUniqueExercises(List<Workout> workouts) {
-        return (int) workouts.stream()
-                .flatMap(w -> w.getExercises().stream())
-                .map(we -> we.getExercise().getId())
-                .distinct()
-                .count();
-    }
+    // ==================== Helper Methods ====================
 
-    private ExerciseSessionDTO mapToExerciseSession(WorkoutExercise we, Workout workout) {
-        List<WorkoutSet> completedSets = we.getSets().stream()
-                .filter(WorkoutSet::isCompleted)
-                .collect(Collectors.toList());
+    private double averageDuration(WorkoutTotals totals) {
+        if (totals.getTimedWorkouts() == 0) {
+            return 0.0;
+        }
 
-        double maxWeight = completedSets.stream()
-                .mapToDouble(set -> set.getActualWeight() != null ? set.getActualWeight() : 0.0)
-                .max()
-                .orElse(0.0);
-
-        double avgWeight = completedSets.stream()
-                .mapToDouble(set -> set.getActualWeight() != null ? set.getActualWeight() : 0.0)
-                .filter(w -> w > 0)
-                .average()
-                .orElse(0.0);
-
-        int totalReps = completedSets.stream()
-                .mapToInt(set -> set.getActualReps() != null ? set.getActualReps() : 0)
-                .sum();
-
-        return ExerciseSessionDTO.builder()
-                .date(workout.getFinishedAt().toLocalDate())
-                .exerciseName(we.getExercise().getName())
-                .sets(completedSets.size())
-                .reps(totalReps)
-                .maxWeight(maxWeight)
-                .averageWeight(avgWeight)
-                .volume(calculateExerciseVolume(we))
-                .build();
+        return (double) totals.getTotalDuration() / totals.getTimedWorkouts();
     }
 }
\ No newline at end of file
@@ -47,7 +47,10 @@ public class WorkoutTemplateWorkflowServiceImpl
 
     @Override
     public List<WorkoutTemplateResponseDTO> getAllForUser(Long userId) {
-        return templateRepository.findAllByUserId(userId).stream()
+        List<WorkoutTemplate> templates = templateRepository.findAllByUserIdWithExercises(userId);
+        templateRepository.fetchSetsByUserId(userId);
+
+        return templates.stream()
                 .map(this::toResponse)
                 .toList();
     }
@@ -2,9 +2,13 @@ package com.danis.backend.service.workflow;
 
 import com.danis.backend.domain.model.entities.Workout;
 import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.dto.UpdateWorkoutSetsRequest;
 import com.danis.backend.dto.WorkoutDetailResponse;
 import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.dto.WorkoutSetUpdateResult;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface WorkoutWorkflowService {
@@ -12,9 +16,12 @@ public interface WorkoutWorkflowService {
     Workout startWorkout(Long userId, Long templateId);
 
     Workout finishWorkout(Long workoutId, Long userId);
+    Workout finishWorkout(Long workoutId, Long userId, LocalDateTime finishedAt);
     WorkoutDetailResponse getWorkoutDetails(Long workoutId, Long userId);
     Optional<WorkoutDetailResponse> getActiveWorkout(Long userId);
     WorkoutSetResponse updateWorkoutSet(Long workoutId, Long exerciseId, Long setId, Long userId, UpdateWorkoutSetRequest request);
+    List<WorkoutSetUpdateResult> updateWorkoutSets(Long workoutId, Long userId, UpdateWorkoutSetsRequest request);
+    void flushActiveSession(Long userId);
     // WorkoutWorkflowService.java (interface)
     Workout pauseWorkout(Long workoutId, Long userId);
     Workout resumeWorkout(Long workoutId, Long userId);
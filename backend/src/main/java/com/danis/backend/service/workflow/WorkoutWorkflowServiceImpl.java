@@ -3,30 +3,58 @@ package com.danis.backend.service.workflow;
 import com.danis.backend.domain.model.entities.*;
 import com.danis.backend.domain.model.enums.WorkoutStatus;
 import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.WorkoutSetRepository;
 import com.danis.backend.domain.repository.WorkoutTemplateRepository;
+import com.danis.backend.domain.repository.projection.UpdatedSet;
 import com.danis.backend.dto.*;
+import com.danis.backend.exception.ValidationException;
+import com.danis.backend.service.session.ActiveSessionStore;
+import com.danis.backend.service.statistics.HistorySnapshot;
+import com.danis.backend.service.statistics.StatisticsChangedEvent;
+import com.danis.backend.service.statistics.WorkoutFinishedEvent;
 import com.danis.backend.service.workflow.WorkoutService;
 import com.danis.backend.service.workflow.WorkoutValidationService;
 import com.danis.backend.service.workflow.WorkoutWorkflowService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
 
+    // Bounds a batch update, a long session is a few dozen sets
+    private static final int MAX_SET_CHANGES = 200;
+
     private final WorkoutRepository workoutRepository;
     private final WorkoutTemplateRepository workoutTemplateRepository;
     private final WorkoutService workoutService;
     private final WorkoutValidationService workoutValidationService;
+    private final PersonalRecordService personalRecordService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WorkoutSetRepository workoutSetRepository;
+    private final WorkoutSetBatchWriter workoutSetBatchWriter;
+    private final EntityManager entityManager;
+
+    // Present with workouts.sessions.enabled
+    private final Optional<ActiveSessionStore> activeSessionStore;
 
     @Override
     public Workout startWorkout(Long userId, Long templateId) {
@@ -42,6 +70,11 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
 
     @Override
     public Workout finishWorkout(Long workoutId, Long userId) {
+        return finishWorkout(workoutId, userId, LocalDateTime.now());
+    }
+
+    @Override
+    public Workout finishWorkout(Long workoutId, Long userId, LocalDateTime finishedAt) {
         Workout workout = workoutRepository.findById(workoutId)
                 .orElseThrow(() -> new EntityNotFoundException("Workout not found"));
 
@@ -51,31 +84,54 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
         }
 
         workoutValidationService.validateFinish(workout);
-        return workoutService.finish(workout);
+
+        // Edits held in memory are written before the workout is counted
+        activeSessionStore.flatMap(store -> store.detach(userId)).ifPresent(this::writeFlush);
+        Workout finished = workoutService.finish(workout, finishedAt);
+
+        eventPublisher.publishEvent(new WorkoutFinishedEvent(userId, HistorySnapshot.entry(finished, true)));
+        return finished;
     }
 
     @Override
     @Transactional(readOnly = true)
     public WorkoutDetailResponse getWorkoutDetails(Long workoutId, Long userId) {
-        Workout workout = workoutRepository.findById(workoutId)
+        Optional<WorkoutDetailResponse> held = activeSessionStore.flatMap(store -> store.find(userId, workoutId));
+        if (held.isPresent()) {
+            return held.get();
+        }
+
+        Workout workout = workoutRepository.findByIdWithExercises(workoutId)
                 .orElseThrow(() -> new EntityNotFoundException("Workout not found"));
 
         if (!workout.getUser().getId().equals(userId)) {
             throw new IllegalStateException("You cannot view someone else's workout");
         }
 
+        workoutRepository.fetchSetsByWorkoutId(workoutId);
         return mapToDetail(workout);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<WorkoutDetailResponse> getActiveWorkout(Long userId) {
+        Optional<WorkoutDetailResponse> held = activeSessionStore.flatMap(store -> store.find(userId));
+        if (held.isPresent()) {
+            return held;
+        }
+
         return workoutRepository
                 .findFirstByUserIdAndStatusInOrderByStartedAtDesc(
                         userId,
                         List.of(WorkoutStatus.STARTED, WorkoutStatus.PAUSED)
                 )
-                .map(this::mapToDetail);
+                .flatMap(workout -> workoutRepository.findByIdWithExercises(workout.getId()))
+                .map(workout -> {
+                    workoutRepository.fetchSetsByWorkoutId(workout.getId());
+                    WorkoutDetailResponse detail = mapToDetail(workout);
+                    activeSessionStore.ifPresent(store -> admit(store, userId, workout, detail));
+                    return detail;
+                });
     }
 
     @Override
@@ -86,6 +142,45 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
             Long userId,
             UpdateWorkoutSetRequest request
     ) {
+        // A held workout takes the edit in memory, it is written with the session's next flush
+        Optional<WorkoutSetResponse> held = activeSessionStore
+                .flatMap(store -> store.updateSet(userId, workoutId, exerciseId, setId, request));
+        if (held.isPresent()) {
+            return held.get();
+        }
+
+        // One statement writes the set if every check passes; the workout graph is not loaded
+        UpdatedSet set = workoutSetRepository.updateInProgress(
+                        workoutId, exerciseId, setId, userId,
+                        request.getActualReps(), request.getActualWeight(), request.isCompleted())
+                .orElseThrow(() -> rejectedSetUpdate(workoutId, exerciseId, userId));
+
+        refreshIfLoaded(setId);
+
+        boolean newPersonalRecord = personalRecordService.onSetUpdated(userId, workoutId, set);
+        eventPublisher.publishEvent(StatisticsChangedEvent.inProgress(userId));
+
+        return WorkoutSetResponse.from(set, newPersonalRecord);
+    }
+
+    @Override
+    public List<WorkoutSetUpdateResult> updateWorkoutSets(
+            Long workoutId,
+            Long userId,
+            UpdateWorkoutSetsRequest request
+    ) {
+        List<WorkoutSetChange> changes = request.getSets();
+        if (changes == null || changes.isEmpty()) {
+            throw new ValidationException("No set changes given");
+        }
+        if (changes.size() > MAX_SET_CHANGES) {
+            throw new ValidationException("At most " + MAX_SET_CHANGES + " set changes per request");
+        }
+        if (changes.stream().anyMatch(change -> change.getExerciseId() == null || change.getSetId() == null)) {
+            throw new ValidationException("Every set change needs an exercise and a set id");
+        }
+
+        // Checked once for the whole batch, the workout graph is not loaded
         Workout workout = workoutRepository.findById(workoutId)
                 .orElseThrow(() -> new EntityNotFoundException("Workout not found"));
 
@@ -93,25 +188,107 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
             throw new IllegalStateException("You cannot update someone else's workout");
         }
 
-        workoutValidationService.validateFinish(workout); // throws if not STARTED
+        workoutValidationService.validateFinish(workout); // throws if not STARTED or PAUSED
+
+        // Edits held in memory go first, the workout is read from the database from now on
+        activeSessionStore.flatMap(store -> store.detach(userId)).ifPresent(this::writeFlush);
+
+        return writeSets(workoutId, userId, changes);
+    }
+
+    @Override
+    public void flushActiveSession(Long userId) {
+        activeSessionStore.flatMap(store -> store.drain(userId)).ifPresent(this::writeFlush);
+    }
+
+    // Write a batch of set changes of a workout checked to be the user's and in progress
+    private List<WorkoutSetUpdateResult> writeSets(Long workoutId, Long userId, List<WorkoutSetChange> changes) {
+        // The batch bypasses the persistence context, so pending changes go first
+        entityManager.flush();
+        int[] counts = workoutSetBatchWriter.write(workoutId, userId, changes);
+
+        // A change was applied if it wrote its row; only those sets are read back
+        Set<Long> appliedIds = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            if (counts[i] > 0) {
+                appliedIds.add(changes.get(i).getSetId());
+            }
+        }
+        Map<Long, UpdatedSet> written = appliedIds.isEmpty()
+                ? Map.of()
+                : workoutSetRepository.findInWorkout(workoutId, appliedIds).stream()
+                .collect(Collectors.toMap(UpdatedSet::getId, set -> set));
+        written.keySet().forEach(this::refreshIfLoaded);
+
+        Set<Long> newRecords = written.isEmpty()
+                ? Set.of()
+                : personalRecordService.onSetsUpdated(userId, workoutId, List.copyOf(written.values()));
+        if (!written.isEmpty()) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.inProgress(userId));
+        }
+
+        List<WorkoutSetUpdateResult> results = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            WorkoutSetChange change = changes.get(i);
+            UpdatedSet set = counts[i] > 0 ? written.get(change.getSetId()) : null;
+            results.add(WorkoutSetUpdateResult.builder()
+                    .exerciseId(change.getExerciseId())
+                    .setId(change.getSetId())
+                    .updated(set != null)
+                    .error(set != null ? null : "Set not found")
+                    .set(set != null ? WorkoutSetResponse.from(set, newRecords.contains(set.getId())) : null)
+                    .build());
+        }
+        return results;
+    }
+
+    // Find out why a set update matched no row, reporting it as the checks on the loaded workout would
+    private RuntimeException rejectedSetUpdate(Long workoutId, Long exerciseId, Long userId) {
+        Optional<Workout> found = workoutRepository.findById(workoutId);
+        if (found.isEmpty()) {
+            return new EntityNotFoundException("Workout not found");
+        }
 
-        WorkoutExercise exercise = workout.getExercises().stream()
-                .filter(e -> e.getId().equals(exerciseId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Exercise not found"));
+        Workout workout = found.get();
+        if (!workout.getUser().getId().equals(userId)) {
+            return new IllegalStateException("You cannot update someone else's workout");
+        }
 
-        WorkoutSet set = exercise.getSets().stream()
-                .filter(s -> s.getId().equals(setId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Set not found"));
+        workoutValidationService.validateFinish(workout); // throws if not STARTED or PAUSED
 
-        set.setActualReps(request.getActualReps());
-        set.setActualWeight(request.getActualWeight());
-        set.setCompleted(request.isCompleted());
+        if (workout.getExercises().stream().noneMatch(e -> e.getId().equals(exerciseId))) {
+            return new EntityNotFoundException("Exercise not found");
+        }
 
-        workoutRepository.save(workout); // cascading saves all
+        return new EntityNotFoundException("Set not found");
+    }
 
-        return mapToSetResponse(set, exercise);
+    // Write a session's edits held in memory; they are dropped from the session once committed
+    private void writeFlush(ActiveSessionStore.PendingFlush flush) {
+        long rejected = writeSets(flush.workoutId(), flush.userId(), flush.changes()).stream()
+                .filter(result -> !result.isUpdated())
+                .count();
+        if (rejected > 0) {
+            log.warn("Dropped {} held set edits of workout {} that is no longer in progress",
+                    rejected, flush.workoutId());
+        }
+        activeSessionStore.ifPresent(store -> store.flushed(flush));
+    }
+
+    // Hold an in-progress workout, with the user's records of its exercises for flagging new ones
+    private void admit(ActiveSessionStore store, Long userId, Workout workout, WorkoutDetailResponse detail) {
+        Map<Long, Long> exerciseOf = workout.getExercises().stream()
+                .collect(Collectors.toMap(WorkoutExercise::getId, exercise -> exercise.getExercise().getId()));
+        store.admit(userId, detail, exerciseOf,
+                personalRecordService.bestOneRepMaxes(userId, Set.copyOf(exerciseOf.values())));
+    }
+
+    // Keep an instance already loaded in this persistence context in step with its row
+    private void refreshIfLoaded(Long setId) {
+        WorkoutSet loaded = entityManager.getReference(WorkoutSet.class, setId);
+        if (Hibernate.isInitialized(loaded)) {
+            entityManager.refresh(loaded);
+        }
     }
 
     // ----------------------
@@ -176,7 +353,10 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
             throw new IllegalStateException("Can only pause a workout that is in progress");
         }
 
+        flushActiveSession(userId);
+
         workout.setStatus(WorkoutStatus.PAUSED);
+        activeSessionStore.ifPresent(store -> store.statusChanged(userId, workoutId, WorkoutStatus.PAUSED));
         return workoutRepository.save(workout);
     }
 
@@ -194,6 +374,7 @@ public class WorkoutWorkflowServiceImpl implements WorkoutWorkflowService {
         }
 
         workout.setStatus(WorkoutStatus.STARTED);
+        activeSessionStore.ifPresent(store -> store.statusChanged(userId, workoutId, WorkoutStatus.STARTED));
         return workoutRepository.save(workout);
     }
 }
@@ -0,0 +1,116 @@
+package com.danis.backend.restservices;
+
+import com.danis.backend.config.JwtService;
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.User;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.entities.WorkoutTemplate;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.WorkoutTemplateRepository;
+import com.danis.backend.support.StatementBudget;
+import com.danis.backend.support.StatementRecorder;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of the read endpoints, which must not grow with the size of a workout or template
+ */
+@SpringBootTest(properties = StatementRecorder.INSPECTOR)
+@AutoConfigureMockMvc
+@Transactional
+class EndpointStatementBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutTemplateRepository templateRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void workoutDetails() throws Exception {
+        ActiveUser small = createUser(2);
+        ActiveUser large = createUser(8);
+
+        // The workout with its template and exercises, then the sets
+        StatementBudget.assertAtMost(2, () -> getOk("/api/workouts/" + small.workoutId(), small));
+        StatementBudget.assertNotGrowing(
+                () -> getOk("/api/workouts/" + small.workoutId(), small),
+                () -> getOk("/api/workouts/" + large.workoutId(), large));
+    }
+
+    @Test
+    void activeWorkout() throws Exception {
+        ActiveUser small = createUser(2);
+        ActiveUser large = createUser(8);
+
+        // The lookup of the active workout, then the detail fetch plan
+        StatementBudget.assertAtMost(3, () -> getOk("/api/workouts/active", small));
+        StatementBudget.assertNotGrowing(
+                () -> getOk("/api/workouts/active", small),
+                () -> getOk("/api/workouts/active", large));
+    }
+
+    @Test
+    void templates() throws Exception {
+        ActiveUser small = createUser(2);
+        ActiveUser large = createUser(8);
+
+        // The templates with their exercises, then the sets
+        StatementBudget.assertAtMost(2, () -> getOk("/api/workout-templates", small));
+        StatementBudget.assertNotGrowing(
+                () -> getOk("/api/workout-templates", small),
+                () -> getOk("/api/workout-templates", large));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private record ActiveUser(Long userId, Long workoutId, String token) {
+    }
+
+    private void getOk(String path, ActiveUser user) throws Exception {
+        // Start from an empty persistence context, as a fresh request would
+        entityManager.clear();
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + user.token()))
+                .andExpect(status().isOk());
+    }
+
+    // A user with a template of the given number of exercises and a started workout from it
+    private ActiveUser createUser(int exerciseCount) {
+        User user = userRepository.save(WorkoutHistoryFixture.user());
+        List<Exercise> exercises = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(exerciseCount));
+
+        WorkoutTemplate template = templateRepository.save(WorkoutHistoryFixture.template(user, exercises, 3));
+        Workout workout = workoutRepository.saveAndFlush(
+                WorkoutHistoryFixture.inProgressWorkout(user, template, exercises, 3));
+
+        return new ActiveUser(user.getId(), workout.getId(), jwtService.generateToken(user.getId(), user.getEmail()));
+    }
+}
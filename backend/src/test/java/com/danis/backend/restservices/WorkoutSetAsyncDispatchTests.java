@@ -0,0 +1,100 @@
+package com.danis.backend.restservices;
+
+import com.danis.backend.config.JwtService;
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.repository.*;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A set update queued for the group commit is answered by an async dispatch, which runs the security
+ * filters again without the token. The committer writes on its own thread and transaction, so the
+ * fixture is committed and removed after each test rather than rolled back.
+ */
+@SpringBootTest(properties = "workouts.group-commit.enabled=true")
+@AutoConfigureMockMvc
+class WorkoutSetAsyncDispatchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private PersonalRecordRepository personalRecordRepository;
+
+    private User user;
+    private Exercise performed;
+    private Workout workout;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            user = userRepository.save(WorkoutHistoryFixture.user());
+            performed = exerciseRepository.save(WorkoutHistoryFixture.exercises(1).get(0));
+            workout = workoutRepository.save(
+                    WorkoutHistoryFixture.inProgressWorkout(user, null, List.of(performed), 2));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            personalRecordRepository.deleteAllByUserId(user.getId());
+            workoutRepository.deleteById(workout.getId());
+            exerciseRepository.deleteById(performed.getId());
+            userRepository.deleteById(user.getId());
+        });
+    }
+
+    @Test
+    void groupCommittedUpdateIsAnsweredByTheAsyncDispatch() throws Exception {
+        WorkoutExercise exercise = workout.getExercises().get(0);
+        Long setId = exercise.getSets().get(1).getId();
+
+        MvcResult queued = mockMvc.perform(put("/api/workouts/{workoutId}/exercises/{exerciseId}/sets/{setId}",
+                        workout.getId(), exercise.getId(), setId)
+                        .header("Authorization", "Bearer " + jwtService.generateToken(user.getId(), user.getEmail()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"actualReps\": 8, \"actualWeight\": 50.0, \"completed\": true}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(queued))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(setId))
+                .andExpect(jsonPath("$.actualReps").value(8))
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.newPersonalRecord").value(true));
+    }
+}
@@ -0,0 +1,250 @@
+package com.danis.backend.service.session;
+
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.dto.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActiveSessionStoreTests {
+
+    private static final Long USER = 1L;
+    private static final Long WORKOUT = 10L;
+    private static final Long EXERCISE = 100L;
+    private static final int EDITS = 200;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void editsAreServedFromMemoryAndFlushedOnce() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        admit(store);
+
+        WorkoutSetResponse updated = store.updateSet(USER, WORKOUT, EXERCISE, 1001L, request(8, 105.0)).orElseThrow();
+
+        assertThat(updated.getActualWeight()).isEqualTo(105.0);
+        assertThat(updated.isNewPersonalRecord()).isTrue();
+        assertThat(store.find(USER).orElseThrow().getExercises().get(0).getSets().get(1).getActualReps())
+                .isEqualTo(8);
+        assertThat(store.updateSet(USER, WORKOUT + 1, EXERCISE, 1001L, request(8, 105.0))).isEmpty();
+
+        ActiveSessionStore.PendingFlush flush = store.drain(USER).orElseThrow();
+        assertThat(flush.changes()).extracting(WorkoutSetChange::getSetId).containsExactly(1001L);
+
+        store.flushed(flush);
+        assertThat(store.drain(USER)).isEmpty();
+        assertThat(store.dirtyUsers()).isEmpty();
+        store.close();
+
+        // Flushed edits are not recovered
+        ActiveSessionStore reopened = open();
+        assertThat(reopened.recoveredUsers()).isEmpty();
+
+        // Compaction keeps what is still unflushed
+        reopened.markReady();
+        admit(reopened);
+        reopened.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(10, 100.0));
+        reopened.compactLog();
+        reopened.close();
+        assertThat(open().recoveredUsers()).containsExactly(USER);
+    }
+
+    @Test
+    void unflushedEditsAreRecoveredAfterACrash() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        admit(store);
+        store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(10, 100.0));
+        store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(9, 100.0));
+        store.close();
+
+        // A record torn by the crash is ignored
+        Files.write(directory.resolve("sessions.log"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        ActiveSessionStore recovered = open();
+        assertThat(recovered.recoveredUsers()).containsExactly(USER);
+
+        recovered.markReady();
+        admit(recovered);
+        assertThat(recovered.reapply(USER)).isZero();
+
+        ActiveSessionStore.PendingFlush flush = recovered.drain(USER).orElseThrow();
+        assertThat(flush.changes()).hasSize(1);
+        assertThat(flush.changes().get(0).getActualReps()).isEqualTo(9);
+        assertThat(recovered.find(USER).orElseThrow().getExercises().get(0).getSets().get(0).getActualReps())
+                .isEqualTo(9);
+
+        // Edits logged after the torn record are readable
+        recovered.updateSet(USER, WORKOUT, EXERCISE, 1001L, request(6, 100.0));
+        recovered.close();
+
+        ActiveSessionStore restarted = open();
+        restarted.markReady();
+        admit(restarted);
+        restarted.reapply(USER);
+        assertThat(restarted.drain(USER).orElseThrow().changes())
+                .extracting(WorkoutSetChange::getSetId)
+                .containsExactly(1000L, 1001L);
+    }
+
+    @Test
+    void recordFlagFollowsTheBestHeldSet() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        admit(store);
+
+        assertThat(store.updateSet(USER, WORKOUT, EXERCISE, 1001L, request(8, 105.0)).orElseThrow()
+                .isNewPersonalRecord()).isTrue();
+        assertThat(store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(8, 104.0)).orElseThrow()
+                .isNewPersonalRecord()).isFalse();
+
+        // Edited down, the other set is the best of the session
+        assertThat(store.updateSet(USER, WORKOUT, EXERCISE, 1001L, request(8, 90.0)).orElseThrow()
+                .isNewPersonalRecord()).isFalse();
+        assertThat(store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(8, 104.0)).orElseThrow()
+                .isNewPersonalRecord()).isTrue();
+        store.close();
+    }
+
+    @Test
+    void concurrentEditsSurviveCompaction() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        List<Long> users = List.of(1L, 2L, 3L, 4L);
+        users.forEach(user -> admit(store, user));
+
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        try {
+            List<Future<?>> editing = users.stream()
+                    .<Future<?>>map(user -> executor.submit(() -> {
+                        for (int reps = 1; reps <= EDITS; reps++) {
+                            store.updateSet(user, workout(user), EXERCISE, 1000L, request(reps, 100.0));
+                        }
+                    }))
+                    .toList();
+            while (editing.stream().anyMatch(edits -> !edits.isDone())) {
+                store.compactLog();
+            }
+            for (Future<?> edits : editing) {
+                edits.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        store.compactLog();
+        store.close();
+
+        ActiveSessionStore recovered = open();
+        assertThat(recovered.recoveredUsers()).containsExactlyInAnyOrderElementsOf(users);
+        recovered.markReady();
+        for (Long user : users) {
+            admit(recovered, user);
+            assertThat(recovered.reapply(user)).isZero();
+            assertThat(recovered.drain(user).orElseThrow().changes())
+                    .singleElement()
+                    .extracting(WorkoutSetChange::getActualReps)
+                    .isEqualTo(EDITS);
+        }
+    }
+
+    @Test
+    void detachedEditsSurviveCompactionUntilFlushed() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        admit(store);
+        store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(10, 100.0));
+
+        // Detached by a pause or finish whose write has not committed yet; a crash now recovers the edit
+        ActiveSessionStore.PendingFlush flush = store.detach(USER).orElseThrow();
+        store.compactLog();
+        ActiveSessionStore crashed = open();
+        assertThat(crashed.recoveredUsers()).containsExactly(USER);
+        crashed.close();
+
+        store.flushed(flush);
+        store.compactLog();
+        store.close();
+        assertThat(open().recoveredUsers()).isEmpty();
+    }
+
+    @Test
+    void logIsCompactedOnceItHasGrownPastTheThreshold() throws Exception {
+        ActiveSessionStore store = open();
+        store.markReady();
+        admit(store);
+        assertThat(store.shouldCompactLog()).isFalse();
+
+        for (int reps = 1; !store.shouldCompactLog(); reps++) {
+            store.updateSet(USER, WORKOUT, EXERCISE, 1000L, request(reps, 100.0));
+        }
+        store.compactLog();
+
+        // Only the set's latest edit is left
+        assertThat(store.shouldCompactLog()).isFalse();
+        store.close();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private ActiveSessionStore open() throws Exception {
+        return new ActiveSessionStore(10, 60, directory.resolve("sessions.log").toString(), true, 1024);
+    }
+
+    private void admit(ActiveSessionStore store) {
+        admit(store, USER);
+    }
+
+    private void admit(ActiveSessionStore store, Long user) {
+        List<WorkoutSetResponse> sets = List.of(set(1000L, 1), set(1001L, 2));
+        WorkoutDetailResponse detail = WorkoutDetailResponse.builder()
+                .id(workout(user))
+                .templateName("Template")
+                .status(WorkoutStatus.STARTED)
+                .startedAt(LocalDateTime.now())
+                .exercises(List.of(WorkoutExerciseResponse.builder()
+                        .id(EXERCISE)
+                        .exerciseName("Bench Press")
+                        .orderIndex(0)
+                        .sets(sets)
+                        .build()))
+                .build();
+
+        // Previous best: 100 x 5
+        store.admit(user, detail, Map.of(EXERCISE, 7L), Map.of(7L, 100.0 * (1 + 5 / 30.0)));
+    }
+
+    // Each user's workout has its own id, with the same exercise and sets
+    private Long workout(Long user) {
+        return WORKOUT + user - USER;
+    }
+
+    private WorkoutSetResponse set(Long id, int number) {
+        return WorkoutSetResponse.builder()
+                .id(id)
+                .setNumber(number)
+                .plannedReps(10)
+                .plannedWeight(100.0)
+                .build();
+    }
+
+    private UpdateWorkoutSetRequest request(int reps, double weight) {
+        UpdateWorkoutSetRequest request = new UpdateWorkoutSetRequest();
+        request.setActualReps(reps);
+        request.setActualWeight(weight);
+        request.setCompleted(true);
+        return request;
+    }
+}
@@ -0,0 +1,70 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityBitmapTests {
+
+    private final WorkoutHistoryStatistics reference = new WorkoutHistoryStatistics();
+
+    @Test
+    void streaksMatchReferenceImplementation() {
+        List<Exercise> exercises = WorkoutHistoryFixture.exercises(2);
+        List<Workout> history = WorkoutHistoryFixture.history(WorkoutHistoryFixture.user(), exercises, 500, 1, 1, 3L);
+
+        // Starts after most of the history, which grows the bitmap towards the past
+        ActivityBitmap activity = new ActivityBitmap(LocalDate.now().minusDays(100));
+        history.forEach(w -> activity.set(w.getFinishedAt().toLocalDate()));
+
+        assertThat(activity.currentStreak(LocalDate.now())).isEqualTo(reference.calculateCurrentStreak(history));
+        assertThat(activity.longestStreak()).isEqualTo(reference.calculateLongestStreak(history));
+
+        ActivityBitmap decoded = ActivityBitmap.decode(activity.getStart(), activity.encode());
+        assertThat(decoded.longestStreak()).isEqualTo(activity.longestStreak());
+        assertThat(decoded.cardinality()).isEqualTo(activity.cardinality());
+    }
+
+    @Test
+    void rangesAndWeekdaysMatchDayByDayCount() {
+        LocalDate start = LocalDate.of(2023, 11, 7);
+        ActivityBitmap activity = new ActivityBitmap(start);
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (int i = 0; i < 400; i += 1 + (i * 7919) % 4) {
+            days.add(start.plusDays(i));
+            activity.set(start.plusDays(i));
+        }
+
+        LocalDate from = LocalDate.of(2024, 2, 1);
+        LocalDate to = LocalDate.of(2024, 8, 31);
+        List<LocalDate> expected = List.copyOf(days.subSet(from, true, to, true));
+        assertThat(activity.activeDays(from, to)).isEqualTo(expected);
+
+        int[] counts = activity.countByDayOfWeek(from, to);
+        Map<DayOfWeek, Long> byDay = new EnumMap<>(DayOfWeek.class);
+        expected.forEach(day -> byDay.merge(day.getDayOfWeek(), 1L, Long::sum));
+        for (DayOfWeek day : DayOfWeek.values()) {
+            assertThat(counts[day.ordinal()]).isEqualTo(byDay.getOrDefault(day, 0L).intValue());
+        }
+    }
+
+    @Test
+    void noStreakWithoutRecentActivity() {
+        ActivityBitmap activity = new ActivityBitmap(LocalDate.now().minusDays(10));
+        activity.set(LocalDate.now().minusDays(5));
+
+        assertThat(activity.currentStreak(LocalDate.now())).isZero();
+        assertThat(activity.longestStreak()).isEqualTo(1);
+        assertThat(activity.isSet(LocalDate.now().minusDays(5))).isTrue();
+    }
+}
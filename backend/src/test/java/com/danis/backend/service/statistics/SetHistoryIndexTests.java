@@ -0,0 +1,87 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.dto.ExerciseFrequencyDTO;
+import com.danis.backend.dto.MuscleGroupStatsDTO;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SetHistoryIndexTests {
+
+    private List<Workout> history;
+
+    @BeforeEach
+    void setUp() {
+        List<Exercise> exercises = WorkoutHistoryFixture.exercises(8);
+        for (int i = 0; i < exercises.size(); i++) {
+            exercises.get(i).setId((long) i + 1);
+        }
+        history = WorkoutHistoryFixture.history(WorkoutHistoryFixture.user(), exercises, 300, 5, 4, 11L);
+    }
+
+    @Test
+    void scansMatchAccumulator() {
+        SetHistoryIndex index = HistorySnapshot.of(history, true).replay(new SetHistoryIndex());
+        index.publish();
+
+        assertSameSections(index, HistorySnapshot.of(history, true)
+                .replay(new StatsAccumulator(LocalDateTime.now().minusDays(30))));
+        assertThat(index.getWorkoutCount()).isEqualTo(history.size());
+        assertThat(index.getSetCount()).isEqualTo(300 * 5 * 4);
+    }
+
+    @Test
+    void appendedWorkoutsMatchIndexBuiltAtOnce() {
+        // The fixture lists the most recent workout first
+        SetHistoryIndex index = HistorySnapshot.of(history.subList(10, history.size()), true)
+                .replay(new SetHistoryIndex());
+        index.publish();
+        long footprint = index.footprintBytes();
+
+        for (int i = 9; i >= 0; i--) {
+            index.append(HistorySnapshot.entry(history.get(i), true));
+        }
+
+        assertSameSections(index, HistorySnapshot.of(history, true)
+                .replay(new StatsAccumulator(LocalDateTime.now().minusDays(30))));
+        assertThat(index.footprintBytes()).isGreaterThanOrEqualTo(footprint);
+    }
+
+    @Test
+    void unpublishedRowsAreNotScanned() {
+        SetHistoryIndex index = new SetHistoryIndex();
+        HistorySnapshot.of(history, true).replay(index);
+
+        assertThat(index.getWorkoutCount()).isZero();
+        assertThat(index.mostFrequentExercises(5)).isEmpty();
+    }
+
+    private void assertSameSections(SetHistoryIndex index, StatsAccumulator expected) {
+        assertThat(index.getTotalUniqueExercises()).isEqualTo(expected.getTotalUniqueExercises());
+        assertThat(index.workoutsByDayOfWeek()).isEqualTo(expected.workoutsByDayOfWeek());
+
+        // Ties in frequency are ordered arbitrarily, so only the counts are compared
+        assertThat(index.mostFrequentExercises(5)).extracting(ExerciseFrequencyDTO::getCount)
+                .containsExactlyElementsOf(expected.mostFrequentExercises(5).stream()
+                        .map(ExerciseFrequencyDTO::getCount)
+                        .toList());
+
+        Map<String, MuscleGroupStatsDTO> expectedMuscles = expected.muscleGroupDistribution();
+        Map<String, MuscleGroupStatsDTO> actualMuscles = index.muscleGroupDistribution();
+        assertThat(actualMuscles.keySet()).isEqualTo(expectedMuscles.keySet());
+        expectedMuscles.forEach((muscle, stats) -> {
+            assertThat(actualMuscles.get(muscle).getWorkoutCount()).isEqualTo(stats.getWorkoutCount());
+            assertThat(actualMuscles.get(muscle).getTotalSets()).isEqualTo(stats.getTotalSets());
+            assertThat(actualMuscles.get(muscle).getTotalVolume()).isCloseTo(stats.getTotalVolume(), within(0.001));
+        });
+    }
+}
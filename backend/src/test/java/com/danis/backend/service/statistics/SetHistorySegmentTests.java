@@ -0,0 +1,62 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SetHistorySegmentTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappedSegmentReplaysTheWrittenHistory() throws Exception {
+        List<Exercise> exercises = WorkoutHistoryFixture.exercises(6);
+        Map<Long, SetHistoryIndex.ExerciseInfo> dictionary = new HashMap<>();
+        for (int i = 0; i < exercises.size(); i++) {
+            Exercise exercise = exercises.get(i);
+            exercise.setId((long) i + 1);
+            dictionary.put(exercise.getId(), new SetHistoryIndex.ExerciseInfo(
+                    exercise.getId(), exercise.getName(), exercise.getImageUrl(), exercise.getTargetMuscles()));
+        }
+        List<Workout> history = WorkoutHistoryFixture.history(WorkoutHistoryFixture.user(), exercises, 200, 4, 3, 5L);
+        for (int i = 0; i < history.size(); i++) {
+            history.get(i).setId(1000L + i);
+        }
+
+        Path file = directory.resolve("segment-00000000.dat");
+        HistorySnapshot.of(history, true).replay(new SetHistorySegment.Writer()).writeTo(file);
+        SetHistorySegment segment = SetHistorySegment.open(file);
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        StatsAccumulator expected = history.stream().collect(StatsAccumulator.collector(cutoff));
+        StatsAccumulator actual = segment.replay(new StatsAccumulator(cutoff), dictionary);
+
+        assertThat(segment.getSetCount()).isEqualTo(200 * 4 * 3);
+        assertThat(segment.containsWorkout(1000L)).isTrue();
+        assertThat(segment.containsWorkout(999L)).isFalse();
+
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(actual.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(actual.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(actual.getTotalDuration()).isEqualTo(expected.getTotalDuration());
+        assertThat(actual.longestStreak()).isEqualTo(expected.longestStreak());
+        assertThat(actual.currentStreak(LocalDate.now())).isEqualTo(expected.currentStreak(LocalDate.now()));
+        assertThat(actual.workoutsByDayOfWeek()).isEqualTo(expected.workoutsByDayOfWeek());
+        assertThat(actual.muscleGroupDistribution().keySet()).isEqualTo(expected.muscleGroupDistribution().keySet());
+        assertThat(actual.personalRecords()).hasSameSizeAs(expected.personalRecords());
+    }
+}
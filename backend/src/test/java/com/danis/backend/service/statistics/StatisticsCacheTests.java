@@ -0,0 +1,179 @@
+package com.danis.backend.service.statistics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatisticsCacheTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StatisticsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new StatisticsCache(meterRegistry, 1000, 10, 5000);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Callable<String> request = () -> cache.get(1L, "overview", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "stats";
+            }, value -> false);
+
+            Future<String> first = executor.submit(request);
+            waitForInFlight(1);
+            Future<String> second = executor.submit(request);
+            Future<String> third = executor.submit(request);
+            waitForCoalesced(2);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("stats");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("stats");
+            assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("stats");
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(inFlight()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void callersStopWaitingForASlowLoad() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        StatisticsCache impatient = new StatisticsCache(meterRegistry, 1000, 10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> first = executor.submit(() -> impatient.get(1L, "overview", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "slow";
+            }, value -> false));
+            waitForInFlight(1);
+
+            // Loaded alongside the stalled leader once the wait is over
+            assertThat(impatient.get(1L, "overview", () -> {
+                loads.incrementAndGet();
+                return "own";
+            }, value -> false)).isEqualTo("own");
+            assertThat(meterRegistry.get("statistics.requests.coalesce-timeouts").counter().count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+            assertThat(loads.get()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void loadsAgainAfterInvalidation() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "overview", loads::incrementAndGet, value -> false);
+        cache.invalidate(1L);
+        cache.get(1L, "overview", loads::incrementAndGet, value -> false);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void invalidationDropsOnlyThatUsersViews() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "overview", loads::incrementAndGet);
+        cache.get(1L, "activity", loads::incrementAndGet);
+        cache.get(2L, "overview", loads::incrementAndGet);
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L, "overview", loads::incrementAndGet)).isEqualTo(4);
+        assertThat(cache.get(1L, "activity", loads::incrementAndGet)).isEqualTo(5);
+        assertThat(cache.get(2L, "overview", loads::incrementAndGet)).isEqualTo(3);
+    }
+
+    @Test
+    void valueLoadedAcrossAnInvalidationIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "overview", () -> {
+            cache.invalidate(1L);
+            return loads.incrementAndGet();
+        });
+
+        assertThat(cache.get(1L, "overview", loads::incrementAndGet)).isEqualTo(2);
+        assertThat(cache.get(1L, "overview", loads::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void waitingCallersGetTheLoadFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Callable<String> request = () -> cache.get(1L, "overview", () -> {
+                await(release);
+                throw new IllegalStateException("boom");
+            }, value -> false);
+
+            Future<String> first = executor.submit(request);
+            waitForInFlight(1);
+            Future<String> second = executor.submit(request);
+            waitForCoalesced(1);
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(inFlight()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private double coalesced() {
+        return meterRegistry.get("statistics.requests.coalesced").counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("statistics.requests.in-flight").gauge().value();
+    }
+
+    private void waitForInFlight(int count) throws InterruptedException {
+        while (inFlight() < count) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForCoalesced(int count) throws InterruptedException {
+        while (coalesced() < count) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
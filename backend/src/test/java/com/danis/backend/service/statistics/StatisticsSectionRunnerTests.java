@@ -0,0 +1,83 @@
+package com.danis.backend.service.statistics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatisticsSectionRunnerTests {
+
+    private final StatisticsSectionRunner runner = new StatisticsSectionRunner(4, 10, 200);
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void sectionsPastTheDeadlineArePending() {
+        Map<StatisticsSection, Supplier<String>> tasks = new EnumMap<>(StatisticsSection.class);
+        tasks.put(StatisticsSection.EXERCISES, () -> "exercises");
+        tasks.put(StatisticsSection.MUSCLES, () -> {
+            sleep(5_000);
+            return "muscles";
+        });
+        tasks.put(StatisticsSection.WEEKDAYS, () -> "weekdays");
+
+        Map<StatisticsSection, String> results = new EnumMap<>(StatisticsSection.class);
+        long started = System.nanoTime();
+        Set<StatisticsSection> pending = runner.computeAll(tasks, results::put);
+
+        assertThat(pending).containsExactly(StatisticsSection.MUSCLES);
+        assertThat(results).containsOnlyKeys(StatisticsSection.EXERCISES, StatisticsSection.WEEKDAYS);
+        assertThat(System.nanoTime() - started).isLessThan(2_000_000_000L);
+    }
+
+    @Test
+    void sectionsRejectedBySaturatedPoolArePending() {
+        StatisticsSectionRunner saturated = new StatisticsSectionRunner(1, 0, 200);
+        try {
+            Map<StatisticsSection, Supplier<String>> tasks = new EnumMap<>(StatisticsSection.class);
+            tasks.put(StatisticsSection.EXERCISES, () -> {
+                sleep(5_000);
+                return "exercises";
+            });
+            tasks.put(StatisticsSection.MUSCLES, () -> "muscles");
+
+            long started = System.nanoTime();
+            Set<StatisticsSection> pending = saturated.computeAll(tasks, (section, result) -> {
+            });
+
+            assertThat(pending).containsExactlyInAnyOrder(StatisticsSection.EXERCISES, StatisticsSection.MUSCLES);
+            assertThat(System.nanoTime() - started).isLessThan(2_000_000_000L);
+        } finally {
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    void failuresAreRethrown() {
+        Map<StatisticsSection, Supplier<String>> tasks = new EnumMap<>(StatisticsSection.class);
+        tasks.put(StatisticsSection.EXERCISES, () -> "exercises");
+        tasks.put(StatisticsSection.MUSCLES, () -> {
+            throw new IllegalArgumentException("broken");
+        });
+
+        assertThatThrownBy(() -> runner.computeAll(tasks, (section, result) -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.danis.backend.service.statistics;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.dto.ExerciseFrequencyDTO;
+import com.danis.backend.dto.PersonalRecordDTO;
+import com.danis.backend.dto.UserWorkoutStatsDTO;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StatsAccumulatorTests {
+
+    private final WorkoutHistoryStatistics reference = new WorkoutHistoryStatistics();
+
+    private List<Workout> history;
+
+    @BeforeEach
+    void setUp() {
+        List<Exercise> exercises = WorkoutHistoryFixture.exercises(8);
+        for (int i = 0; i < exercises.size(); i++) {
+            exercises.get(i).setId((long) i + 1);
+        }
+        history = WorkoutHistoryFixture.history(WorkoutHistoryFixture.user(), exercises, 400, 5, 4, 7L);
+    }
+
+    @Test
+    void singlePassMatchesReferenceImplementation() {
+        StatsAccumulator accumulator = history.stream()
+                .collect(StatsAccumulator.collector(LocalDateTime.now().minusDays(30)));
+
+        assertSameStats(accumulator.toUserWorkoutStats(LocalDate.now(), 5),
+                reference.computeUserWorkoutStats(history));
+    }
+
+    @Test
+    void parallelReductionMatchesSequential() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        StatsAccumulator sequential = history.stream().collect(StatsAccumulator.collector(cutoff));
+        StatsAccumulator parallel = history.parallelStream().collect(StatsAccumulator.collector(cutoff));
+
+        assertSameStats(parallel.toUserWorkoutStats(LocalDate.now(), 5),
+                sequential.toUserWorkoutStats(LocalDate.now(), 5));
+    }
+
+    @Test
+    void emptyHistoryHasNoStreaks() {
+        StatsAccumulator accumulator = new StatsAccumulator(LocalDateTime.now().minusDays(30));
+
+        assertThat(accumulator.currentStreak(LocalDate.now())).isZero();
+        assertThat(accumulator.longestStreak()).isZero();
+        assertThat(accumulator.getAverageWorkoutDuration()).isZero();
+    }
+
+    @Test
+    void streaksSpanDaysBefore1970() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        StatsAccumulator early = new StatsAccumulator(cutoff);
+        early.beginWorkout(null, LocalDateTime.of(1969, 12, 30, 18, 0));
+        early.beginWorkout(null, LocalDateTime.of(1969, 12, 31, 18, 0));
+        StatsAccumulator late = new StatsAccumulator(cutoff);
+        late.beginWorkout(null, LocalDateTime.of(1970, 1, 1, 18, 0));
+        late.beginWorkout(null, LocalDateTime.of(1970, 1, 2, 18, 0));
+
+        late.merge(early);
+
+        assertThat(late.longestStreak()).isEqualTo(4);
+        assertThat(late.currentStreak(LocalDate.of(1970, 1, 3))).isEqualTo(4);
+        assertThat(late.currentStreak(LocalDate.of(1969, 12, 30))).isEqualTo(1);
+    }
+
+    private void assertSameStats(UserWorkoutStatsDTO actual, UserWorkoutStatsDTO expected) {
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(actual.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(actual.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(actual.getTotalDuration()).isEqualTo(expected.getTotalDuration());
+        assertThat(actual.getWorkoutsLast30Days()).isEqualTo(expected.getWorkoutsLast30Days());
+        assertThat(actual.getVolumeLast30Days()).isCloseTo(expected.getVolumeLast30Days(), within(0.001));
+        assertThat(actual.getAverageWorkoutDuration()).isCloseTo(expected.getAverageWorkoutDuration(), within(0.001));
+        assertThat(actual.getCurrentStreak()).isEqualTo(expected.getCurrentStreak());
+        assertThat(actual.getLongestStreak()).isEqualTo(expected.getLongestStreak());
+        assertThat(actual.getTotalUniqueExercises()).isEqualTo(expected.getTotalUniqueExercises());
+        assertThat(actual.getWorkoutsByDayOfWeek()).isEqualTo(expected.getWorkoutsByDayOfWeek());
+
+        // Ties in frequency are ordered arbitrarily, so only the counts are compared
+        assertThat(actual.getMostFrequentExercises()).extracting(ExerciseFrequencyDTO::getCount)
+                .containsExactlyElementsOf(expected.getMostFrequentExercises().stream()
+                        .map(ExerciseFrequencyDTO::getCount).toList());
+
+        assertThat(actual.getMuscleGroupDistribution().keySet())
+                .isEqualTo(expected.getMuscleGroupDistribution().keySet());
+        expected.getMuscleGroupDistribution().forEach((muscle, stats) -> {
+            assertThat(actual.getMuscleGroupDistribution().get(muscle).getWorkoutCount())
+                    .isEqualTo(stats.getWorkoutCount());
+            assertThat(actual.getMuscleGroupDistribution().get(muscle).getTotalSets())
+                    .isEqualTo(stats.getTotalSets());
+            assertThat(actual.getMuscleGroupDistribution().get(muscle).getTotalVolume())
+                    .isCloseTo(stats.getTotalVolume(), within(0.001));
+        });
+
+        assertThat(actual.getPersonalRecords()).hasSameSizeAs(expected.getPersonalRecords());
+        for (PersonalRecordDTO record : expected.getPersonalRecords()) {
+            PersonalRecordDTO match = actual.getPersonalRecords().stream()
+                    .filter(pr -> pr.getExerciseId().equals(record.getExerciseId()))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(match.getEstimatedOneRepMax()).isCloseTo(record.getEstimatedOneRepMax(), within(0.001));
+            assertThat(match.getAchievedAt()).isEqualTo(record.getAchievedAt());
+        }
+    }
+}
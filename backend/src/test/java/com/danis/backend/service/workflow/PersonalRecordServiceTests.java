@@ -0,0 +1,143 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.PersonalRecordDTO;
+import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Transactional
+class PersonalRecordServiceTests {
+
+    @Autowired
+    private WorkoutWorkflowService workoutWorkflowService;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    private User user;
+    private Workout active;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(WorkoutHistoryFixture.user());
+        Exercise exercise = exerciseRepository.save(WorkoutHistoryFixture.exercises(1).get(0));
+
+        // Previous best: 100 x 5
+        Workout previous = workout(exercise, WorkoutStatus.COMPLETED, 100.0);
+        previous.setStartedAt(LocalDateTime.now().minusDays(2).minusHours(1));
+        previous.setFinishedAt(LocalDateTime.now().minusDays(2));
+        workoutRepository.saveAndFlush(previous);
+        userStatsService.rebuild(user.getId());
+
+        active = workout(exercise, WorkoutStatus.STARTED, null);
+        active.setStartedAt(LocalDateTime.now());
+        workoutRepository.saveAndFlush(active);
+    }
+
+    @Test
+    void setUpdatesFlagAndRevertRecords() {
+        assertThat(updateSet(0, 80.0, true)).isFalse();
+        assertThat(bestWeight()).isCloseTo(100.0, within(0.001));
+
+        assertThat(updateSet(1, 120.0, true)).isTrue();
+        assertThat(bestWeight()).isCloseTo(120.0, within(0.001));
+
+        // Uncompleting the record set falls back to the best remaining set
+        assertThat(updateSet(1, 120.0, false)).isFalse();
+        assertThat(bestWeight()).isCloseTo(100.0, within(0.001));
+    }
+
+    @Test
+    void finishingReconcilesRecordsTakenDuringTheWorkout() {
+        assertThat(updateSet(0, 120.0, true)).isTrue();
+        // Edited down after being flagged, without going through the record check again
+        active.getExercises().get(0).getSets().get(0).setActualWeight(110.0);
+
+        Workout finished = workoutWorkflowService.finishWorkout(active.getId(), user.getId());
+
+        List<PersonalRecordDTO> records = personalRecordService.getPersonalRecords(user.getId());
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).getWeight()).isCloseTo(110.0, within(0.001));
+        assertThat(records.get(0).getAchievedAt()).isEqualTo(finished.getFinishedAt());
+    }
+
+    @Test
+    void rebuildKeepsRecordsTakenDuringTheWorkout() {
+        assertThat(updateSet(1, 120.0, true)).isTrue();
+
+        userStatsService.rebuild(user.getId());
+
+        assertThat(bestWeight()).isCloseTo(120.0, within(0.001));
+    }
+
+    private boolean updateSet(int index, double weight, boolean completed) {
+        WorkoutExercise we = active.getExercises().get(0);
+
+        UpdateWorkoutSetRequest request = new UpdateWorkoutSetRequest();
+        request.setActualReps(5);
+        request.setActualWeight(weight);
+        request.setCompleted(completed);
+
+        return workoutWorkflowService.updateWorkoutSet(
+                active.getId(), we.getId(), we.getSets().get(index).getId(), user.getId(), request
+        ).isNewPersonalRecord();
+    }
+
+    private double bestWeight() {
+        return personalRecordService.getPersonalRecords(user.getId()).get(0).getWeight();
+    }
+
+    private Workout workout(Exercise exercise, WorkoutStatus status, Double weight) {
+        Workout workout = Workout.builder()
+                .user(user)
+                .status(status)
+                .build();
+
+        WorkoutExercise we = WorkoutExercise.builder()
+                .workout(workout)
+                .exercise(exercise)
+                .orderIndex(0)
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            we.getSets().add(WorkoutSet.builder()
+                    .workoutExercise(we)
+                    .plannedReps(5)
+                    .actualReps(weight != null ? 5 : null)
+                    .actualWeight(weight)
+                    .completed(weight != null)
+                    .build());
+        }
+
+        workout.getExercises().add(we);
+        return workout;
+    }
+}
@@ -0,0 +1,81 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.AnalyticsBucketDTO;
+import com.danis.backend.dto.AnalyticsDTO;
+import com.danis.backend.service.statistics.AnalyticsGranularity;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Transactional
+class UserStatsServiceTests {
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Test
+    void monthlyAnalyticsMatchHistory() {
+        User user = userRepository.save(WorkoutHistoryFixture.user());
+        List<Exercise> exercises = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(6));
+        List<Workout> history = workoutRepository.saveAllAndFlush(
+                WorkoutHistoryFixture.history(user, exercises, 80, 3, 3, 7L));
+
+        // Expected workouts and volume per month
+        Map<LocalDate, int[]> workouts = new TreeMap<>();
+        Map<LocalDate, Double> volume = new TreeMap<>();
+        for (Workout workout : history) {
+            LocalDate month = workout.getFinishedAt().toLocalDate().withDayOfMonth(1);
+            workouts.computeIfAbsent(month, m -> new int[1])[0]++;
+            for (WorkoutExercise we : workout.getExercises()) {
+                for (WorkoutSet set : we.getSets()) {
+                    if (set.isCompleted() && set.getActualWeight() != null) {
+                        volume.merge(month, set.getActualWeight() * set.getActualReps(), Double::sum);
+                    }
+                }
+            }
+        }
+
+        // History saved directly has no rollups yet; the statistics-rebuild job would build them
+        userStatsService.rebuild(user.getId());
+
+        AnalyticsDTO analytics = userStatsService.getAnalytics(
+                user.getId(), LocalDate.now().minusYears(2), LocalDate.now(), AnalyticsGranularity.MONTH);
+
+        List<AnalyticsBucketDTO> buckets = analytics.getBuckets();
+        assertThat(buckets).extracting(AnalyticsBucketDTO::getBucketStart).containsExactlyElementsOf(workouts.keySet());
+        for (AnalyticsBucketDTO bucket : buckets) {
+            assertThat(bucket.getWorkouts()).isEqualTo(workouts.get(bucket.getBucketStart())[0]);
+            assertThat(bucket.getVolume()).isCloseTo(volume.getOrDefault(bucket.getBucketStart(), 0.0), within(0.001));
+        }
+
+        // Coarser buckets add up to the same totals
+        AnalyticsDTO yearly = userStatsService.getAnalytics(
+                user.getId(), LocalDate.now().minusYears(2), LocalDate.now(), AnalyticsGranularity.YEAR);
+        assertThat(yearly.getBuckets().stream().mapToInt(AnalyticsBucketDTO::getWorkouts).sum())
+                .isEqualTo(history.size());
+    }
+}
@@ -0,0 +1,183 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.model.enums.WorkoutEventType;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.domain.repository.WorkoutTemplateRepository;
+import com.danis.backend.dto.WorkoutJournalEventDTO;
+import com.danis.backend.dto.WorkoutJournalRequest;
+import com.danis.backend.dto.WorkoutJournalResponse;
+import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.exception.ValidationException;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class WorkoutJournalTests {
+
+    @Autowired
+    private WorkoutJournalService workoutJournalService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutTemplateRepository templateRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    private User user;
+    private Workout workout;
+    private WorkoutExercise exercise;
+
+    // When the next event occurs, a minute after the previous one
+    private LocalDateTime clock;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(WorkoutHistoryFixture.user());
+        Exercise performed = exerciseRepository.save(WorkoutHistoryFixture.exercises(1).get(0));
+
+        WorkoutTemplate template = templateRepository.save(WorkoutHistoryFixture.template(user));
+        workout = WorkoutHistoryFixture.inProgressWorkout(user, template, List.of(performed), 2);
+        exercise = workout.getExercises().get(0);
+        workoutRepository.saveAndFlush(workout);
+        clock = workout.getStartedAt();
+    }
+
+    @Test
+    void journalIsAppliedOnceAndReturnsTheFinalState() {
+        List<WorkoutJournalEventDTO> events = List.of(
+                setEvent("e1", WorkoutEventType.SET_COMPLETED, 0, 10, 40.0),
+                event("e2", WorkoutEventType.PAUSED),
+                event("e3", WorkoutEventType.RESUMED),
+                setEvent("e4", WorkoutEventType.SET_COMPLETED, 1, 8, 40.0),
+                setEvent("e5", WorkoutEventType.SET_EDITED, 1, 9, 42.5),
+                event("e6", WorkoutEventType.FINISHED));
+
+        WorkoutJournalResponse first = workoutJournalService.replay(workout.getId(), user.getId(), journal(events));
+
+        assertThat(first.getAppliedEventIds()).containsExactly("e1", "e2", "e3", "e4", "e5", "e6");
+        assertThat(first.getDuplicateEventIds()).isEmpty();
+        assertThat(first.getWorkout().getStatus()).isEqualTo(WorkoutStatus.COMPLETED);
+        assertThat(first.getWorkout().getFinishedAt()).isEqualTo(events.get(5).getOccurredAt());
+
+        // The edit of the completed set keeps it completed only if it says so
+        List<WorkoutSetResponse> sets = first.getWorkout().getExercises().get(0).getSets();
+        assertThat(sets.get(0).isCompleted()).isTrue();
+        assertThat(sets.get(1).getActualReps()).isEqualTo(9);
+        assertThat(sets.get(1).getActualWeight()).isEqualTo(42.5);
+        assertThat(sets.get(1).isCompleted()).isFalse();
+
+        // A retried upload applies nothing, even though the workout is finished by now
+        WorkoutJournalResponse retry = workoutJournalService.replay(workout.getId(), user.getId(), journal(events));
+
+        assertThat(retry.getAppliedEventIds()).isEmpty();
+        assertThat(retry.getDuplicateEventIds()).containsExactly("e1", "e2", "e3", "e4", "e5", "e6");
+        assertThat(retry.getWorkout()).isEqualTo(first.getWorkout());
+    }
+
+    @Test
+    void retryAppliesOnlyNewEvents() {
+        WorkoutJournalEventDTO completed = setEvent("e1", WorkoutEventType.SET_COMPLETED, 0, 10, 40.0);
+        workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(completed)));
+
+        WorkoutJournalResponse response = workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(
+                completed,
+                event("e2", WorkoutEventType.PAUSED),
+                event("e2", WorkoutEventType.PAUSED))));
+
+        assertThat(response.getAppliedEventIds()).containsExactly("e2");
+        assertThat(response.getDuplicateEventIds()).containsExactly("e1", "e2");
+        assertThat(response.getWorkout().getStatus()).isEqualTo(WorkoutStatus.PAUSED);
+    }
+
+    @Test
+    void journalWithAnUnknownSetIsRejected() {
+        WorkoutJournalEventDTO unknown = setEvent("e1", WorkoutEventType.SET_COMPLETED, 0, 10, 40.0);
+        unknown.setSetId(-1L);
+
+        assertThatThrownBy(() -> workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(unknown))))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void eventsGoingBackInTimeAreRejected() {
+        WorkoutJournalEventDTO paused = event("e1", WorkoutEventType.PAUSED);
+        WorkoutJournalEventDTO resumed = event("e2", WorkoutEventType.RESUMED);
+        resumed.setOccurredAt(paused.getOccurredAt().minusSeconds(1));
+
+        assertThatThrownBy(() -> workoutJournalService.replay(workout.getId(), user.getId(),
+                journal(List.of(paused, resumed))))
+                .isInstanceOf(ValidationException.class);
+
+        WorkoutJournalEventDTO early = event("e3", WorkoutEventType.PAUSED);
+        early.setOccurredAt(workout.getStartedAt().minusMinutes(1));
+
+        assertThatThrownBy(() -> workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(early))))
+                .isInstanceOf(ValidationException.class);
+
+        // Nor may a later upload go back before what was applied already
+        WorkoutJournalEventDTO finished = event("e4", WorkoutEventType.FINISHED);
+        workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(paused)));
+        finished.setOccurredAt(paused.getOccurredAt().minusSeconds(1));
+
+        assertThatThrownBy(() -> workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(finished))))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void eventsFromTheFutureAreRejected() {
+        WorkoutJournalEventDTO finished = event("e1", WorkoutEventType.FINISHED);
+        finished.setOccurredAt(LocalDateTime.now().plusDays(1));
+
+        assertThatThrownBy(() -> workoutJournalService.replay(workout.getId(), user.getId(), journal(List.of(finished))))
+                .isInstanceOf(ValidationException.class);
+        assertThat(workoutRepository.findById(workout.getId()).orElseThrow().getFinishedAt()).isNull();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private WorkoutJournalRequest journal(List<WorkoutJournalEventDTO> events) {
+        WorkoutJournalRequest request = new WorkoutJournalRequest();
+        request.setEvents(events);
+        return request;
+    }
+
+    private WorkoutJournalEventDTO event(String eventId, WorkoutEventType type) {
+        WorkoutJournalEventDTO event = new WorkoutJournalEventDTO();
+        event.setEventId(eventId);
+        event.setType(type);
+        clock = clock.plusMinutes(1);
+        event.setOccurredAt(clock);
+        return event;
+    }
+
+    private WorkoutJournalEventDTO setEvent(String eventId, WorkoutEventType type, int set, int reps, double weight) {
+        WorkoutJournalEventDTO event = event(eventId, type);
+        event.setExerciseId(exercise.getId());
+        event.setSetId(exercise.getSets().get(set).getId());
+        event.setActualReps(reps);
+        event.setActualWeight(weight);
+        return event;
+    }
+}
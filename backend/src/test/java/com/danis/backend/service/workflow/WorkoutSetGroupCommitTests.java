@@ -0,0 +1,148 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.repository.*;
+import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The committer writes on its own thread and transaction, so the fixture is committed and removed
+ * after each test rather than rolled back.
+ */
+@SpringBootTest(properties = {
+        "workouts.group-commit.enabled=true",
+        "workouts.group-commit.max-delay-ms=500",
+        "workouts.group-commit.batch-size=50"
+})
+class WorkoutSetGroupCommitTests {
+
+    private static final int SETS = 10;
+
+    @Autowired
+    private WorkoutSetGroupCommitter workoutSetGroupCommitter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutTemplateRepository templateRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private PersonalRecordRepository personalRecordRepository;
+
+    private User user;
+    private Exercise performed;
+    private WorkoutTemplate template;
+    private Workout workout;
+    private WorkoutExercise exercise;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            user = userRepository.save(WorkoutHistoryFixture.user());
+            performed = exerciseRepository.save(WorkoutHistoryFixture.exercises(1).get(0));
+            template = templateRepository.save(WorkoutHistoryFixture.template(user));
+            workout = WorkoutHistoryFixture.inProgressWorkout(user, template, List.of(performed), SETS);
+            exercise = workout.getExercises().get(0);
+            workoutRepository.save(workout);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            personalRecordRepository.deleteAllByUserId(user.getId());
+            workoutRepository.deleteById(workout.getId());
+            templateRepository.deleteById(template.getId());
+            exerciseRepository.deleteById(performed.getId());
+            userRepository.deleteById(user.getId());
+        });
+    }
+
+    @Test
+    void concurrentUpdatesAreCommittedTogether() {
+        double commitsBefore = meterRegistry.counter("workouts.group-commit.commits").count();
+
+        List<CompletableFuture<WorkoutSetResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < SETS; i++) {
+            futures.add(workoutSetGroupCommitter.submit(workout.getId(), exercise.getId(),
+                    exercise.getSets().get(i).getId(), user.getId(), request(10, 40.0 + i)));
+        }
+
+        List<WorkoutSetResponse> responses = futures.stream().map(CompletableFuture::join).toList();
+
+        assertThat(meterRegistry.counter("workouts.group-commit.commits").count() - commitsBefore).isEqualTo(1);
+        assertThat(responses).extracting(WorkoutSetResponse::getActualWeight)
+                .containsExactly(40.0, 41.0, 42.0, 43.0, 44.0, 45.0, 46.0, 47.0, 48.0, 49.0);
+
+        // Only the best set of the exercise is the new record, as with a batch update
+        assertThat(responses).filteredOn(WorkoutSetResponse::isNewPersonalRecord)
+                .extracting(WorkoutSetResponse::getActualWeight)
+                .containsExactly(49.0);
+        assertThat(personalRecordRepository.findByUserIdAndExerciseId(user.getId(), performed.getId()))
+                .hasValueSatisfying(record -> assertThat(record.getWeight()).isEqualTo(49.0));
+    }
+
+    @Test
+    void updatesOfOneSetAreWrittenInTurn() {
+        double commitsBefore = meterRegistry.counter("workouts.group-commit.commits").count();
+        Long setId = exercise.getSets().get(0).getId();
+
+        CompletableFuture<WorkoutSetResponse> first = workoutSetGroupCommitter.submit(workout.getId(),
+                exercise.getId(), setId, user.getId(), request(10, 40.0));
+        CompletableFuture<WorkoutSetResponse> second = workoutSetGroupCommitter.submit(workout.getId(),
+                exercise.getId(), setId, user.getId(), request(8, 45.0));
+
+        assertThat(first.join().getActualWeight()).isEqualTo(40.0);
+        assertThat(second.join().getActualWeight()).isEqualTo(45.0);
+        assertThat(meterRegistry.counter("workouts.group-commit.commits").count() - commitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedUpdateFailsOnlyItsCaller() {
+        CompletableFuture<WorkoutSetResponse> own = workoutSetGroupCommitter.submit(workout.getId(),
+                exercise.getId(), exercise.getSets().get(0).getId(), user.getId(), request(10, 40.0));
+        CompletableFuture<WorkoutSetResponse> foreign = workoutSetGroupCommitter.submit(workout.getId(),
+                exercise.getId(), exercise.getSets().get(1).getId(), user.getId() + 1_000_000, request(10, 40.0));
+
+        assertThat(own.join().isCompleted()).isTrue();
+        assertThatThrownBy(foreign::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private UpdateWorkoutSetRequest request(int reps, double weight) {
+        UpdateWorkoutSetRequest request = new UpdateWorkoutSetRequest();
+        request.setActualReps(reps);
+        request.setActualWeight(weight);
+        request.setCompleted(true);
+        return request;
+    }
+}
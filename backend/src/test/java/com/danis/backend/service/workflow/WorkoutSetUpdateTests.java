@@ -0,0 +1,240 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.UpdateWorkoutSetRequest;
+import com.danis.backend.dto.UpdateWorkoutSetsRequest;
+import com.danis.backend.dto.WorkoutSetChange;
+import com.danis.backend.dto.WorkoutSetResponse;
+import com.danis.backend.dto.WorkoutSetUpdateResult;
+import com.danis.backend.exception.ValidationException;
+import com.danis.backend.support.StatementBudget;
+import com.danis.backend.support.StatementRecorder;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Set logging writes one row with one conditional statement, and a batch of sets with one
+ * JDBC batch, however large the workout
+ */
+@SpringBootTest(properties = StatementRecorder.INSPECTOR)
+@Transactional
+class WorkoutSetUpdateTests {
+
+    @Autowired
+    private WorkoutWorkflowService workoutWorkflowService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void updatesOneSetAndReportsItsNumber() {
+        Workout workout = createWorkout(2, WorkoutStatus.STARTED);
+        WorkoutExercise exercise = workout.getExercises().get(1);
+        WorkoutSet set = exercise.getSets().get(2);
+
+        WorkoutSetResponse response = workoutWorkflowService.updateWorkoutSet(
+                workout.getId(), exercise.getId(), set.getId(), workout.getUser().getId(), request(8, 50.0, true));
+
+        assertThat(response.getId()).isEqualTo(set.getId());
+        assertThat(response.getSetNumber()).isEqualTo(3);
+        assertThat(response.getPlannedReps()).isEqualTo(10);
+        assertThat(response.getActualReps()).isEqualTo(8);
+        assertThat(response.getActualWeight()).isEqualTo(50.0);
+        assertThat(response.isCompleted()).isTrue();
+
+        // The loaded instance follows the row
+        assertThat(set.getActualReps()).isEqualTo(8);
+        assertThat(set.isCompleted()).isTrue();
+    }
+
+    @Test
+    void rejectedUpdatesReportTheFailedCheck() {
+        Workout workout = createWorkout(1, WorkoutStatus.STARTED);
+        Workout finished = createWorkout(1, WorkoutStatus.COMPLETED);
+        Long userId = workout.getUser().getId();
+        Long exerciseId = workout.getExercises().get(0).getId();
+        Long setId = workout.getExercises().get(0).getSets().get(0).getId();
+
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSet(
+                -1L, exerciseId, setId, userId, request(5, null, true)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Workout not found");
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSet(
+                workout.getId(), exerciseId, setId, finished.getUser().getId(), request(5, null, true)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSet(
+                finished.getId(), finished.getExercises().get(0).getId(),
+                finished.getExercises().get(0).getSets().get(0).getId(),
+                finished.getUser().getId(), request(5, null, true)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSet(
+                workout.getId(), finished.getExercises().get(0).getId(), setId, userId, request(5, null, true)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Exercise not found");
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSet(
+                workout.getId(), exerciseId, finished.getExercises().get(0).getSets().get(0).getId(),
+                userId, request(5, null, true)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Set not found");
+    }
+
+    @Test
+    void statementsAgainstGraphUpdate() throws Exception {
+        Workout small = createWorkout(2, WorkoutStatus.STARTED);
+        Workout large = createWorkout(8, WorkoutStatus.STARTED);
+
+        // The conditional update, then the exercise's record lookup
+        StatementBudget.assertAtMost(2, () -> targetedUpdate(large));
+        StatementBudget.assertNotGrowing(() -> targetedUpdate(small), () -> targetedUpdate(large));
+
+        int graphStatements = StatementBudget.record(() -> graphUpdate(large)).size();
+        int targetedStatements = StatementBudget.record(() -> targetedUpdate(large)).size();
+        assertThat(targetedStatements).isLessThan(graphStatements);
+    }
+
+    @Test
+    void batchAppliesValidChangesAndReportsTheOthers() {
+        Workout workout = createWorkout(2, WorkoutStatus.STARTED);
+        Workout other = createWorkout(1, WorkoutStatus.STARTED);
+        WorkoutExercise first = workout.getExercises().get(0);
+        WorkoutExercise second = workout.getExercises().get(1);
+        WorkoutSet set = second.getSets().get(1);
+
+        List<WorkoutSetUpdateResult> results = workoutWorkflowService.updateWorkoutSets(
+                workout.getId(), workout.getUser().getId(), batch(List.of(
+                        change(second.getId(), set.getId(), 60.0),
+                        change(first.getId(), other.getExercises().get(0).getSets().get(0).getId(), 60.0),
+                        change(first.getId(), second.getSets().get(0).getId(), 60.0))));
+
+        assertThat(results).extracting(WorkoutSetUpdateResult::isUpdated).containsExactly(true, false, false);
+        assertThat(results.get(0).getSet().getSetNumber()).isEqualTo(2);
+        assertThat(results.get(0).getSet().getActualWeight()).isEqualTo(60.0);
+        assertThat(results.get(0).getSet().isNewPersonalRecord()).isTrue();
+        assertThat(results.get(1).getError()).isEqualTo("Set not found");
+
+        // The loaded instances follow the rows
+        assertThat(set.getActualWeight()).isEqualTo(60.0);
+        assertThat(second.getSets().get(0).getActualWeight()).isNull();
+    }
+
+    @Test
+    void batchIsCheckedOnce() throws Exception {
+        Workout small = createWorkout(2, WorkoutStatus.STARTED);
+        Workout large = createWorkout(8, WorkoutStatus.STARTED);
+
+        // The workout, the updated sets and their exercises' records; the JDBC batch is not inspected
+        StatementBudget.assertAtMost(3, () -> batchUpdate(large));
+        StatementBudget.assertNotGrowing(() -> batchUpdate(small), () -> batchUpdate(large));
+
+        assertThatThrownBy(() -> workoutWorkflowService.updateWorkoutSets(
+                small.getId(), small.getUser().getId(), batch(List.of())))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    // ==================== Helper Methods ====================
+
+    // Every set of the workout as bodyweight sets, so no personal record is written
+    private void batchUpdate(Workout workout) {
+        List<WorkoutSetChange> changes = workout.getExercises().stream()
+                .flatMap(exercise -> exercise.getSets().stream()
+                        .map(set -> change(exercise.getId(), set.getId(), null)))
+                .toList();
+
+        entityManager.clear();
+        workoutWorkflowService.updateWorkoutSets(workout.getId(), workout.getUser().getId(), batch(changes));
+        entityManager.flush();
+    }
+
+    private UpdateWorkoutSetsRequest batch(List<WorkoutSetChange> changes) {
+        UpdateWorkoutSetsRequest request = new UpdateWorkoutSetsRequest();
+        request.setSets(changes);
+        return request;
+    }
+
+    private WorkoutSetChange change(Long exerciseId, Long setId, Double weight) {
+        WorkoutSetChange change = new WorkoutSetChange();
+        change.setExerciseId(exerciseId);
+        change.setSetId(setId);
+        change.setActualReps(10);
+        change.setActualWeight(weight);
+        change.setCompleted(true);
+        return change;
+    }
+
+    // A bodyweight set, so no personal record is written
+    private void targetedUpdate(Workout workout) {
+        WorkoutExercise exercise = workout.getExercises().get(workout.getExercises().size() - 1);
+        Long setId = exercise.getSets().get(0).getId();
+
+        // Start from an empty persistence context, as a fresh request would
+        entityManager.clear();
+        workoutWorkflowService.updateWorkoutSet(
+                workout.getId(), exercise.getId(), setId, workout.getUser().getId(), request(12, null, true));
+        entityManager.flush();
+    }
+
+    // The previous implementation: load the graph, find the set, cascade a save.
+    // WorkoutSetUpdateBenchmark compares the latency of both.
+    private void graphUpdate(Workout workout) {
+        WorkoutExercise last = workout.getExercises().get(workout.getExercises().size() - 1);
+        Long setId = last.getSets().get(0).getId();
+
+        entityManager.clear();
+        Workout loaded = workoutRepository.findById(workout.getId()).orElseThrow();
+        WorkoutSet set = loaded.getExercises().stream()
+                .filter(e -> e.getId().equals(last.getId()))
+                .flatMap(e -> e.getSets().stream())
+                .filter(s -> s.getId().equals(setId))
+                .findFirst()
+                .orElseThrow();
+        set.setActualReps(set.getActualReps() != null && set.getActualReps() == 12 ? 11 : 12);
+        set.setCompleted(true);
+        workoutRepository.saveAndFlush(loaded);
+    }
+
+    private UpdateWorkoutSetRequest request(Integer reps, Double weight, boolean completed) {
+        UpdateWorkoutSetRequest request = new UpdateWorkoutSetRequest();
+        request.setActualReps(reps);
+        request.setActualWeight(weight);
+        request.setCompleted(completed);
+        return request;
+    }
+
+    // A workout of the given number of exercises, three sets each, for a new user
+    private Workout createWorkout(int exerciseCount, WorkoutStatus status) {
+        User user = userRepository.save(WorkoutHistoryFixture.user());
+        List<Exercise> exercises = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(exerciseCount));
+
+        Workout workout = WorkoutHistoryFixture.inProgressWorkout(user, null, exercises, 3);
+        if (status == WorkoutStatus.COMPLETED) {
+            workout.setStatus(WorkoutStatus.COMPLETED);
+            workout.setFinishedAt(LocalDateTime.now());
+        }
+
+        return workoutRepository.saveAndFlush(workout);
+    }
+}
@@ -0,0 +1,94 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.User;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.service.statistics.StatisticsCache;
+import com.danis.backend.service.statistics.SetHistoryIndexCache;
+import com.danis.backend.service.statistics.StatisticsChangedEvent;
+import com.danis.backend.support.StatementBudget;
+import com.danis.backend.support.StatementRecorder;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = StatementRecorder.INSPECTOR)
+@Transactional
+class WorkoutStatisticsFetchPlanTests {
+
+    // Two queries building the column index (exercises, set rows), four aggregate queries,
+    // the record table read, the activity days and the count choosing between the index
+    // and streaming the history. Cache entries are weighed by their value, without a query.
+    private static final int OVERVIEW_STATEMENTS = 9;
+
+    @Autowired
+    private WorkoutStatisticsService statisticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StatisticsCache statisticsCache;
+
+    @Autowired
+    private SetHistoryIndexCache setHistoryIndexCache;
+
+    @Test
+    void overviewQueryCountDoesNotGrowWithHistory() throws Exception {
+        int small = statementsForOverview(createUser(10));
+        int large = statementsForOverview(createUser(150));
+
+        assertThat(small).isEqualTo(OVERVIEW_STATEMENTS);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void repeatedOverviewIsServedFromCacheUntilInvalidated() throws Exception {
+        Long userId = createUser(10);
+
+        assertThat(statementsForOverview(userId)).isEqualTo(OVERVIEW_STATEMENTS);
+        assertThat(statementsForOverview(userId)).isZero();
+
+        // An in-progress edit keeps the index, only the database sections are read again
+        statisticsCache.onStatisticsChanged(StatisticsChangedEvent.inProgress(userId));
+        setHistoryIndexCache.onStatisticsChanged(StatisticsChangedEvent.inProgress(userId));
+        assertThat(statementsForOverview(userId)).isPositive().isLessThan(OVERVIEW_STATEMENTS);
+
+        statisticsCache.onStatisticsChanged(new StatisticsChangedEvent(userId));
+        setHistoryIndexCache.onStatisticsChanged(new StatisticsChangedEvent(userId));
+
+        assertThat(statementsForOverview(userId)).isEqualTo(OVERVIEW_STATEMENTS);
+    }
+
+    private Long createUser(int workouts) {
+        User user = userRepository.save(WorkoutHistoryFixture.user());
+        List<Exercise> exercises = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(12));
+        workoutRepository.saveAllAndFlush(WorkoutHistoryFixture.history(user, exercises, workouts, 5, 4, workouts));
+        return user.getId();
+    }
+
+    private int statementsForOverview(Long userId) throws Exception {
+        // Start from an empty persistence context, as a fresh request would
+        entityManager.clear();
+
+        return StatementBudget.record(() -> statisticsService.getUserWorkoutStats(userId)).size();
+    }
+}
@@ -0,0 +1,222 @@
+package com.danis.backend.service.workflow;
+
+import com.danis.backend.domain.model.entities.Exercise;
+import com.danis.backend.domain.model.entities.User;
+import com.danis.backend.domain.model.entities.Workout;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+import com.danis.backend.domain.repository.ExerciseRepository;
+import com.danis.backend.domain.repository.UserRepository;
+import com.danis.backend.domain.repository.WorkoutRepository;
+import com.danis.backend.dto.ExerciseProgressDTO;
+import com.danis.backend.dto.ExerciseSessionDTO;
+import com.danis.backend.dto.MuscleGroupStatsDTO;
+import com.danis.backend.dto.PeriodStatsDTO;
+import com.danis.backend.dto.PersonalRecordDTO;
+import com.danis.backend.dto.UserWorkoutStatsDTO;
+import com.danis.backend.service.statistics.StatisticsSection;
+import com.danis.backend.service.statistics.StatsAccumulator;
+import com.danis.backend.service.statistics.WorkoutHistoryLoader;
+import com.danis.backend.service.statistics.WorkoutHistoryStatistics;
+import com.danis.backend.service.statistics.WorkoutHistoryStreamer;
+import com.danis.backend.support.WorkoutHistoryFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Transactional
+class WorkoutStatisticsServiceTests {
+
+    @Autowired
+    private WorkoutStatisticsService statisticsService;
+
+    private final WorkoutHistoryStatistics reference = new WorkoutHistoryStatistics();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private WorkoutHistoryLoader historyLoader;
+
+    @Autowired
+    private WorkoutHistoryStreamer historyStreamer;
+
+    private Long userId;
+    private Long exerciseId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(WorkoutHistoryFixture.user());
+        List<Exercise> exercises = exerciseRepository.saveAll(WorkoutHistoryFixture.exercises(6));
+        workoutRepository.saveAllAndFlush(WorkoutHistoryFixture.history(user, exercises, 60, 4, 3, 42L));
+        userId = user.getId();
+        exerciseId = exercises.get(0).getId();
+
+        // Personal records are read from the table maintained as workouts are finished
+        userStatsService.rebuild(userId);
+    }
+
+    @Test
+    void overviewTotalsMatchReferenceImplementation() {
+        UserWorkoutStatsDTO actual = statisticsService.getUserWorkoutStats(userId);
+        UserWorkoutStatsDTO expected = reference.computeUserWorkoutStats(
+                workoutRepository.findByUserIdAndStatus(userId, WorkoutStatus.COMPLETED));
+
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(actual.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(actual.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(actual.getTotalDuration()).isEqualTo(expected.getTotalDuration());
+        assertThat(actual.getWorkoutsLast30Days()).isEqualTo(expected.getWorkoutsLast30Days());
+        assertThat(actual.getVolumeLast30Days()).isCloseTo(expected.getVolumeLast30Days(), within(0.001));
+        assertThat(actual.getAverageWorkoutDuration()).isCloseTo(expected.getAverageWorkoutDuration(), within(0.001));
+    }
+
+    @Test
+    void periodStatsMatchReferenceImplementation() {
+        int days = 90;
+        PeriodStatsDTO actual = statisticsService.getPeriodStats(userId, days);
+        List<Workout> workouts = workoutRepository.findByUserIdAndStatusAndFinishedAtAfter(
+                userId, WorkoutStatus.COMPLETED, LocalDateTime.now().minusDays(days));
+        PeriodStatsDTO expected = reference.computePeriodStats(workouts, days);
+
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(actual.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(actual.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(actual.getTotalDuration()).isEqualTo(expected.getTotalDuration());
+        assertThat(actual.getAverageWorkoutsPerWeek()).isCloseTo(expected.getAverageWorkoutsPerWeek(), within(0.001));
+
+        assertThat(actual.getVolumeByWeek()).hasSameSizeAs(expected.getVolumeByWeek());
+        for (int i = 0; i < expected.getVolumeByWeek().size(); i++) {
+            assertThat(actual.getVolumeByWeek().get(i).getWeekStart())
+                    .isEqualTo(expected.getVolumeByWeek().get(i).getWeekStart());
+            assertThat(actual.getVolumeByWeek().get(i).getWorkoutCount())
+                    .isEqualTo(expected.getVolumeByWeek().get(i).getWorkoutCount());
+            assertThat(actual.getVolumeByWeek().get(i).getTotalSets())
+                    .isEqualTo(expected.getVolumeByWeek().get(i).getTotalSets());
+            assertThat(actual.getVolumeByWeek().get(i).getTotalVolume())
+                    .isCloseTo(expected.getVolumeByWeek().get(i).getTotalVolume(), within(0.001));
+        }
+    }
+
+    @Test
+    void narrowSectionQueriesMatchReferenceImplementation() {
+        List<Workout> history = workoutRepository.findByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
+
+        Map<String, MuscleGroupStatsDTO> expectedMuscles = reference.getMuscleGroupDistribution(history);
+        Map<String, MuscleGroupStatsDTO> actualMuscles = statisticsService.getMuscleGroupDistribution(userId);
+        assertThat(actualMuscles.keySet()).isEqualTo(expectedMuscles.keySet());
+        expectedMuscles.forEach((muscle, expected) -> {
+            assertThat(actualMuscles.get(muscle).getWorkoutCount()).isEqualTo(expected.getWorkoutCount());
+            assertThat(actualMuscles.get(muscle).getTotalSets()).isEqualTo(expected.getTotalSets());
+            assertThat(actualMuscles.get(muscle).getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        });
+
+        List<PersonalRecordDTO> expectedRecords = reference.getPersonalRecords(history);
+        List<PersonalRecordDTO> actualRecords = statisticsService.getPersonalRecords(userId);
+        assertThat(actualRecords).hasSameSizeAs(expectedRecords);
+        for (int i = 0; i < expectedRecords.size(); i++) {
+            assertThat(actualRecords.get(i).getEstimatedOneRepMax())
+                    .isCloseTo(expectedRecords.get(i).getEstimatedOneRepMax(), within(0.001));
+        }
+    }
+
+    @Test
+    void exerciseProgressPagesMatchReferenceImplementation() {
+        List<Workout> history = workoutRepository.findByUserIdAndStatus(userId, WorkoutStatus.COMPLETED);
+        ExerciseProgressDTO expected = reference.computeExerciseProgress(history, exerciseId);
+
+        List<ExerciseSessionDTO> sessions = new ArrayList<>();
+        ExerciseProgressDTO page = null;
+        String cursor = null;
+        do {
+            page = statisticsService.getExerciseProgress(userId, exerciseId, null, null, cursor, 7);
+            assertThat(page.getSessions()).hasSizeLessThanOrEqualTo(7);
+            sessions.addAll(page.getSessions());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(page.getTotalSessions()).isEqualTo(expected.getTotalSessions());
+        assertThat(page.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(page.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(page.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(page.getMaxWeightEver()).isCloseTo(expected.getMaxWeightEver(), within(0.001));
+        assertThat(page.getCurrentMaxWeight()).isCloseTo(expected.getCurrentMaxWeight(), within(0.001));
+
+        assertThat(sessions).hasSameSizeAs(expected.getSessions());
+        for (int i = 0; i < sessions.size(); i++) {
+            assertThat(sessions.get(i).getDate()).isEqualTo(expected.getSessions().get(i).getDate());
+        }
+        assertThat(sessions.stream().mapToDouble(ExerciseSessionDTO::getVolume).sum())
+                .isCloseTo(expected.getTotalVolume(), within(0.001));
+
+        // Without a limit, the whole list comes in one response, as before paging
+        ExerciseProgressDTO unpaged = statisticsService.getExerciseProgress(userId, exerciseId, null, null, null, null);
+        assertThat(unpaged.getSessions()).hasSameSizeAs(expected.getSessions());
+        assertThat(unpaged.getNextCursor()).isNull();
+
+        // A date range only counts the sessions inside it, both ends included
+        LocalDate to = LocalDate.now().minusDays(10);
+        LocalDate from = to.minusDays(30);
+        long inRange = expected.getSessions().stream()
+                .filter(session -> !session.getDate().isBefore(from) && !session.getDate().isAfter(to))
+                .count();
+        assertThat(statisticsService.getExerciseProgress(userId, exerciseId, from, to, null, 100).getTotalSessions())
+                .isEqualTo((int) inRange);
+    }
+
+    @Test
+    void streamedHistoryMatchesLoadedHistory() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        StatsAccumulator expected = historyLoader.loadCompleted(userId).stream()
+                .collect(StatsAccumulator.collector(cutoff));
+        StatsAccumulator actual = historyStreamer.streamCompleted(userId, true, new StatsAccumulator(cutoff));
+
+        assertThat(actual.getTotalWorkouts()).isEqualTo(expected.getTotalWorkouts());
+        assertThat(actual.getTotalSets()).isEqualTo(expected.getTotalSets());
+        assertThat(actual.getTotalReps()).isEqualTo(expected.getTotalReps());
+        assertThat(actual.getTotalVolume()).isCloseTo(expected.getTotalVolume(), within(0.001));
+        assertThat(actual.getTotalUniqueExercises()).isEqualTo(expected.getTotalUniqueExercises());
+        assertThat(actual.workoutsByDayOfWeek()).isEqualTo(expected.workoutsByDayOfWeek());
+
+        Map<String, MuscleGroupStatsDTO> expectedMuscles = expected.muscleGroupDistribution();
+        Map<String, MuscleGroupStatsDTO> actualMuscles = actual.muscleGroupDistribution();
+        assertThat(actualMuscles.keySet()).isEqualTo(expectedMuscles.keySet());
+        expectedMuscles.forEach((muscle, stats) -> {
+            assertThat(actualMuscles.get(muscle).getTotalSets()).isEqualTo(stats.getTotalSets());
+            assertThat(actualMuscles.get(muscle).getTotalVolume()).isCloseTo(stats.getTotalVolume(), within(0.001));
+        });
+    }
+
+    @Test
+    void unrequestedSectionsAreLeftEmpty() {
+        UserWorkoutStatsDTO stats = statisticsService.getUserWorkoutStats(userId, EnumSet.of(StatisticsSection.STREAKS));
+
+        assertThat(stats.getLongestStreak()).isPositive();
+        assertThat(stats.getTotalWorkouts()).isZero();
+        assertThat(stats.getPersonalRecords()).isNull();
+        assertThat(stats.getMuscleGroupDistribution()).isNull();
+    }
+}
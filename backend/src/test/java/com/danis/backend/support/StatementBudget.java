@@ -0,0 +1,77 @@
+package com.danis.backend.support;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assertions on the number of SQL statements a piece of code executes, for tests booted with
+ * {@link StatementRecorder#INSPECTOR}. A failure lists every statement and, as the usual sign of
+ * an N+1 pattern, the statements that were executed more than once.
+ */
+public final class StatementBudget {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private StatementBudget() {
+    }
+
+    /**
+     * Run the action and fail if it executed more than {@code budget} statements
+     *
+     * @return the statements executed
+     */
+    public static List<String> assertAtMost(int budget, Action action) throws Exception {
+        List<String> statements = record(action);
+        if (statements.size() > budget) {
+            throw new AssertionError(describe(
+                    "Expected at most " + budget + " statements but " + statements.size() + " were executed",
+                    statements));
+        }
+        return statements;
+    }
+
+    /**
+     * Fail if the second action executed more statements than the first, e.g. for a larger workout
+     */
+    public static void assertNotGrowing(Action smaller, Action larger) throws Exception {
+        List<String> small = record(smaller);
+        List<String> large = record(larger);
+        if (large.size() > small.size()) {
+            throw new AssertionError(describe(
+                    "Statement count grew with the data from " + small.size() + " to " + large.size(), large));
+        }
+    }
+
+    public static List<String> record(Action action) throws Exception {
+        List<String> statements;
+        StatementRecorder.start();
+        try {
+            action.run();
+        } finally {
+            statements = StatementRecorder.stop();
+        }
+        return statements;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static String describe(String headline, List<String> statements) {
+        StringBuilder message = new StringBuilder(headline).append(":\n");
+        for (int i = 0; i < statements.size(); i++) {
+            message.append(String.format("  %2d. %s%n", i + 1, statements.get(i)));
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        statements.forEach(sql -> counts.merge(sql, 1, Integer::sum));
+        counts.values().removeIf(count -> count == 1);
+        if (!counts.isEmpty()) {
+            message.append("Repeated statements, a likely N+1:\n");
+            counts.forEach((sql, count) -> message.append(String.format("  %dx %s%n", count, sql)));
+        }
+        return message.toString();
+    }
+}
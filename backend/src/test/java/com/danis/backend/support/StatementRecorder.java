@@ -0,0 +1,44 @@
+package com.danis.backend.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL of every statement Hibernate prepares while a recording is running, on any
+ * thread, so statements of sections computed concurrently are counted too. Registered by
+ * {@link #INSPECTOR}; see {@link StatementBudget} for the assertions.
+ */
+public class StatementRecorder implements StatementInspector {
+
+    /**
+     * Test property registering the recorder with Hibernate, for {@code @SpringBootTest(properties = ...)}
+     */
+    public static final String INSPECTOR = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.danis.backend.support.StatementRecorder";
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    @Override
+    public String inspect(String sql) {
+        if (recording) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    static void start() {
+        statements.clear();
+        recording = true;
+    }
+
+    static List<String> stop() {
+        recording = false;
+        List<String> recorded = new ArrayList<>(statements);
+        statements.clear();
+        return recorded;
+    }
+}
@@ -0,0 +1,168 @@
+package com.danis.backend.support;
+
+import com.danis.backend.domain.model.entities.*;
+import com.danis.backend.domain.model.enums.ExerciseType;
+import com.danis.backend.domain.model.enums.WorkoutStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds deterministic workout histories for statistics tests, and templates and workouts in progress
+ * for set logging tests. Entities are not persisted; saving the workouts cascades to exercises and sets.
+ */
+public final class WorkoutHistoryFixture {
+
+    private static final String[] MUSCLES = {"pectorals", "lats", "quads", "glutes", "delts", "biceps", "triceps"};
+
+    private WorkoutHistoryFixture() {
+    }
+
+    public static User user() {
+        return User.builder()
+                .fullName("Statistics Test")
+                .email("stats-" + UUID.randomUUID() + "@test.local")
+                .password("secret")
+                .build();
+    }
+
+    public static List<Exercise> exercises(int count) {
+        List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            exercises.add(Exercise.builder()
+                    .name("Exercise " + i)
+                    .targetMuscles(new ArrayList<>(List.of(MUSCLES[i % MUSCLES.length], MUSCLES[(i + 3) % MUSCLES.length])))
+                    .type(ExerciseType.CUSTOM)
+                    .build());
+        }
+        return exercises;
+    }
+
+    public static WorkoutTemplate template(User user) {
+        return WorkoutTemplate.builder()
+                .name("Template")
+                .user(user)
+                .exercises(new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * A template with one entry per exercise in the given order, each with {@code setsPerExercise} sets of 10 x 40
+     */
+    public static WorkoutTemplate template(User user, List<Exercise> exercises, int setsPerExercise) {
+        WorkoutTemplate template = template(user);
+
+        for (int e = 0; e < exercises.size(); e++) {
+            WorkoutTemplateExercise te = WorkoutTemplateExercise.builder()
+                    .workoutTemplate(template)
+                    .exercise(exercises.get(e))
+                    .orderIndex(e)
+                    .sets(new ArrayList<>())
+                    .build();
+            for (int s = 0; s < setsPerExercise; s++) {
+                te.getSets().add(WorkoutTemplateSet.builder()
+                        .templateExercise(te)
+                        .reps(10)
+                        .weight(40.0)
+                        .build());
+            }
+            template.getExercises().add(te);
+        }
+
+        return template;
+    }
+
+    /**
+     * A workout started an hour ago, with one entry per exercise in the given order, each with
+     * {@code setsPerExercise} planned sets of 10 x 40 that are not logged yet
+     *
+     * @param template may be null
+     */
+    public static Workout inProgressWorkout(
+            User user,
+            WorkoutTemplate template,
+            List<Exercise> exercises,
+            int setsPerExercise
+    ) {
+        Workout workout = Workout.builder()
+                .user(user)
+                .template(template)
+                .status(WorkoutStatus.STARTED)
+                .startedAt(LocalDateTime.now().minusHours(1))
+                .build();
+
+        for (int e = 0; e < exercises.size(); e++) {
+            WorkoutExercise we = WorkoutExercise.builder()
+                    .workout(workout)
+                    .exercise(exercises.get(e))
+                    .orderIndex(e)
+                    .build();
+            for (int s = 0; s < setsPerExercise; s++) {
+                we.getSets().add(WorkoutSet.builder()
+                        .workoutExercise(we)
+                        .plannedReps(10)
+                        .plannedWeight(40.0)
+                        .build());
+            }
+            workout.getExercises().add(we);
+        }
+
+        return workout;
+    }
+
+    /**
+     * Completed workouts going back in time from today, one every one to three days.
+     * Some sets are skipped and some have no weight, like cardio sets.
+     */
+    public static List<Workout> history(
+            User user,
+            List<Exercise> exercises,
+            int workouts,
+            int exercisesPerWorkout,
+            int setsPerExercise,
+            long seed
+    ) {
+        Random random = new Random(seed);
+        List<Workout> history = new ArrayList<>();
+        LocalDateTime finishedAt = LocalDateTime.now().withHour(18).withMinute(0).withSecond(0).withNano(0);
+
+        for (int w = 0; w < workouts; w++) {
+            Workout workout = Workout.builder()
+                    .user(user)
+                    .status(WorkoutStatus.COMPLETED)
+                    .startedAt(finishedAt.minusMinutes(30 + random.nextInt(60)))
+                    .finishedAt(finishedAt)
+                    .build();
+
+            for (int e = 0; e < exercisesPerWorkout; e++) {
+                WorkoutExercise we = WorkoutExercise.builder()
+                        .workout(workout)
+                        .exercise(exercises.get(random.nextInt(exercises.size())))
+                        .orderIndex(e)
+                        .build();
+
+                for (int s = 0; s < setsPerExercise; s++) {
+                    boolean cardio = random.nextInt(10) == 0;
+                    we.getSets().add(WorkoutSet.builder()
+                            .workoutExercise(we)
+                            .plannedReps(10)
+                            .plannedWeight(cardio ? null : 40.0)
+                            .actualReps(6 + random.nextInt(8))
+                            .actualWeight(cardio ? null : 20.0 + random.nextInt(80) * 1.25)
+                            .completed(random.nextInt(8) != 0)
+                            .build());
+                }
+
+                workout.getExercises().add(we);
+            }
+
+            history.add(workout);
+            finishedAt = finishedAt.minusDays(1 + random.nextInt(3));
+        }
+
+        return history;
+    }
+}